@@ -15,22 +15,15 @@ public class ScheduledTasks {
     private BorrowRecordService borrowRecordService;
 
     /**
-     * Update overdue status for borrow records
-     * Runs every day at midnight (00:00)
+     * Full overdue sweep - a low-frequency safety net.
+     * Exact-time ACTIVE -> OVERDUE transitions are fired by DueDateScheduler;
+     * this run also accrues the daily late fines of records that are already overdue.
+     * Runs every day at 00:30 by default.
      */
-    @Scheduled(cron = "0 0 0 * * *")
+    @Scheduled(cron = "${library.overdue.sweep-cron:0 30 0 * * *}")
     public void updateOverdueRecords() {
         System.out.println("🕐 Running scheduled task: Update overdue borrow records");
         borrowRecordService.updateOverdueStatus();
         System.out.println("✅ Overdue status updated successfully");
     }
-
-    /**
-     * Also run every hour during business hours (8 AM - 8 PM)
-     * to ensure timely updates
-     */
-    @Scheduled(cron = "0 0 8-20 * * *")
-    public void updateOverdueRecordsHourly() {
-        borrowRecordService.updateOverdueStatus();
-    }
 }
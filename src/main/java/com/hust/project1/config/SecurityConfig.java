@@ -4,6 +4,7 @@ import com.hust.project1.service.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -31,6 +32,7 @@ public class SecurityConfig {
                                 .requestMatchers("/login", "/css/**", "/js/**", "/images/**")
                                 .permitAll()
                                 .requestMatchers("/admin/**").hasRole("ADMIN")
+                                .requestMatchers(HttpMethod.POST, "/borrow-records/*/waive-fine").hasRole("ADMIN")
                                 .anyRequest().authenticated())
                         .formLogin(form -> form
                                 .loginPage("/login")
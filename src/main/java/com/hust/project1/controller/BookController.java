@@ -1,19 +1,28 @@
 package com.hust.project1.controller;
 
+import com.hust.project1.dto.CatalogFacets;
+import com.hust.project1.dto.CatalogPage;
+import com.hust.project1.dto.CursorPage;
+import com.hust.project1.dto.FacetLink;
+import com.hust.project1.dto.PageCursor;
 import com.hust.project1.entity.Book;
+import com.hust.project1.service.BookAvailabilityService;
+import com.hust.project1.service.BookSearchIndex.FacetFilter;
 import com.hust.project1.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import jakarta.validation.Valid;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
@@ -23,37 +32,97 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BookAvailabilityService bookAvailabilityService;
+
     /**
      * Display book list with search and pagination
      */
     @GetMapping
     public String listBooks(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String isbn,
             @RequestParam(required = false) String author,
             @RequestParam(required = false) String category,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String publisher,
+            @RequestParam(required = false) Integer publishYear,
+            @RequestParam(required = false) Boolean available,
             Model model) {
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
-        Page<Book> bookPage = bookService.searchBooks(title, isbn, author, category, pageable);
-
-        model.addAttribute("books", bookPage.getContent());
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", bookPage.getTotalPages());
-        model.addAttribute("totalItems", bookPage.getTotalElements());
+        CatalogPage catalog = bookService.searchBooks(keyword, title, isbn, author, category,
+                new FacetFilter(categoryId, publisher, publishYear, available), PageCursor.decode(cursor), size);
+        CursorPage<Book> bookPage = catalog.page();
+
+        model.addAttribute("books", bookPage.content());
+        model.addAttribute("correctedQuery", catalog.correctedQuery());
+        // Copy counts of the whole page in one lookup
+        model.addAttribute("availability",
+                bookAvailabilityService.findByBookIds(bookPage.content().stream().map(Book::getId).toList()));
+        model.addAttribute("nextCursor", bookPage.nextCursor());
+        model.addAttribute("prevCursor", bookPage.prevCursor());
+        model.addAttribute("totalItems", bookPage.total());
         model.addAttribute("pageSize", size);
 
         // Keep search parameters
+        model.addAttribute("searchKeyword", keyword != null ? keyword : "");
         model.addAttribute("searchTitle", title != null ? title : "");
         model.addAttribute("searchIsbn", isbn != null ? isbn : "");
         model.addAttribute("searchAuthor", author != null ? author : "");
         model.addAttribute("searchCategory", category != null ? category : "");
+        model.addAttribute("selectedCategoryId", categoryId);
+        model.addAttribute("selectedPublisher", publisher != null ? publisher : "");
+        model.addAttribute("selectedPublishYear", publishYear);
+        model.addAttribute("selectedAvailable", available);
+
+        // Facet links keep the current search and reset the cursor
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("size", size);
+        params.put("keyword", keyword);
+        params.put("title", title);
+        params.put("isbn", isbn);
+        params.put("author", author);
+        params.put("category", category);
+        params.put("categoryId", categoryId);
+        params.put("publisher", publisher);
+        params.put("publishYear", publishYear);
+        params.put("available", available);
+        CatalogFacets facets = catalog.facets();
+        model.addAttribute("hasFacets", !facets.isEmpty());
+        model.addAttribute("categoryFacets", facetLinks(facets.categories(), "categoryId", params));
+        model.addAttribute("publisherFacets", facetLinks(facets.publishers(), "publisher", params));
+        model.addAttribute("yearFacets", facetLinks(facets.publishYears(), "publishYear", params));
+        model.addAttribute("availabilityFacets", facetLinks(facets.availability(), "available", params));
 
         return "books";
     }
 
+    /**
+     * Links selecting each facet value (or clearing it when it is the selected one)
+     */
+    private static List<FacetLink> facetLinks(List<CatalogFacets.Value> values, String param,
+            Map<String, Object> params) {
+        Object current = params.get(param);
+        List<FacetLink> links = new ArrayList<>(values.size());
+        for (CatalogFacets.Value value : values) {
+            boolean selected = current != null && value.value().equalsIgnoreCase(current.toString().trim());
+            UriComponentsBuilder uri = UriComponentsBuilder.fromPath("/books");
+            params.forEach((name, paramValue) -> {
+                if (!name.equals(param) && paramValue != null && StringUtils.hasText(paramValue.toString())) {
+                    uri.queryParam(name, paramValue);
+                }
+            });
+            if (!selected) {
+                uri.queryParam(param, value.value());
+            }
+            links.add(new FacetLink(value.label(), value.count(), uri.encode().build().toUriString(), selected));
+        }
+        return links;
+    }
+
     /**
      * Show create book form
      */
@@ -1,14 +1,14 @@
 package com.hust.project1.controller;
 
+import com.hust.project1.dto.CursorPage;
+import com.hust.project1.dto.PageCursor;
 import com.hust.project1.entity.Book;
 import com.hust.project1.entity.BookCopy;
 import com.hust.project1.service.BookCopyService;
 import com.hust.project1.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -34,7 +34,7 @@ public class BookCopyController {
      */
     @GetMapping
     public String listBookCopies(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) Long bookId,
             @RequestParam(required = false) String copyNumber,
@@ -42,13 +42,13 @@ public class BookCopyController {
             @RequestParam(required = false) String location,
             Model model) {
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
-        Page<BookCopy> bookCopyPage = bookCopyService.searchBookCopies(bookId, copyNumber, status, location, pageable);
+        CursorPage<BookCopy> bookCopyPage = bookCopyService.searchBookCopies(bookId, copyNumber, status, location,
+                PageCursor.decode(cursor), size);
 
-        model.addAttribute("bookCopies", bookCopyPage.getContent());
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", bookCopyPage.getTotalPages());
-        model.addAttribute("totalItems", bookCopyPage.getTotalElements());
+        model.addAttribute("bookCopies", bookCopyPage.content());
+        model.addAttribute("nextCursor", bookCopyPage.nextCursor());
+        model.addAttribute("prevCursor", bookCopyPage.prevCursor());
+        model.addAttribute("totalItems", bookCopyPage.total());
         model.addAttribute("pageSize", size);
 
         // Keep search parameters
@@ -161,7 +161,13 @@ public class BookCopyController {
 
         bookCopy.setId(id);
         bookCopy.setBook(book.get());
-        bookCopyService.save(bookCopy);
+        try {
+            bookCopyService.save(bookCopy);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            redirectAttributes.addFlashAttribute("errorMessage",
+                    "Bản sao vừa được thay đổi (mượn/trả) ở nơi khác. Vui lòng tải lại và thử lại!");
+            return "redirect:/book-copies";
+        }
         redirectAttributes.addFlashAttribute("successMessage", "Cập nhật bản sao thành công!");
         return "redirect:/book-copies";
     }
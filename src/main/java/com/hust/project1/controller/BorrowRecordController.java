@@ -1,17 +1,14 @@
 package com.hust.project1.controller;
 
+import com.hust.project1.dto.CursorPage;
+import com.hust.project1.dto.PageCursor;
+import com.hust.project1.dto.ReturnResult;
 import com.hust.project1.entity.BookCopy;
 import com.hust.project1.entity.BorrowRecord;
 import com.hust.project1.entity.BorrowRecordDetail;
-import com.hust.project1.entity.Member;
-import com.hust.project1.service.BookCopyService;
 import com.hust.project1.service.BorrowRecordService;
 import com.hust.project1.service.MemberService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -20,6 +17,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,9 +31,6 @@ public class BorrowRecordController {
     @Autowired
     private MemberService memberService;
 
-    @Autowired
-    private BookCopyService bookCopyService;
-
     /**
      * Display borrow record list with search and pagination
      */
@@ -45,20 +40,18 @@ public class BorrowRecordController {
             @RequestParam(required = false) String status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size,
             Model model) {
 
-        // Update overdue status before displaying records
-        borrowRecordService.updateOverdueStatus();
+        CursorPage<BorrowRecord> borrowRecords = borrowRecordService.searchBorrowRecords(
+                memberId, status, fromDate, toDate, PageCursor.decode(cursor), size);
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("borrowDate").descending());
-        Page<BorrowRecord> borrowRecords = borrowRecordService.searchBorrowRecords(
-                memberId, status, fromDate, toDate, pageable);
-
-        model.addAttribute("borrowRecords", borrowRecords);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", borrowRecords.getTotalPages());
+        model.addAttribute("borrowRecords", borrowRecords.content());
+        model.addAttribute("nextCursor", borrowRecords.nextCursor());
+        model.addAttribute("prevCursor", borrowRecords.prevCursor());
+        model.addAttribute("totalItems", borrowRecords.total());
+        model.addAttribute("pageSize", size);
         model.addAttribute("searchMemberId", memberId != null ? memberId : "");
         model.addAttribute("searchStatus", status != null ? status : "");
         model.addAttribute("searchFromDate", fromDate);
@@ -67,9 +60,8 @@ public class BorrowRecordController {
         // Add status enum values
         model.addAttribute("statuses", BorrowRecord.RecordStatus.values());
 
-        // Get all members for search dropdown
-        List<Member> members = memberService.findAll(PageRequest.of(0, 1000)).getContent();
-        model.addAttribute("members", members);
+        // Only the filtered member is needed to label the member lookup
+        model.addAttribute("searchMember", memberId != null ? memberService.findById(memberId).orElse(null) : null);
 
         return "borrow-records";
     }
@@ -88,7 +80,7 @@ public class BorrowRecordController {
 
         BorrowRecord record = recordOpt.get();
         List<BorrowRecordDetail> details = borrowRecordService.getBorrowRecordDetails(id);
-        BigDecimal totalFine = borrowRecordService.calculateTotalFine(id);
+        BigDecimal totalFine = borrowRecordService.calculateTotalFine(details);
 
         model.addAttribute("record", record);
         model.addAttribute("details", details);
@@ -99,23 +91,10 @@ public class BorrowRecordController {
     }
 
     /**
-     * Show create borrow record form (simplified - no pagination)
+     * Show create borrow record form (members and available copies are looked up as the librarian types)
      */
     @GetMapping("/new")
-    public String showCreateForm(Model model) {
-
-        // Get all active members (activeBorrowCount already in database)
-        Page<Member> memberPage = memberService.searchMembers(null, null, null, null, "ACTIVE",
-                PageRequest.of(0, 1000));
-
-        // Get all available book copies (load all for grid display with client-side
-        // search)
-        Page<BookCopy> bookCopyPage = bookCopyService.searchBookCopies(null, null, "AVAILABLE", null,
-                PageRequest.of(0, 1000));
-
-        model.addAttribute("members", memberPage.getContent());
-        model.addAttribute("bookCopies", bookCopyPage.getContent());
-
+    public String showCreateForm() {
         return "borrow-record-form";
     }
 
@@ -154,6 +133,31 @@ public class BorrowRecordController {
         return "redirect:/borrow-records/" + id;
     }
 
+    /**
+     * Bulk return from the return station (scanned copy numbers, separated by spaces, commas or new lines)
+     */
+    @PostMapping("/bulk-return")
+    public String bulkReturn(@RequestParam String copyNumbers, RedirectAttributes redirectAttributes) {
+        List<String> items = Arrays.stream(copyNumbers.split("[\\s,;]+"))
+                .filter(item -> !item.isEmpty())
+                .toList();
+        if (items.isEmpty()) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Vui lòng nhập ít nhất một mã bản sao!");
+            return "redirect:/borrow-records";
+        }
+
+        try {
+            List<ReturnResult> results = borrowRecordService.returnBooksByCopyNumbers(items);
+            long returned = results.stream().filter(ReturnResult::success).count();
+            redirectAttributes.addFlashAttribute("returnResults", results);
+            redirectAttributes.addFlashAttribute("successMessage",
+                    "Đã trả " + returned + "/" + results.size() + " sách!");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Lỗi: " + e.getMessage());
+        }
+        return "redirect:/borrow-records";
+    }
+
     /**
      * Return single book
      */
@@ -216,4 +220,18 @@ public class BorrowRecordController {
             return "redirect:/borrow-records/" + id;
         }
     }
+
+    /**
+     * Waive fine - cancel all outstanding fines (admin only, see SecurityConfig)
+     */
+    @PostMapping("/{id}/waive-fine")
+    public String waiveFine(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        try {
+            borrowRecordService.waiveFine(id);
+            redirectAttributes.addFlashAttribute("successMessage", "Đã miễn tiền phạt!");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Lỗi: " + e.getMessage());
+        }
+        return "redirect:/borrow-records/" + id;
+    }
 }
@@ -1,10 +1,7 @@
 package com.hust.project1.controller;
 
-import com.hust.project1.entity.BorrowRecord;
-import com.hust.project1.repository.BookRepository;
-import com.hust.project1.repository.BorrowRecordRepository;
-import com.hust.project1.repository.MemberRepository;
-import com.hust.project1.repository.UserRepository;
+import com.hust.project1.service.DashboardCounters;
+import com.hust.project1.service.DashboardCounters.Counter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,16 +13,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 public class DashboardController {
 
     @Autowired
-    private BookRepository bookRepository;
-
-    @Autowired
-    private MemberRepository memberRepository;
-
-    @Autowired
-    private BorrowRecordRepository borrowRecordRepository;
-
-    @Autowired
-    private UserRepository userRepository;
+    private DashboardCounters dashboardCounters;
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
@@ -37,12 +25,11 @@ public class DashboardController {
         model.addAttribute("role", role);
         model.addAttribute("isAdmin", role.equals("ROLE_ADMIN"));
 
-        // Add statistics
-        long totalBooks = bookRepository.count();
-        long totalMembers = memberRepository.count();
-        long activeBorrows = borrowRecordRepository.countByStatus(BorrowRecord.RecordStatus.ACTIVE)
-                + borrowRecordRepository.countByStatus(BorrowRecord.RecordStatus.OVERDUE);
-        long totalUsers = userRepository.count();
+        // Add statistics (in-memory counters, no database queries)
+        long totalBooks = dashboardCounters.get(Counter.BOOKS);
+        long totalMembers = dashboardCounters.get(Counter.MEMBERS);
+        long activeBorrows = dashboardCounters.get(Counter.ACTIVE_LOANS) + dashboardCounters.get(Counter.OVERDUE_LOANS);
+        long totalUsers = dashboardCounters.get(Counter.USERS);
 
         model.addAttribute("totalBooks", totalBooks);
         model.addAttribute("totalMembers", totalMembers);
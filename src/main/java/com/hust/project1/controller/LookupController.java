@@ -0,0 +1,60 @@
+package com.hust.project1.controller;
+
+import com.hust.project1.dto.CopySuggestion;
+import com.hust.project1.dto.MemberSuggestion;
+import com.hust.project1.entity.Member;
+import com.hust.project1.service.BookCopyService;
+import com.hust.project1.service.MemberService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * JSON typeahead endpoints used by the borrow forms instead of preloading members and copies
+ */
+@RestController
+@RequestMapping("/api/lookup")
+public class LookupController {
+
+    // Upper bound on suggestions per request
+    private static final int MAX_LIMIT = 50;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private BookCopyService bookCopyService;
+
+    /**
+     * Members whose name, code, email or phone contains q (optionally only those in a status)
+     */
+    @GetMapping("/members")
+    public List<MemberSuggestion> members(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) Member.MemberStatus status,
+            @RequestParam(defaultValue = "10") int limit) {
+        return memberService.suggestMembers(q, status, clamp(limit)).stream()
+                .map(MemberSuggestion::of)
+                .toList();
+    }
+
+    /**
+     * Available copies by copy number prefix, or by the title, author or ISBN of their book
+     */
+    @GetMapping("/available-copies")
+    public List<CopySuggestion> availableCopies(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return bookCopyService.suggestAvailableCopies(q, clamp(limit)).stream()
+                .map(CopySuggestion::of)
+                .toList();
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -1,12 +1,10 @@
 package com.hust.project1.controller;
 
+import com.hust.project1.dto.CursorPage;
+import com.hust.project1.dto.PageCursor;
 import com.hust.project1.entity.Member;
 import com.hust.project1.service.MemberService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -28,7 +26,7 @@ public class MemberController {
      */
     @GetMapping
     public String listMembers(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String fullName,
             @RequestParam(required = false) String memberCode,
@@ -37,13 +35,13 @@ public class MemberController {
             @RequestParam(required = false) String status,
             Model model) {
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
-        Page<Member> memberPage = memberService.searchMembers(fullName, memberCode, email, phone, status, pageable);
+        CursorPage<Member> memberPage = memberService.searchMembers(fullName, memberCode, email, phone, status,
+                PageCursor.decode(cursor), size);
 
-        model.addAttribute("members", memberPage.getContent());
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", memberPage.getTotalPages());
-        model.addAttribute("totalItems", memberPage.getTotalElements());
+        model.addAttribute("members", memberPage.content());
+        model.addAttribute("nextCursor", memberPage.nextCursor());
+        model.addAttribute("prevCursor", memberPage.prevCursor());
+        model.addAttribute("totalItems", memberPage.total());
         model.addAttribute("pageSize", size);
 
         // Keep search parameters
@@ -1,12 +1,18 @@
 package com.hust.project1.controller;
 
-import com.hust.project1.service.ReportService;
+import com.hust.project1.dto.ReportSection;
+import com.hust.project1.service.BorrowRankingService;
+import com.hust.project1.service.CirculationRollupService;
+import com.hust.project1.service.ReportSnapshotService;
+import com.hust.project1.service.ReportSnapshotService.Section;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.Map;
 
@@ -16,22 +22,67 @@ import java.util.Map;
 public class ReportController {
 
     @Autowired
-    private ReportService reportService;
+    private ReportSnapshotService reportSnapshotService;
+
+    @Autowired
+    private BorrowRankingService borrowRankingService;
+
+    @Autowired
+    private CirculationRollupService circulationRollupService;
 
     /**
-     * Main reports page with all statistics
+     * Main reports page, served from the background snapshot (never waits for the aggregates)
      */
     @GetMapping
     public String reportsPage(Model model) {
-        // Get all statistics
-        Map<String, Object> allStats = reportService.getAllStatistics();
+        Map<Section, ReportSection> snapshot = reportSnapshotService.getSnapshot();
 
-        // Add to model
-        model.addAttribute("overview", allStats.get("overview"));
-        model.addAttribute("bookStats", allStats.get("books"));
-        model.addAttribute("memberStats", allStats.get("members"));
-        model.addAttribute("financialStats", allStats.get("financial"));
+        // A section still being computed for the first time is left out (null)
+        addSection(model, "overview", snapshot.get(Section.OVERVIEW));
+        addSection(model, "bookStats", snapshot.get(Section.BOOKS));
+        addSection(model, "memberStats", snapshot.get(Section.MEMBERS));
+        addSection(model, "financialStats", snapshot.get(Section.FINANCIAL));
 
         return "reports";
     }
+
+    /**
+     * Recompute the top borrowed books/members from the borrow history (exact counts)
+     */
+    @PostMapping("/rankings/recompute")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String recomputeRankings(RedirectAttributes redirectAttributes) {
+        try {
+            if (borrowRankingService.recompute()) {
+                reportSnapshotService.invalidate(Section.BOOKS, Section.MEMBERS);
+                redirectAttributes.addFlashAttribute("successMessage",
+                        "Đã tính lại bảng xếp hạng, số liệu sẽ được cập nhật trong giây lát.");
+            } else {
+                redirectAttributes.addFlashAttribute("errorMessage", "Bảng xếp hạng đang được tính lại!");
+            }
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Lỗi: " + e.getMessage());
+        }
+        return "redirect:/reports";
+    }
+
+    /**
+     * Rebuild the daily circulation rollup from the whole borrow history, in the background
+     */
+    @PostMapping("/rollup/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String backfillRollup(RedirectAttributes redirectAttributes) {
+        if (circulationRollupService.startBackfill(null, null)) {
+            redirectAttributes.addFlashAttribute("successMessage",
+                    "Đang tính lại thống kê lưu thông theo ngày từ toàn bộ lịch sử.");
+        } else {
+            redirectAttributes.addFlashAttribute("errorMessage", "Thống kê lưu thông đang được tính lại!");
+        }
+        return "redirect:/reports";
+    }
+
+    private static void addSection(Model model, String name, ReportSection section) {
+        model.addAttribute(name, section != null ? section.stats() : null);
+        model.addAttribute(name + "ComputedAt", section != null ? section.computedAt() : null);
+    }
 }
@@ -0,0 +1,54 @@
+package com.hust.project1.controller;
+
+import com.hust.project1.dto.CirculationTrendPoint;
+import com.hust.project1.entity.CirculationDaily.Dimension;
+import com.hust.project1.service.CirculationRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * JSON circulation time series for charts, read from the daily rollup
+ */
+@RestController
+@RequestMapping("/api/trends")
+@PreAuthorize("hasAnyRole('ADMIN', 'LIBRARIAN')")
+public class TrendController {
+
+    // Default range when none is given, and the longest range served per day
+    private static final int DEFAULT_DAYS = 30;
+    private static final int MAX_DAILY_DAYS = 366;
+
+    @Autowired
+    private CirculationRollupService circulationRollupService;
+
+    /**
+     * Checkouts, returns, overdue items and fines per day (or per month) for each book category
+     * or member status, between two dates (default: the last 30 days)
+     */
+    @GetMapping("/circulation")
+    public List<CirculationTrendPoint> circulation(
+            @RequestParam(defaultValue = "CATEGORY") Dimension dimension,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean monthly) {
+        LocalDate last = to != null ? to : LocalDate.now();
+        LocalDate first = from != null ? from : last.minusDays(DEFAULT_DAYS - 1L);
+        if (first.isAfter(last)) {
+            LocalDate swap = first;
+            first = last;
+            last = swap;
+        }
+        if (!monthly && first.isBefore(last.minusDays(MAX_DAILY_DAYS - 1L))) {
+            first = last.minusDays(MAX_DAILY_DAYS - 1L);
+        }
+        return circulationRollupService.getTrend(dimension, first, last, monthly);
+    }
+}
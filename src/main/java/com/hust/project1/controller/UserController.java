@@ -1,12 +1,10 @@
 package com.hust.project1.controller;
 
+import com.hust.project1.dto.CursorPage;
+import com.hust.project1.dto.PageCursor;
 import com.hust.project1.entity.User;
 import com.hust.project1.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -28,17 +26,17 @@ public class UserController {
     @GetMapping
     public String listUsers(
             @RequestParam(required = false) String keyword,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size,
             Authentication authentication,
             Model model) {
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<User> users = userService.searchUsers(keyword, pageable);
+        CursorPage<User> users = userService.searchUsers(keyword, PageCursor.decode(cursor), size);
 
-        model.addAttribute("users", users);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", users.getTotalPages());
+        model.addAttribute("users", users.content());
+        model.addAttribute("nextCursor", users.nextCursor());
+        model.addAttribute("prevCursor", users.prevCursor());
+        model.addAttribute("totalItems", users.total());
         model.addAttribute("searchKeyword", keyword != null ? keyword : "");
         model.addAttribute("currentUsername", authentication.getName());
         model.addAttribute("roles", User.UserRole.values());
@@ -0,0 +1,23 @@
+package com.hust.project1.dto;
+
+import java.util.List;
+
+/**
+ * Facet counts shown next to a catalog result page. Each facet counts the books matching the
+ * search and every other selected facet, so the alternatives to a selected value stay visible.
+ */
+public record CatalogFacets(List<Value> categories, List<Value> publishers, List<Value> publishYears,
+        List<Value> availability) {
+
+    public static final CatalogFacets EMPTY = new CatalogFacets(List.of(), List.of(), List.of(), List.of());
+
+    /**
+     * One facet value: what is sent back as the filter, what is shown, and how many books have it
+     */
+    public record Value(String value, String label, long count) {
+    }
+
+    public boolean isEmpty() {
+        return categories.isEmpty() && publishers.isEmpty() && publishYears.isEmpty() && availability.isEmpty();
+    }
+}
@@ -0,0 +1,14 @@
+package com.hust.project1.dto;
+
+import com.hust.project1.entity.Book;
+
+/**
+ * One page of the book catalog with the facet counts of the whole result, and the corrected
+ * search text when nothing matched as typed (null otherwise)
+ */
+public record CatalogPage(CursorPage<Book> page, CatalogFacets facets, String correctedQuery) {
+
+    public CatalogPage(CursorPage<Book> page, CatalogFacets facets) {
+        this(page, facets, null);
+    }
+}
@@ -0,0 +1,10 @@
+package com.hust.project1.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Circulation totals of one period (day or month) for one category or member status, for trend charts
+ */
+public record CirculationTrendPoint(LocalDate period, String key, String label, long checkouts, long returns,
+        long overdue, long finesAssessed, long finesPaid) {
+}
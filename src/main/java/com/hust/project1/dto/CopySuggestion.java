@@ -0,0 +1,14 @@
+package com.hust.project1.dto;
+
+import com.hust.project1.entity.BookCopy;
+
+/**
+ * Available book copy returned by the typeahead lookup
+ */
+public record CopySuggestion(Long id, String copyNumber, String location, String title, String isbn) {
+
+    public static CopySuggestion of(BookCopy copy) {
+        return new CopySuggestion(copy.getId(), copy.getCopyNumber(), copy.getLocation(),
+                copy.getBook().getTitle(), copy.getBook().getIsbn());
+    }
+}
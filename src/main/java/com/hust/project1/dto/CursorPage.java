@@ -0,0 +1,49 @@
+package com.hust.project1.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a cursor-paginated list, with the tokens of the neighbouring pages
+ * (null when there is none) and the total number of rows (possibly cached)
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, String prevCursor, long total) {
+
+    /**
+     * Build a page from a keyset query that fetched up to size + 1 rows in the cursor's direction
+     * (descending for the first page and AFTER cursors, ascending for BEFORE cursors)
+     */
+    public static <T> CursorPage<T> fromSeek(List<T> rows, int size, PageCursor cursor,
+            Function<T, String> sortKey, Function<T, Long> id, long total) {
+        boolean more = rows.size() > size;
+        List<T> content = new ArrayList<>(more ? rows.subList(0, size) : rows);
+        boolean backward = cursor != null && cursor.isBackward();
+        if (backward) {
+            Collections.reverse(content);
+        }
+        if (content.isEmpty()) {
+            return new CursorPage<>(content, null, null, total);
+        }
+
+        T first = content.get(0);
+        T last = content.get(content.size() - 1);
+        boolean hasNext = backward || more;
+        boolean hasPrev = backward ? more : cursor != null;
+        return new CursorPage<>(content,
+                hasNext ? PageCursor.after(sortKey.apply(last), id.apply(last)).encode() : null,
+                hasPrev ? PageCursor.before(sortKey.apply(first), id.apply(first)).encode() : null,
+                total);
+    }
+
+    /**
+     * Build a page of in-memory results addressed by offset
+     */
+    public static <T> CursorPage<T> fromOffset(List<T> content, long offset, int size, long total) {
+        return new CursorPage<>(content,
+                offset + size < total ? PageCursor.offset(offset + size).encode() : null,
+                offset > 0 ? PageCursor.offset(Math.max(0, offset - size)).encode() : null,
+                total);
+    }
+}
@@ -0,0 +1,7 @@
+package com.hust.project1.dto;
+
+/**
+ * Facet value rendered as a link that selects it (or clears it when already selected)
+ */
+public record FacetLink(String label, long count, String href, boolean selected) {
+}
@@ -0,0 +1,14 @@
+package com.hust.project1.dto;
+
+import com.hust.project1.entity.Member;
+
+/**
+ * Member row returned by the typeahead lookup
+ */
+public record MemberSuggestion(Long id, String fullName, String memberCode, String email, int activeBorrowCount) {
+
+    public static MemberSuggestion of(Member member) {
+        return new MemberSuggestion(member.getId(), member.getFullName(), member.getMemberCode(),
+                member.getEmail(), member.getActiveBorrowCount());
+    }
+}
@@ -0,0 +1,68 @@
+package com.hust.project1.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a list, handed to the browser as an opaque token.
+ * Keyset cursors hold the sort key and ID of the row to continue after (or before, when going back);
+ * in-memory ranked results (search indexes) use a plain offset instead.
+ */
+public record PageCursor(Kind kind, String key, long id) {
+
+    public enum Kind {
+        AFTER,
+        BEFORE,
+        OFFSET
+    }
+
+    public static PageCursor after(String key, long id) {
+        return new PageCursor(Kind.AFTER, key, id);
+    }
+
+    public static PageCursor before(String key, long id) {
+        return new PageCursor(Kind.BEFORE, key, id);
+    }
+
+    public static PageCursor offset(long offset) {
+        return new PageCursor(Kind.OFFSET, "", offset);
+    }
+
+    public boolean isBackward() {
+        return kind == Kind.BEFORE;
+    }
+
+    /**
+     * Offset of an OFFSET cursor (0 for any other cursor)
+     */
+    public static long offsetOf(PageCursor cursor) {
+        return cursor != null && cursor.kind == Kind.OFFSET ? cursor.id : 0L;
+    }
+
+    public String encode() {
+        String raw = kind.name().charAt(0) + "|" + id + "|" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token from a request (null when absent or malformed: start from the first page)
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            Kind kind = switch (parts[0]) {
+                case "A" -> Kind.AFTER;
+                case "B" -> Kind.BEFORE;
+                case "O" -> Kind.OFFSET;
+                default -> throw new IllegalArgumentException(parts[0]);
+            };
+            return new PageCursor(kind, parts[2], Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.hust.project1.dto;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One section of the reports page as last computed (read-only) and when it was computed
+ */
+public record ReportSection(Map<String, Object> stats, LocalDateTime computedAt) {
+
+    public ReportSection {
+        stats = Collections.unmodifiableMap(new HashMap<>(stats));
+    }
+}
@@ -0,0 +1,17 @@
+package com.hust.project1.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Outcome of returning one item in a bulk return (identified by detail ID or copy number)
+ */
+public record ReturnResult(String item, boolean success, Long borrowRecordId, BigDecimal fine, String message) {
+
+    public static ReturnResult returned(String item, Long borrowRecordId, BigDecimal fine) {
+        return new ReturnResult(item, true, borrowRecordId, fine, "Đã trả sách");
+    }
+
+    public static ReturnResult failed(String item, String message) {
+        return new ReturnResult(item, false, null, BigDecimal.ZERO, message);
+    }
+}
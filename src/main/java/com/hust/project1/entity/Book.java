@@ -9,7 +9,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_category", columnList = "category"),
+        @Index(name = "idx_books_category_id", columnList = "category_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -37,6 +40,10 @@ public class Book {
     @Column(length = 100)
     private String category;
 
+    // Taxonomy entry of the category (set from the category name on save)
+    @Column(name = "category_id")
+    private Long categoryId;
+
     @Column(columnDefinition = "TEXT")
     private String description;
 
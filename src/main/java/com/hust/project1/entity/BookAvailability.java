@@ -0,0 +1,62 @@
+package com.hust.project1.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Materialized copy counts of a book (one row per book).
+ * Refreshed in the same transaction as every copy status change, so list pages read the
+ * availability of a whole page with one primary key lookup instead of counting copies per book.
+ */
+@Entity
+@Table(name = "book_availability")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookAvailability {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "total_copies", nullable = false)
+    private int totalCopies;
+
+    @Column(nullable = false)
+    private int available;
+
+    @Column(nullable = false)
+    private int borrowed;
+
+    @Column(nullable = false)
+    private int damaged;
+
+    @Column(nullable = false)
+    private int lost;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Counts of a book that has no copies (yet)
+     */
+    public static BookAvailability empty(Long bookId) {
+        return new BookAvailability(bookId, 0, 0, 0, 0, 0, LocalDateTime.now());
+    }
+
+    /**
+     * Number of copies in a status
+     */
+    public int count(BookCopy.CopyStatus status) {
+        return switch (status) {
+            case AVAILABLE -> available;
+            case BORROWED -> borrowed;
+            case DAMAGED -> damaged;
+            case LOST -> lost;
+        };
+    }
+}
@@ -9,7 +9,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "book_copies")
+// Secondary indexes end with the primary key in InnoDB, so each also serves "ORDER BY id" within its prefix
+@Table(name = "book_copies", indexes = {
+        @Index(name = "idx_book_copies_status", columnList = "status"),
+        @Index(name = "idx_book_copies_book_status", columnList = "book_id, status"),
+        @Index(name = "idx_book_copies_copy_number", columnList = "copy_number")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,6 +34,11 @@ public class BookCopy {
     @Column(length = 100)
     private String location;
 
+    // Optimistic lock - a stale edit form can no longer overwrite a status set by checkout/return
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version = 0L;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
@@ -0,0 +1,42 @@
+package com.hust.project1.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One counter of a checkpointed top-borrowed sketch (see BorrowRankingService).
+ * A row belongs to the all-time sketch when bucketDay is null, otherwise to that day's sketch.
+ */
+@Entity
+@Table(name = "borrow_ranking_entries", indexes = {
+        @Index(name = "idx_borrow_ranking_entries_bucket", columnList = "bucket_day")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BorrowRankingEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // BOOK or MEMBER
+    @Column(nullable = false, length = 10)
+    private String sketch;
+
+    @Column(name = "bucket_day")
+    private LocalDate bucketDay;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "borrow_count", nullable = false)
+    private long borrowCount;
+
+    @Column(name = "count_error", nullable = false)
+    private long countError;
+}
@@ -10,7 +10,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "borrow_records")
+// The list pages seek on (borrow_date, id); InnoDB appends the primary key to each index
+@Table(name = "borrow_records", indexes = {
+        @Index(name = "idx_borrow_records_borrow_date", columnList = "borrow_date"),
+        @Index(name = "idx_borrow_records_status_borrow_date", columnList = "status, borrow_date"),
+        @Index(name = "idx_borrow_records_member_borrow_date", columnList = "member_id, borrow_date"),
+        @Index(name = "idx_borrow_records_status_due_date", columnList = "status, due_date"),
+        @Index(name = "idx_borrow_records_member_status", columnList = "member_id, status")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -9,7 +9,12 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "borrow_record_details")
+// Open (not yet returned) lines of a record or a copy are found on (fk, actual_return_date)
+@Table(name = "borrow_record_details", indexes = {
+        @Index(name = "idx_borrow_record_details_record_return", columnList = "borrow_record_id, actual_return_date"),
+        @Index(name = "idx_borrow_record_details_copy_return", columnList = "book_copy_id, actual_return_date"),
+        @Index(name = "idx_borrow_record_details_fine", columnList = "fine")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,6 +30,10 @@ public class BorrowRecordDetail {
     @Column(precision = 10, scale = 2)
     private BigDecimal fine;
 
+    // Late fine accrued so far - kept apart from fine so the overdue sweep never charges twice
+    @Column(name = "late_fine", precision = 10, scale = 2)
+    private BigDecimal lateFine;
+
     @Column(columnDefinition = "TEXT")
     private String notes;
 
@@ -41,5 +50,8 @@ public class BorrowRecordDetail {
         if (fine == null) {
             fine = BigDecimal.ZERO;
         }
+        if (lateFine == null) {
+            lateFine = BigDecimal.ZERO;
+        }
     }
 }
@@ -0,0 +1,28 @@
+package com.hust.project1.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Book category (normalized taxonomy). Names are matched by their folded key,
+ * so "Văn học", "văn  học" and "Van hoc" are the same category.
+ */
+@Entity
+@Table(name = "categories")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Category {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "name_key", nullable = false, unique = true, length = 100)
+    private String nameKey;
+}
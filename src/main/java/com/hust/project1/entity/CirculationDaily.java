@@ -0,0 +1,61 @@
+package com.hust.project1.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Circulation totals of one day for one book category or one member status.
+ * Counts are in items (copies); fines in đồng. Maintained by CirculationRollupService.
+ */
+@Entity
+@Table(name = "circulation_daily", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_circulation_daily_key", columnNames = { "stat_date", "dimension", "dimension_key" })
+}, indexes = {
+        @Index(name = "idx_circulation_daily_dimension_date", columnList = "dimension, stat_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CirculationDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Dimension dimension;
+
+    // Category ID (0 = uncategorized) or member status
+    @Column(name = "dimension_key", nullable = false, length = 50)
+    private String dimensionKey;
+
+    @Column(name = "checkout_count", nullable = false)
+    private int checkoutCount;
+
+    // Items checked in: returned, or closed as lost/damaged
+    @Column(name = "return_count", nullable = false)
+    private int returnCount;
+
+    // Items on loan when their record turned OVERDUE (counted on the day after the due date)
+    @Column(name = "overdue_count", nullable = false)
+    private int overdueCount;
+
+    @Column(name = "fines_assessed", nullable = false)
+    private long finesAssessed;
+
+    @Column(name = "fines_paid", nullable = false)
+    private long finesPaid;
+
+    public enum Dimension {
+        CATEGORY,
+        MEMBER_STATUS
+    }
+}
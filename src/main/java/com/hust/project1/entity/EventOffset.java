@@ -0,0 +1,29 @@
+package com.hust.project1.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last outbox event delivered to an event handler (replay starts after it)
+ */
+@Entity
+@Table(name = "event_offsets")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventOffset {
+
+    @Id
+    @Column(name = "handler_name", length = 100)
+    private String handlerName;
+
+    @Column(name = "last_event_id", nullable = false)
+    private Long lastEventId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,43 @@
+package com.hust.project1.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Running fine totals per member, maintained on every ledger write.
+ * The row with member_id = 0 holds the library-wide totals.
+ */
+@Entity
+@Table(name = "fine_balances")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FineBalance {
+
+    // member_id of the row holding the totals of all members
+    public static final long GLOBAL = 0L;
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal assessed = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal paid = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal waived = BigDecimal.ZERO;
+
+    /**
+     * Fines assessed but neither paid nor waived
+     */
+    public BigDecimal getOutstanding() {
+        return assessed.subtract(paid).subtract(waived);
+    }
+}
@@ -0,0 +1,63 @@
+package com.hust.project1.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One append-only entry of the fine ledger (never updated or deleted).
+ * IDs are stored as plain columns so deleting a settled borrow record keeps its history.
+ */
+@Entity
+@Table(name = "fine_transactions", indexes = {
+        @Index(name = "idx_fine_transactions_member", columnList = "member_id"),
+        @Index(name = "idx_fine_transactions_record", columnList = "borrow_record_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FineTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "borrow_record_detail_id")
+    private Long borrowRecordDetailId;
+
+    @Column(name = "borrow_record_id")
+    private Long borrowRecordId;
+
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TransactionType type;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 255)
+    private String note;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    public enum TransactionType {
+        ASSESS,
+        PAY,
+        WAIVE
+    }
+}
@@ -10,7 +10,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "members")
+@Table(name = "members", indexes = {
+        @Index(name = "idx_members_status", columnList = "status")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,8 +47,10 @@ public class Member {
     @Column(nullable = false, length = 20)
     private MemberStatus status;
 
-    // Active borrow count - tracks number of currently borrowed books (max 3)
-    @Column(name = "active_borrow_count", nullable = false)
+    // Active borrow count - tracks number of currently borrowed books (max 3).
+    // Only changed through MemberRepository's atomic UPDATEs, never by saving the entity,
+    // so concurrent checkouts/returns and member edits cannot lose updates.
+    @Column(name = "active_borrow_count", nullable = false, updatable = false)
     private int activeBorrowCount = 0;
 
     @OneToMany(mappedBy = "member", cascade = CascadeType.ALL, orphanRemoval = true)
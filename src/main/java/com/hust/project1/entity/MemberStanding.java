@@ -0,0 +1,52 @@
+package com.hust.project1.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Materialized standing of a member (one row per member).
+ * Refreshed in the same transaction as every borrow, return, fine and payment change,
+ * so blacklist listing and checkout eligibility are single indexed reads.
+ */
+@Entity
+@Table(name = "member_standing", indexes = {
+        @Index(name = "idx_member_standing_blacklisted", columnList = "blacklisted")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberStanding {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "member_status", nullable = false, length = 20)
+    private Member.MemberStatus memberStatus;
+
+    @Column(name = "expiry_date", nullable = false)
+    private LocalDate expiryDate;
+
+    @Column(name = "active_loans", nullable = false)
+    private int activeLoans;
+
+    @Column(name = "overdue_count", nullable = false)
+    private int overdueCount;
+
+    @Column(name = "unpaid_fine", nullable = false, precision = 14, scale = 2)
+    private BigDecimal unpaidFine = BigDecimal.ZERO;
+
+    // Has overdue records or unpaid fines
+    @Column(nullable = false)
+    private boolean blacklisted;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
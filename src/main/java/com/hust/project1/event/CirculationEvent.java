@@ -0,0 +1,40 @@
+package com.hust.project1.event;
+
+import com.hust.project1.entity.BookCopy;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Domain events of the circulation desk.
+ * Published by BorrowRecordService inside the desk transaction (stored in the outbox)
+ * and delivered to the CirculationEventHandler projections after commit.
+ */
+public sealed interface CirculationEvent {
+
+    /**
+     * Member whose loans or fines changed
+     */
+    Long memberId();
+
+    record BorrowCreated(Long borrowRecordId, Long memberId, List<Long> bookCopyIds, LocalDate dueDate)
+            implements CirculationEvent {
+    }
+
+    record CopyReturned(Long borrowRecordId, Long detailId, Long memberId, Long bookCopyId,
+            LocalDate returnDate, long lateFine) implements CirculationEvent {
+    }
+
+    /**
+     * A borrowed copy was marked LOST or DAMAGED and its fine assessed
+     */
+    record CopyLost(Long borrowRecordId, Long detailId, Long memberId, Long bookCopyId,
+            BookCopy.CopyStatus status, long fine) implements CirculationEvent {
+    }
+
+    /**
+     * Outstanding fines of a record were settled (paid, or waived by an admin)
+     */
+    record FinePaid(Long borrowRecordId, Long memberId, long amount, boolean waived) implements CirculationEvent {
+    }
+}
@@ -0,0 +1,320 @@
+package com.hust.project1.event;
+
+import com.hust.project1.entity.CirculationEventLog;
+import com.hust.project1.repository.CirculationEventRepository;
+import com.hust.project1.repository.EventOffsetRepository;
+import com.hust.project1.service.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process, after-commit event bus for circulation events.
+ * publish() only inserts outbox rows into the caller's transaction; after commit the events are
+ * offered to one bounded queue per handler, each drained by its own virtual thread.
+ * A full queue never blocks the desk: the handler is marked as lagging and catches up from the
+ * outbox, starting after its stored offset - the same path used to replay after a restart.
+ * <p>
+ * Outbox IDs become visible in commit order, not in ID order, so a handler can see ID 12 while
+ * the transaction holding ID 11 is still open. The stored offset is therefore a low-water mark:
+ * every ID at or below it has been delivered. IDs delivered above it are tracked until the gaps
+ * below them close; a gap that stays open for the visibility window is re-read from the outbox
+ * once more and then treated as a rolled back transaction.
+ */
+@Service
+public class CirculationEventBus {
+
+    // Events buffered in memory per handler before it falls back to replaying from the outbox
+    private static final int QUEUE_CAPACITY = 1024;
+
+    // Events passed to a handler per call
+    private static final int HANDLER_BATCH_SIZE = 100;
+
+    // Outbox rows read per query while replaying
+    private static final int REPLAY_CHUNK_SIZE = 200;
+
+    @Autowired
+    private CirculationEventRepository circulationEventRepository;
+
+    @Autowired
+    private EventOffsetRepository eventOffsetRepository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired(required = false)
+    private List<CirculationEventHandler> handlers = List.of();
+
+    @Value("${library.events.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${library.events.visibility-window-seconds:300}")
+    private long visibilityWindowSeconds;
+
+    // Outbox event_type -> record class
+    private final Map<String, Class<? extends CirculationEvent>> eventTypes = new HashMap<>();
+
+    private final List<Worker> workers = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    @PostConstruct
+    void init() {
+        for (Class<?> type : CirculationEvent.class.getPermittedSubclasses()) {
+            eventTypes.put(type.getSimpleName(), type.asSubclass(CirculationEvent.class));
+        }
+        for (CirculationEventHandler handler : handlers) {
+            workers.add(new Worker(handler));
+        }
+    }
+
+    /**
+     * Publish one event (see publish(List))
+     */
+    public void publish(CirculationEvent event) {
+        publish(List.of(event));
+    }
+
+    /**
+     * Store the events in the outbox as part of the current transaction and
+     * deliver them to the handlers once it commits (nothing is delivered on rollback)
+     */
+    public void publish(List<? extends CirculationEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<StoredEvent> stored = new ArrayList<>(events.size());
+        for (CirculationEvent event : events) {
+            CirculationEventLog row = new CirculationEventLog();
+            row.setEventType(event.getClass().getSimpleName());
+            row.setPayload(jsonMapper.writeValueAsString(event));
+            stored.add(new StoredEvent(circulationEventRepository.save(row).getId(), event));
+        }
+        AfterCommit.run(() -> workers.forEach(worker -> worker.offer(stored)));
+    }
+
+    /**
+     * Start one virtual thread per handler; each first replays what it missed while the app was down
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Long head = circulationEventRepository.findMaxId();
+        for (Worker worker : workers) {
+            String name = worker.handler.handlerName();
+            // A new handler builds its initial state itself, so it starts at the current head
+            worker.offset = eventOffsetRepository.findById(name)
+                    .map(offset -> offset.getLastEventId())
+                    .orElseGet(() -> {
+                        eventOffsetRepository.saveOffset(name, head);
+                        return head;
+                    });
+            worker.thread = Thread.ofVirtual().name("event-handler-" + name).start(worker::run);
+        }
+        if (!workers.isEmpty()) {
+            System.out.println("📨 Circulation event bus started with " + workers.size() + " handlers");
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Worker worker : workers) {
+            if (worker.thread != null) {
+                worker.thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Delete outbox rows that every handler has consumed and that are past the retention window
+     */
+    @Scheduled(cron = "${library.events.prune-cron:0 0 4 * * *}")
+    public void pruneConsumedEvents() {
+        long consumed = workers.stream().mapToLong(worker -> worker.offset).min()
+                .orElseGet(circulationEventRepository::findMaxId);
+        int deleted = circulationEventRepository.deleteConsumed(consumed,
+                LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            System.out.println("🧹 Pruned " + deleted + " consumed circulation events");
+        }
+    }
+
+    /**
+     * Number of events waiting in memory for each handler
+     */
+    public Map<String, Integer> getBacklog() {
+        Map<String, Integer> backlog = new LinkedHashMap<>();
+        for (Worker worker : workers) {
+            backlog.put(worker.handler.handlerName(), worker.queue.size());
+        }
+        return backlog;
+    }
+
+    private CirculationEvent read(CirculationEventLog row) {
+        Class<? extends CirculationEvent> type = eventTypes.get(row.getEventType());
+        return type != null ? jsonMapper.readValue(row.getPayload(), type) : null;
+    }
+
+    private record StoredEvent(long id, CirculationEvent event) {
+    }
+
+    /**
+     * Delivery state of one handler. The queue is filled by committing desk threads;
+     * everything else is only touched by the handler's own thread.
+     */
+    private final class Worker {
+
+        private final CirculationEventHandler handler;
+
+        private final BlockingQueue<StoredEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        // Set when events were dropped from memory (or at startup): replay from the outbox
+        private volatile boolean lagging = true;
+
+        // Low-water mark: every event ID at or below it has been delivered (or was never committed)
+        private volatile long offset;
+
+        // Event IDs delivered above the offset -> System.nanoTime() of their delivery
+        private final NavigableMap<Long, Long> deliveredAbove = new TreeMap<>();
+
+        private Thread thread;
+
+        private Worker(CirculationEventHandler handler) {
+            this.handler = handler;
+        }
+
+        private void offer(List<StoredEvent> events) {
+            for (StoredEvent event : events) {
+                if (!queue.offer(event)) {
+                    lagging = true;
+                    return;
+                }
+            }
+        }
+
+        private void run() {
+            while (running) {
+                try {
+                    if (lagging || gapExpired()) {
+                        catchUp();
+                        continue;
+                    }
+                    StoredEvent first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    List<StoredEvent> batch = new ArrayList<>(HANDLER_BATCH_SIZE);
+                    batch.add(first);
+                    queue.drainTo(batch, HANDLER_BATCH_SIZE - 1);
+                    deliver(batch);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    // e.g. the database is unreachable: back off, then replay from the outbox
+                    System.out.println("❌ Event handler " + handler.handlerName() + " failed: " + e.getMessage());
+                    lagging = true;
+                    try {
+                        Thread.sleep(5000);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Replay every stored event after the offset that has not been delivered yet, including
+         * late commits inside open gaps. Events already queued are dropped first: they are
+         * committed, so the replay reads them from the outbox anyway.
+         */
+        private void catchUp() {
+            lagging = false;
+            queue.clear();
+            long cursor = offset;
+            List<CirculationEventLog> rows;
+            while (running && !(rows = circulationEventRepository.findByIdGreaterThanOrderByIdAsc(
+                    cursor, PageRequest.of(0, REPLAY_CHUNK_SIZE))).isEmpty()) {
+                List<StoredEvent> batch = new ArrayList<>(rows.size());
+                for (CirculationEventLog row : rows) {
+                    batch.add(new StoredEvent(row.getId(), read(row)));
+                }
+                deliver(batch);
+                cursor = rows.get(rows.size() - 1).getId();
+            }
+            // Gaps the outbox still does not fill after the window belong to rolled back transactions
+            advanceOffset(true);
+        }
+
+        /**
+         * Hand the batch to the handler, skipping IDs it already received above the offset
+         */
+        private void deliver(List<StoredEvent> batch) {
+            List<CirculationEvent> events = new ArrayList<>(batch.size());
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (StoredEvent stored : batch) {
+                if (deliveredAbove.containsKey(stored.id())) {
+                    continue;
+                }
+                if (stored.event() != null) {
+                    events.add(stored.event());
+                }
+                ids.add(stored.id());
+            }
+            if (!events.isEmpty()) {
+                handler.handle(events);
+            }
+            long now = System.nanoTime();
+            for (Long id : ids) {
+                // A late commit below the offset (its gap was already given up on) is delivered but not tracked
+                if (id > offset) {
+                    deliveredAbove.put(id, now);
+                }
+            }
+            advanceOffset(false);
+        }
+
+        /**
+         * Move the low-water mark over the contiguous run of delivered IDs above it. With
+         * skipExpiredGaps it also steps over gaps whose next delivered ID is older than the window.
+         */
+        private void advanceOffset(boolean skipExpiredGaps) {
+            long advanced = offset;
+            long windowStart = System.nanoTime() - TimeUnit.SECONDS.toNanos(visibilityWindowSeconds);
+            Map.Entry<Long, Long> lowest;
+            while ((lowest = deliveredAbove.firstEntry()) != null) {
+                boolean contiguous = lowest.getKey() == advanced + 1;
+                if (!contiguous && !(skipExpiredGaps && lowest.getValue() - windowStart < 0)) {
+                    break;
+                }
+                advanced = lowest.getKey();
+                deliveredAbove.pollFirstEntry();
+            }
+            if (advanced != offset) {
+                eventOffsetRepository.saveOffset(handler.handlerName(), advanced);
+                offset = advanced;
+            }
+        }
+
+        /**
+         * Whether the oldest open gap has outlived the visibility window and needs a final re-read
+         */
+        private boolean gapExpired() {
+            Map.Entry<Long, Long> lowest = deliveredAbove.firstEntry();
+            return lowest != null
+                    && lowest.getValue() - (System.nanoTime() - TimeUnit.SECONDS.toNanos(visibilityWindowSeconds)) < 0;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.hust.project1.event;
+
+import java.util.List;
+
+/**
+ * A projection fed by the CirculationEventBus.
+ * Each handler runs on its own virtual thread and receives events in batches, in publish order.
+ * Delivery is at-least-once (events are replayed from the outbox after a restart or an overflow),
+ * so handle() must be idempotent.
+ */
+public interface CirculationEventHandler {
+
+    /**
+     * Stable name, used as the key of the handler's replay offset
+     */
+    String handlerName();
+
+    void handle(List<CirculationEvent> events);
+}
@@ -0,0 +1,64 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.BookAvailability;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookAvailabilityRepository extends JpaRepository<BookAvailability, Long> {
+
+    // Counts computed from book_copies (read from the (book_id, status) index); shared by refresh and the consistency check
+    String COMPUTED_AVAILABILITY = "SELECT b.id AS book_id, COUNT(bc.id) AS total_copies, " +
+            "COALESCE(SUM(bc.status = 'AVAILABLE'), 0) AS available, " +
+            "COALESCE(SUM(bc.status = 'BORROWED'), 0) AS borrowed, " +
+            "COALESCE(SUM(bc.status = 'DAMAGED'), 0) AS damaged, " +
+            "COALESCE(SUM(bc.status = 'LOST'), 0) AS lost " +
+            "FROM books b LEFT JOIN book_copies bc ON bc.book_id = b.id " +
+            "WHERE b.id IN (:bookIds) GROUP BY b.id";
+
+    /**
+     * Recompute (upsert) the counts of the given books
+     */
+    @Modifying
+    @Query(value = "INSERT INTO book_availability (book_id, total_copies, available, borrowed, damaged, lost, " +
+            "updated_at) SELECT c.*, NOW() FROM (" + COMPUTED_AVAILABILITY + ") c " +
+            "ON DUPLICATE KEY UPDATE total_copies = VALUES(total_copies), available = VALUES(available), " +
+            "borrowed = VALUES(borrowed), damaged = VALUES(damaged), lost = VALUES(lost), " +
+            "updated_at = VALUES(updated_at)", nativeQuery = true)
+    int refresh(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Books among the given ones with at least one copy available (read as IDs, so never from stale entities)
+     */
+    @Query("SELECT a.bookId FROM BookAvailability a WHERE a.bookId IN :bookIds AND a.available > 0")
+    List<Long> findAvailableBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Books among the given ones whose stored counts differ from book_copies (or are missing)
+     */
+    @Query(value = "SELECT c.book_id FROM (" + COMPUTED_AVAILABILITY + ") c " +
+            "LEFT JOIN book_availability a ON a.book_id = c.book_id " +
+            "WHERE a.book_id IS NULL OR a.total_copies <> c.total_copies OR a.available <> c.available " +
+            "OR a.borrowed <> c.borrowed OR a.damaged <> c.damaged OR a.lost <> c.lost", nativeQuery = true)
+    List<Long> findDrifted(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Books owning the given copies
+     */
+    @Query("SELECT DISTINCT bc.book.id FROM BookCopy bc WHERE bc.id IN :copyIds")
+    List<Long> findBookIdsByCopyIds(@Param("copyIds") Collection<Long> copyIds);
+
+    /**
+     * Remove rows of books that no longer exist
+     */
+    @Modifying
+    @Query(value = "DELETE a FROM book_availability a LEFT JOIN books b ON b.id = a.book_id " +
+            "WHERE b.id IS NULL", nativeQuery = true)
+    int deleteOrphans();
+}
@@ -3,9 +3,10 @@ package com.hust.project1.repository;
 import com.hust.project1.entity.BookCopy;
 import com.hust.project1.entity.Book;
 import com.hust.project1.entity.BookCopy.CopyStatus;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,7 +14,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface BookCopyRepository extends JpaRepository<BookCopy, Long> {
+public interface BookCopyRepository extends JpaRepository<BookCopy, Long>, JpaSpecificationExecutor<BookCopy> {
 
         /**
          * Find all copies of a specific book
@@ -46,27 +47,55 @@ public interface BookCopyRepository extends JpaRepository<BookCopy, Long> {
         Long countByBookIdAndStatus(Long bookId, CopyStatus status);
 
         /**
-         * Combined search for book copies
+         * Count book copies by status (for statistics)
+         */
+        long countByStatus(CopyStatus status);
+
+        /**
+         * Find book copies by multiple statuses, with their book (for damaged/lost reports,
+         * which are rendered outside the query's transaction)
+         */
+        @Query("SELECT c FROM BookCopy c JOIN FETCH c.book WHERE c.status IN :statuses")
+        List<BookCopy> findByStatusIn(@Param("statuses") List<CopyStatus> statuses);
+
+        /**
+         * Bulk status transition for a set of copies (compare-and-set).
+         * Only rows still in the expected status are touched; the returned count tells the caller
+         * how many copies it actually won. The version is bumped so open edit forms become stale.
+         */
+        @Modifying
+        @Query("UPDATE BookCopy bc SET bc.status = :newStatus, bc.version = bc.version + 1 " +
+                        "WHERE bc.id IN :ids AND bc.status = :oldStatus")
+        int updateStatusByIds(@Param("ids") List<Long> ids,
+                        @Param("oldStatus") CopyStatus oldStatus,
+                        @Param("newStatus") CopyStatus newStatus);
+
+        /**
+         * Copies in a status whose copy number starts with a prefix (typeahead, uses the copy number index)
          */
-        @Query("SELECT bc FROM BookCopy bc JOIN bc.book b WHERE " +
-                        "(:bookId IS NULL OR bc.book.id = :bookId) AND " +
-                        "(:copyNumber IS NULL OR :copyNumber = '' OR bc.copyNumber LIKE CONCAT('%', :copyNumber, '%')) AND "
-                        +
-                        "(:status IS NULL OR :status = '' OR STR(bc.status) = :status) AND " +
-                        "(:location IS NULL OR :location = '' OR LOWER(bc.location) LIKE LOWER(CONCAT('%', :location, '%')))")
-        Page<BookCopy> searchCombined(@Param("bookId") Long bookId,
-                        @Param("copyNumber") String copyNumber,
-                        @Param("status") String status,
-                        @Param("location") String location,
+        @Query("SELECT bc FROM BookCopy bc JOIN FETCH bc.book b " +
+                        "WHERE bc.status = :status AND bc.copyNumber LIKE CONCAT(:prefix, '%') ORDER BY bc.copyNumber")
+        List<BookCopy> findByStatusAndCopyNumberPrefix(@Param("status") CopyStatus status,
+                        @Param("prefix") String prefix,
                         Pageable pageable);
 
         /**
-         * Count book copies by status (for statistics)
+         * Copies of the given books in a status, with their book
          */
-        long countByStatus(CopyStatus status);
+        @Query("SELECT bc FROM BookCopy bc JOIN FETCH bc.book b " +
+                        "WHERE b.id IN :bookIds AND bc.status = :status ORDER BY bc.id")
+        List<BookCopy> findByBookIdsAndStatus(@Param("bookIds") List<Long> bookIds,
+                        @Param("status") CopyStatus status);
 
         /**
-         * Find book copies by multiple statuses (for damaged/lost reports)
+         * Copies in a status matching title, ISBN prefix or copy number prefix
+         * (typeahead while the book search index is not built yet)
          */
-        List<BookCopy> findByStatusIn(List<CopyStatus> statuses);
+        @Query("SELECT bc FROM BookCopy bc JOIN FETCH bc.book b WHERE bc.status = :status AND (" +
+                        "LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+                        "b.isbn LIKE CONCAT(:query, '%') OR bc.copyNumber LIKE CONCAT(:query, '%')) " +
+                        "ORDER BY bc.id DESC")
+        List<BookCopy> suggestByStatus(@Param("status") CopyStatus status,
+                        @Param("query") String query,
+                        Pageable pageable);
 }
@@ -4,15 +4,17 @@ import com.hust.project1.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
 
     /**
      * Find book by ISBN (exact match)
@@ -47,27 +49,39 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     boolean existsByIsbnAndIdNot(String isbn, Long id);
 
     /**
-     * Search books with multiple criteria
+     * Next chunk of books after the given ID (keyset order, for rebuilding the search index)
      */
-    @Query("SELECT b FROM Book b WHERE " +
-            "(:isbn IS NULL OR :isbn = '' OR b.isbn LIKE CONCAT('%', :isbn, '%')) AND " +
-            "(:title IS NULL OR :title = '' OR LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
-            "(:author IS NULL OR :author = '' OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND " +
-            "(:category IS NULL OR :category = '' OR LOWER(b.category) LIKE LOWER(CONCAT('%', :category, '%')))")
-    Page<Book> searchCombined(@Param("isbn") String isbn,
-            @Param("title") String title,
-            @Param("author") String author,
-            @Param("category") String category,
-            Pageable pageable);
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
 
     /**
-     * Find top borrowed books (for statistics)
+     * Find book IDs after a given ID (keyset chunking for bulk jobs)
      */
-    @Query("SELECT b, COUNT(brd) as borrowCount FROM Book b " +
-            "JOIN BookCopy bc ON bc.book = b " +
-            "JOIN BorrowRecordDetail brd ON brd.bookCopy = bc " +
-            "GROUP BY b ORDER BY borrowCount DESC")
-    List<Object[]> findTopBorrowedBooks(Pageable pageable);
+    @Query("SELECT b.id FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<Long> findIdsByIdGreaterThan(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * ID and ISBN of the books after a given ID (keyset chunking, for rebuilding the uniqueness filter)
+     */
+    @Query("SELECT b.id, b.isbn FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<Object[]> findIsbnsByIdGreaterThan(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Book ID and borrow count of the most borrowed books over the whole history
+     * (exact recompute of the top-borrowed sketch)
+     */
+    @Query("SELECT bc.book.id, COUNT(brd) as borrowCount FROM BorrowRecordDetail brd " +
+            "JOIN brd.bookCopy bc " +
+            "GROUP BY bc.book.id ORDER BY borrowCount DESC")
+    List<Object[]> findTopBorrowedBookIds(Pageable pageable);
+
+    /**
+     * Book ID, borrow date and borrow count per book and day since a date
+     * (exact recompute of the daily top-borrowed sketches)
+     */
+    @Query("SELECT bc.book.id, br.borrowDate, COUNT(brd) FROM BorrowRecordDetail brd " +
+            "JOIN brd.bookCopy bc JOIN brd.borrowRecord br " +
+            "WHERE br.borrowDate >= :since GROUP BY bc.book.id, br.borrowDate")
+    List<Object[]> countBorrowsPerBookAndDaySince(@Param("since") LocalDate since);
 
     /**
      * Find books that have never been borrowed
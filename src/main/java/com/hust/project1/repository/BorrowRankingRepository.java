@@ -0,0 +1,37 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.BorrowRankingEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+@Repository
+public interface BorrowRankingRepository extends JpaRepository<BorrowRankingEntry, Long>,
+        BorrowRankingRepositoryCustom {
+
+    /**
+     * Delete the checkpointed counters of the given daily sketches
+     */
+    @Modifying
+    @Query("DELETE FROM BorrowRankingEntry e WHERE e.bucketDay IN :days")
+    int deleteByBucketDayIn(@Param("days") Collection<LocalDate> days);
+
+    /**
+     * Delete the checkpointed counters of the all-time sketches
+     */
+    @Modifying
+    @Query("DELETE FROM BorrowRankingEntry e WHERE e.bucketDay IS NULL")
+    int deleteAllTime();
+
+    /**
+     * Delete the daily sketches that fell out of the longest window
+     */
+    @Modifying
+    @Query("DELETE FROM BorrowRankingEntry e WHERE e.bucketDay < :oldest")
+    int deleteByBucketDayBefore(@Param("oldest") LocalDate oldest);
+}
@@ -0,0 +1,16 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.BorrowRankingEntry;
+
+import java.util.List;
+
+/**
+ * JDBC batch insert for sketch checkpoints (IDENTITY ids disable Hibernate insert batching)
+ */
+public interface BorrowRankingRepositoryCustom {
+
+    /**
+     * Insert all counters as a single JDBC batch
+     */
+    void batchInsert(List<BorrowRankingEntry> entries);
+}
@@ -0,0 +1,35 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.BorrowRankingEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.util.List;
+
+public class BorrowRankingRepositoryCustomImpl implements BorrowRankingRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsert(List<BorrowRankingEntry> entries) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO borrow_ranking_entries (sketch, bucket_day, item_id, borrow_count, count_error) " +
+                        "VALUES (?, ?, ?, ?, ?)",
+                entries,
+                entries.size(),
+                (ps, entry) -> {
+                    ps.setString(1, entry.getSketch());
+                    if (entry.getBucketDay() != null) {
+                        ps.setDate(2, Date.valueOf(entry.getBucketDay()));
+                    } else {
+                        ps.setNull(2, Types.DATE);
+                    }
+                    ps.setLong(3, entry.getItemId());
+                    ps.setLong(4, entry.getBorrowCount());
+                    ps.setLong(5, entry.getCountError());
+                });
+    }
+}
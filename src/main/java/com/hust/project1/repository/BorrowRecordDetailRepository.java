@@ -3,15 +3,23 @@ package com.hust.project1.repository;
 import com.hust.project1.entity.BookCopy;
 import com.hust.project1.entity.BorrowRecord;
 import com.hust.project1.entity.BorrowRecordDetail;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface BorrowRecordDetailRepository extends JpaRepository<BorrowRecordDetail, Long> {
+public interface BorrowRecordDetailRepository extends JpaRepository<BorrowRecordDetail, Long>,
+        BorrowRecordDetailRepositoryCustom {
 
     /**
      * Find details by borrow record
@@ -30,31 +38,12 @@ public interface BorrowRecordDetailRepository extends JpaRepository<BorrowRecord
     @Query("SELECT COALESCE(SUM(brd.fine), 0) FROM BorrowRecordDetail brd WHERE brd.fine > 0")
     BigDecimal sumUnpaidFines();
 
-    /**
-     * Sum of paid fines (extracted from notes containing payment confirmation)
-     * This is an approximation - we look for records with payment notes
-     * In a real system, we would have a separate payment_history table
-     */
-    @Query("SELECT COUNT(brd) FROM BorrowRecordDetail brd " +
-            "WHERE brd.notes LIKE '%Đã thanh toán tiền phạt%'")
-    Long countPaidFines();
-
     /**
      * Sum of all fines ever recorded (for financial statistics)
      */
     @Query("SELECT COALESCE(SUM(brd.fine), 0) FROM BorrowRecordDetail brd")
     BigDecimal sumAllFines();
 
-    /**
-     * Calculate approximate paid fines
-     * Since we don't store payment history, we estimate based on:
-     * - Records with payment notes and fine = 0
-     * - Assume average fine of 15,000 VND per paid record
-     */
-    @Query("SELECT COALESCE(COUNT(brd) * 15000, 0) FROM BorrowRecordDetail brd " +
-            "WHERE brd.fine = 0 AND brd.notes LIKE '%Đã thanh toán tiền phạt%'")
-    BigDecimal sumPaidFines();
-
     /**
      * Find borrow history of a book copy
      */
@@ -69,4 +58,51 @@ public interface BorrowRecordDetailRepository extends JpaRepository<BorrowRecord
      * Count items in a borrow record (for business rule enforcement: 1-3 books)
      */
     long countByBorrowRecordId(Long borrowRecordId);
+
+    /**
+     * Accrue late fines for unreturned books of the given overdue records.
+     * The fine is computed from the due date, and only the part not yet in late_fine is added,
+     * so running the sweep again (same day or later) never charges twice.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE borrow_record_details d " +
+            "JOIN borrow_records br ON br.id = d.borrow_record_id " +
+            "SET d.fine = COALESCE(d.fine, 0) + (:finePerDay * DATEDIFF(:today, br.due_date) - COALESCE(d.late_fine, 0)), " +
+            "d.late_fine = :finePerDay * DATEDIFF(:today, br.due_date) " +
+            "WHERE br.id IN (:recordIds) AND d.actual_return_date IS NULL " +
+            "AND :finePerDay * DATEDIFF(:today, br.due_date) > COALESCE(d.late_fine, 0)", nativeQuery = true)
+    int accrueLateFines(@Param("recordIds") List<Long> recordIds,
+            @Param("finePerDay") long finePerDay,
+            @Param("today") LocalDate today);
+
+    /**
+     * Load details for a bulk return by ID, with record, member and copy, locking the rows
+     * so two return stations cannot return the same item twice
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM BorrowRecordDetail d JOIN FETCH d.borrowRecord br JOIN FETCH br.member " +
+            "JOIN FETCH d.bookCopy WHERE d.id IN :ids")
+    List<BorrowRecordDetail> findAllForReturnByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Load the open (not yet returned) details of the scanned copies for a bulk return, locking the rows
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM BorrowRecordDetail d JOIN FETCH d.borrowRecord br JOIN FETCH br.member " +
+            "JOIN FETCH d.bookCopy bc WHERE bc.copyNumber IN :copyNumbers AND d.actualReturnDate IS NULL")
+    List<BorrowRecordDetail> findOpenForReturnByCopyNumbers(@Param("copyNumbers") Collection<String> copyNumbers);
+
+    /**
+     * Find IDs of the details of a record that are not returned yet
+     */
+    @Query("SELECT d.id FROM BorrowRecordDetail d WHERE d.borrowRecord.id = :recordId AND d.actualReturnDate IS NULL")
+    List<Long> findOpenDetailIdsByBorrowRecordId(@Param("recordId") Long recordId);
+
+    /**
+     * Of the given records, find those that still have books out
+     */
+    @Query("SELECT DISTINCT d.borrowRecord.id FROM BorrowRecordDetail d " +
+            "WHERE d.borrowRecord.id IN :recordIds AND d.actualReturnDate IS NULL")
+    List<Long> findRecordIdsWithOpenDetails(@Param("recordIds") Collection<Long> recordIds);
 }
@@ -0,0 +1,15 @@
+package com.hust.project1.repository;
+
+import java.util.List;
+
+/**
+ * JDBC-level operations on borrow record details that JPA cannot batch
+ * (every entity uses IDENTITY ids, which disables Hibernate insert batching)
+ */
+public interface BorrowRecordDetailRepositoryCustom {
+
+    /**
+     * Insert one detail per book copy for a borrow record as a single JDBC batch
+     */
+    void batchInsertDetails(Long borrowRecordId, List<Long> bookCopyIds);
+}
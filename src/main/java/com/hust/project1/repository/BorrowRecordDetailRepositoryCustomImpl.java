@@ -0,0 +1,26 @@
+package com.hust.project1.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+public class BorrowRecordDetailRepositoryCustomImpl implements BorrowRecordDetailRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsertDetails(Long borrowRecordId, List<Long> bookCopyIds) {
+        // With rewriteBatchedStatements=true the driver sends this as one multi-row INSERT
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO borrow_record_details (borrow_record_id, book_copy_id, fine, late_fine) " +
+                        "VALUES (?, ?, 0, 0)",
+                bookCopyIds,
+                bookCopyIds.size(),
+                (ps, bookCopyId) -> {
+                    ps.setLong(1, borrowRecordId);
+                    ps.setLong(2, bookCopyId);
+                });
+    }
+}
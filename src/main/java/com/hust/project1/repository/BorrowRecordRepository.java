@@ -3,18 +3,21 @@ package com.hust.project1.repository;
 import com.hust.project1.entity.BorrowRecord;
 import com.hust.project1.entity.BorrowRecord.RecordStatus;
 import com.hust.project1.entity.Member;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long> {
+public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long>, JpaSpecificationExecutor<BorrowRecord> {
 
     /**
      * Find all borrow records for a member
@@ -46,6 +49,55 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
      */
     List<BorrowRecord> findByDueDateBeforeAndStatus(LocalDate date, RecordStatus status);
 
+    /**
+     * Find IDs of records with the given status that are past due (one chunk of the overdue sweep)
+     */
+    @Query("SELECT br.id FROM BorrowRecord br WHERE br.status = :status AND br.dueDate < :date ORDER BY br.id")
+    List<Long> findIdsByDueDateBeforeAndStatus(@Param("date") LocalDate date,
+            @Param("status") RecordStatus status,
+            Pageable pageable);
+
+    /**
+     * Find IDs of records with the given status after a given ID (keyset chunking for bulk jobs)
+     */
+    @Query("SELECT br.id FROM BorrowRecord br WHERE br.status = :status AND br.id > :afterId ORDER BY br.id")
+    List<Long> findIdsByStatusAndIdGreaterThan(@Param("status") RecordStatus status,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * Find (id, dueDate) pairs of records with the given status after a given ID (for the due date timer)
+     */
+    @Query("SELECT br.id, br.dueDate FROM BorrowRecord br WHERE br.status = :status AND br.id > :afterId ORDER BY br.id")
+    List<Object[]> findIdAndDueDateByStatusAndIdGreaterThan(@Param("status") RecordStatus status,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * Bulk status transition - only rows still in the expected status are touched.
+     * Runs (and commits) in its own transaction so the sweep can work chunk by chunk.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BorrowRecord br SET br.status = :newStatus WHERE br.id IN :ids AND br.status = :oldStatus")
+    int updateStatusByIds(@Param("ids") List<Long> ids,
+            @Param("oldStatus") RecordStatus oldStatus,
+            @Param("newStatus") RecordStatus newStatus);
+
+    /**
+     * Lock the given records that are still in a status, so a status change and what is derived from it
+     * (e.g. the circulation rollup) see the same rows
+     */
+    @Query(value = "SELECT id FROM borrow_records WHERE id IN (:ids) AND status = :status FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockIdsByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") String status);
+
+    /**
+     * Date of the first borrow ever recorded (null when there is none)
+     */
+    @Query("SELECT MIN(br.borrowDate) FROM BorrowRecord br")
+    LocalDate findFirstBorrowDate();
+
     /**
      * Count active borrows for a member (for business rule enforcement)
      */
@@ -57,16 +109,14 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
     long countByStatus(RecordStatus status);
 
     /**
-     * Search borrow records with pagination
+     * Close a set of records in one statement (used when all their books are back).
+     * Only rows still in the given open status are touched; the row count tells how many left it.
      */
-    @Query("SELECT br FROM BorrowRecord br WHERE " +
-            "(:memberId IS NULL OR br.member.id = :memberId) AND " +
-            "(:status IS NULL OR :status = '' OR CAST(br.status AS string) = :status) AND " +
-            "(:fromDate IS NULL OR br.borrowDate >= :fromDate) AND " +
-            "(:toDate IS NULL OR br.borrowDate <= :toDate)")
-    Page<BorrowRecord> searchCombined(@Param("memberId") Long memberId,
-            @Param("status") String status,
-            @Param("fromDate") LocalDate fromDate,
-            @Param("toDate") LocalDate toDate,
-            Pageable pageable);
+    @Modifying
+    @Query("UPDATE BorrowRecord br SET br.status = :newStatus, br.returnDate = :returnDate "
+            + "WHERE br.id IN :ids AND br.status = :oldStatus")
+    int closeRecordsInStatus(@Param("ids") Collection<Long> ids,
+            @Param("oldStatus") RecordStatus oldStatus,
+            @Param("newStatus") RecordStatus newStatus,
+            @Param("returnDate") LocalDate returnDate);
 }
@@ -0,0 +1,52 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.Category;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    /**
+     * Find category by folded name
+     */
+    Optional<Category> findByNameKey(String nameKey);
+
+    /**
+     * Find category by folded name with a locking read, which sees the latest committed row
+     * instead of the REPEATABLE READ snapshot (e.g. one another librarian inserted meanwhile)
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c FROM Category c WHERE c.nameKey = :nameKey")
+    Optional<Category> findLockedByNameKey(@Param("nameKey") String nameKey);
+
+    /**
+     * Create a category unless one with the same key exists (safe when two librarians add it at once)
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO categories (name, name_key) VALUES (:name, :nameKey)", nativeQuery = true)
+    int insertIfMissing(@Param("name") String name, @Param("nameKey") String nameKey);
+
+    /**
+     * Distinct free-text categories of books not linked to the taxonomy yet
+     */
+    @Query("SELECT DISTINCT b.category FROM Book b WHERE b.categoryId IS NULL AND b.category IS NOT NULL")
+    List<String> findUnlinkedBookCategories();
+
+    /**
+     * Link the books with a given free-text category to a taxonomy entry (and use its canonical name)
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.categoryId = :categoryId, b.category = :name " +
+            "WHERE b.categoryId IS NULL AND b.category = :category")
+    int linkBooks(@Param("category") String category, @Param("categoryId") Long categoryId,
+            @Param("name") String name);
+}
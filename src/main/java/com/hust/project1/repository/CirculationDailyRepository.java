@@ -0,0 +1,33 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.CirculationDaily;
+import com.hust.project1.entity.CirculationDaily.Dimension;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CirculationDailyRepository extends JpaRepository<CirculationDaily, Long>,
+        CirculationDailyRepositoryCustom {
+
+    /**
+     * Daily rows of one dimension in a date range (index range scan on dimension, stat_date)
+     */
+    @Query("SELECT c FROM CirculationDaily c WHERE c.dimension = :dimension " +
+            "AND c.statDate BETWEEN :from AND :to ORDER BY c.statDate, c.dimensionKey")
+    List<CirculationDaily> findByDimensionAndDateRange(@Param("dimension") Dimension dimension,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    /**
+     * Delete the rows of a date range (before it is recomputed by the backfill)
+     */
+    @Modifying
+    @Query("DELETE FROM CirculationDaily c WHERE c.statDate BETWEEN :from AND :to")
+    int deleteByDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
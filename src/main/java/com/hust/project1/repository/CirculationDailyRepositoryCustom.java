@@ -0,0 +1,48 @@
+package com.hust.project1.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Set-based upserts into circulation_daily. Each statement adds its amounts to the rows of both dimensions
+ * (book category and member status) at once, and runs in the caller's transaction.
+ */
+public interface CirculationDailyRepositoryCustom {
+
+    /**
+     * Add the copies lent by borrow records to their borrow dates
+     */
+    void addCheckouts(Collection<Long> borrowRecordIds);
+
+    /**
+     * Add items checked in (returned, lost or damaged) on a day
+     */
+    void addReturns(Collection<Long> detailIds, LocalDate day);
+
+    /**
+     * Add the items still on loan of records that just turned OVERDUE, to the day after their due date
+     */
+    void addOverdue(Collection<Long> borrowRecordIds);
+
+    /**
+     * Add a fine assessed on an item on a day
+     */
+    void addFineAssessed(Long detailId, long amount, LocalDate day);
+
+    /**
+     * Add a fine paid for an item on a day
+     */
+    void addFinePaid(Long detailId, long amount, LocalDate day);
+
+    /**
+     * Add the late fines about to be accrued on the open items of overdue records
+     * (same amounts as FineTransactionRepository.appendAccruedLateFines; call before the details are updated)
+     */
+    void addAccruedLateFines(Collection<Long> borrowRecordIds, long finePerDay, LocalDate today);
+
+    /**
+     * Recompute every total of a date range from the borrow history and the fine ledger
+     * (the range must have been emptied first)
+     */
+    void rebuildRange(LocalDate from, LocalDate to);
+}
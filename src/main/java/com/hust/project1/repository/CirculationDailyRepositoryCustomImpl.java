@@ -0,0 +1,134 @@
+package com.hust.project1.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class CirculationDailyRepositoryCustomImpl implements CirculationDailyRepositoryCustom {
+
+    // Every source below reads borrow_record_details d joined to its borrow_records br
+    private static final String DETAILS = "borrow_record_details d JOIN borrow_records br ON br.id = d.borrow_record_id";
+
+    private static final String LEDGER = "fine_transactions f " +
+            "JOIN borrow_record_details d ON d.id = f.borrow_record_detail_id " +
+            "JOIN borrow_records br ON br.id = d.borrow_record_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addCheckouts(Collection<Long> borrowRecordIds) {
+        if (borrowRecordIds.isEmpty()) {
+            return;
+        }
+        upsert("checkout_count", "br.borrow_date", "1", DETAILS,
+                "br.id IN (" + placeholders(borrowRecordIds.size()) + ")", new ArrayList<>(borrowRecordIds));
+    }
+
+    @Override
+    public void addReturns(Collection<Long> detailIds, LocalDate day) {
+        if (detailIds.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(Date.valueOf(day));
+        args.addAll(detailIds);
+        upsert("return_count", "?", "1", DETAILS, "d.id IN (" + placeholders(detailIds.size()) + ")", args);
+    }
+
+    @Override
+    public void addOverdue(Collection<Long> borrowRecordIds) {
+        if (borrowRecordIds.isEmpty()) {
+            return;
+        }
+        upsert("overdue_count", "DATE_ADD(br.due_date, INTERVAL 1 DAY)", "1", DETAILS,
+                "br.id IN (" + placeholders(borrowRecordIds.size()) + ") AND d.actual_return_date IS NULL",
+                new ArrayList<>(borrowRecordIds));
+    }
+
+    @Override
+    public void addFineAssessed(Long detailId, long amount, LocalDate day) {
+        upsert("fines_assessed", "?", "?", DETAILS, "d.id = ?", List.of(Date.valueOf(day), amount, detailId));
+    }
+
+    @Override
+    public void addFinePaid(Long detailId, long amount, LocalDate day) {
+        upsert("fines_paid", "?", "?", DETAILS, "d.id = ?", List.of(Date.valueOf(day), amount, detailId));
+    }
+
+    @Override
+    public void addAccruedLateFines(Collection<Long> borrowRecordIds, long finePerDay, LocalDate today) {
+        if (borrowRecordIds.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(Date.valueOf(today));
+        args.add(finePerDay);
+        args.add(Date.valueOf(today));
+        args.addAll(borrowRecordIds);
+        args.add(finePerDay);
+        args.add(Date.valueOf(today));
+        upsert("fines_assessed", "?", "? * DATEDIFF(?, br.due_date) - COALESCE(d.late_fine, 0)", DETAILS,
+                "br.id IN (" + placeholders(borrowRecordIds.size()) + ") AND d.actual_return_date IS NULL " +
+                        "AND ? * DATEDIFF(?, br.due_date) > COALESCE(d.late_fine, 0)", args);
+    }
+
+    @Override
+    public void rebuildRange(LocalDate from, LocalDate to) {
+        Date first = Date.valueOf(from);
+        Date last = Date.valueOf(to);
+        upsert("checkout_count", "br.borrow_date", "1", DETAILS,
+                "br.borrow_date BETWEEN ? AND ?", List.of(first, last));
+        upsert("return_count", "d.actual_return_date", "1", DETAILS,
+                "d.actual_return_date BETWEEN ? AND ?", List.of(first, last));
+        // Records that went overdue: no longer ACTIVE, and the item was still out after the due date
+        upsert("overdue_count", "DATE_ADD(br.due_date, INTERVAL 1 DAY)", "1", DETAILS,
+                "br.due_date BETWEEN ? AND ? AND br.status <> 'ACTIVE' " +
+                        "AND (d.actual_return_date IS NULL OR d.actual_return_date > br.due_date)",
+                List.of(Date.valueOf(from.minusDays(1)), Date.valueOf(to.minusDays(1))));
+        List<Object> createdBetween = List.of(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        upsert("fines_assessed", "DATE(f.created_at)", "f.amount", LEDGER,
+                "f.type = 'ASSESS' AND f.created_at >= ? AND f.created_at < ?", createdBetween);
+        upsert("fines_paid", "DATE(f.created_at)", "f.amount", LEDGER,
+                "f.type = 'PAY' AND f.created_at >= ? AND f.created_at < ?", createdBetween);
+    }
+
+    /**
+     * INSERT ... SELECT of (day, value) rows from a source, summed per category and per member status.
+     * The day and value expressions and the condition may contain parameters (in that order),
+     * bound once for each dimension.
+     */
+    private void upsert(String column, String day, String value, String source, String condition, List<?> args) {
+        String sql = "INSERT INTO circulation_daily (stat_date, dimension, dimension_key, " + column + ") " +
+                "SELECT stat_date, dimension, dimension_key, SUM(amount) FROM (" +
+                "SELECT " + day + " AS stat_date, 'CATEGORY' AS dimension, " +
+                "CAST(COALESCE(b.category_id, 0) AS CHAR) AS dimension_key, " + value + " AS amount " +
+                "FROM " + source + " JOIN book_copies c ON c.id = d.book_copy_id JOIN books b ON b.id = c.book_id " +
+                "WHERE " + condition +
+                " UNION ALL " +
+                "SELECT " + day + ", 'MEMBER_STATUS', m.status, " + value + " " +
+                "FROM " + source + " JOIN members m ON m.id = br.member_id " +
+                "WHERE " + condition +
+                ") src GROUP BY stat_date, dimension, dimension_key " +
+                "ON DUPLICATE KEY UPDATE " + column + " = " + column + " + VALUES(" + column + ")";
+        List<Object> bound = new ArrayList<>(args.size() * 2);
+        for (int i = 0; i < 2; i++) {
+            for (Object arg : args) {
+                bound.add(arg instanceof LocalDateTime time ? Timestamp.valueOf(time) : arg);
+            }
+        }
+        jdbcTemplate.update(sql, bound.toArray());
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
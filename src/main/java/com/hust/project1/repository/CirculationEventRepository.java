@@ -0,0 +1,36 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.CirculationEventLog;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CirculationEventRepository extends JpaRepository<CirculationEventLog, Long> {
+
+    /**
+     * Next chunk of events after the given ID (replay in keyset order)
+     */
+    List<CirculationEventLog> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Highest event ID so far (0 when the outbox is empty)
+     */
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM CirculationEventLog e")
+    Long findMaxId();
+
+    /**
+     * Delete events every handler has already consumed and that are older than the retention window
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CirculationEventLog e WHERE e.id <= :maxId AND e.createdAt < :before")
+    int deleteConsumed(@Param("maxId") Long maxId, @Param("before") LocalDateTime before);
+}
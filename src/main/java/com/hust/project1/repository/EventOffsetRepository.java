@@ -0,0 +1,24 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.EventOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface EventOffsetRepository extends JpaRepository<EventOffset, String> {
+
+    /**
+     * Store a handler's offset, creating the row on first use (never moves backwards)
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO event_offsets (handler_name, last_event_id, updated_at) " +
+            "VALUES (:handlerName, :lastEventId, NOW()) " +
+            "ON DUPLICATE KEY UPDATE last_event_id = GREATEST(last_event_id, VALUES(last_event_id)), " +
+            "updated_at = VALUES(updated_at)", nativeQuery = true)
+    int saveOffset(@Param("handlerName") String handlerName, @Param("lastEventId") Long lastEventId);
+}
@@ -0,0 +1,58 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.FineBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface FineBalanceRepository extends JpaRepository<FineBalance, Long> {
+
+    /**
+     * Add amounts to a balance row, creating it on first use (atomic, no read-modify-write)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO fine_balances (member_id, assessed, paid, waived) " +
+            "VALUES (:memberId, :assessed, :paid, :waived) " +
+            "ON DUPLICATE KEY UPDATE assessed = assessed + VALUES(assessed), " +
+            "paid = paid + VALUES(paid), waived = waived + VALUES(waived)", nativeQuery = true)
+    int addToBalance(@Param("memberId") Long memberId,
+            @Param("assessed") long assessed,
+            @Param("paid") long paid,
+            @Param("waived") long waived);
+
+    /**
+     * Add the late fines about to be accrued for the given overdue records to each member's balance
+     */
+    @Modifying
+    @Query(value = "INSERT INTO fine_balances (member_id, assessed, paid, waived) " +
+            "SELECT br.member_id, SUM(:finePerDay * DATEDIFF(:today, br.due_date) - COALESCE(d.late_fine, 0)), 0, 0 " +
+            "FROM borrow_record_details d JOIN borrow_records br ON br.id = d.borrow_record_id " +
+            "WHERE br.id IN (:recordIds) AND d.actual_return_date IS NULL " +
+            "AND :finePerDay * DATEDIFF(:today, br.due_date) > COALESCE(d.late_fine, 0) " +
+            "GROUP BY br.member_id " +
+            "ON DUPLICATE KEY UPDATE assessed = assessed + VALUES(assessed)", nativeQuery = true)
+    int addAccruedLateFinesPerMember(@Param("recordIds") List<Long> recordIds,
+            @Param("finePerDay") long finePerDay,
+            @Param("today") LocalDate today);
+
+    /**
+     * Same as addAccruedLateFinesPerMember, for the global totals row
+     */
+    @Modifying
+    @Query(value = "INSERT INTO fine_balances (member_id, assessed, paid, waived) " +
+            "SELECT 0, SUM(:finePerDay * DATEDIFF(:today, br.due_date) - COALESCE(d.late_fine, 0)), 0, 0 " +
+            "FROM borrow_record_details d JOIN borrow_records br ON br.id = d.borrow_record_id " +
+            "WHERE br.id IN (:recordIds) AND d.actual_return_date IS NULL " +
+            "AND :finePerDay * DATEDIFF(:today, br.due_date) > COALESCE(d.late_fine, 0) " +
+            "HAVING COUNT(*) > 0 " +
+            "ON DUPLICATE KEY UPDATE assessed = assessed + VALUES(assessed)", nativeQuery = true)
+    int addAccruedLateFinesGlobal(@Param("recordIds") List<Long> recordIds,
+            @Param("finePerDay") long finePerDay,
+            @Param("today") LocalDate today);
+}
@@ -0,0 +1,53 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.FineTransaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface FineTransactionRepository extends JpaRepository<FineTransaction, Long>,
+        FineTransactionRepositoryCustom {
+
+    /**
+     * Ledger history of a member, newest first
+     */
+    List<FineTransaction> findByMemberIdOrderByIdDesc(Long memberId);
+
+    /**
+     * Ledger history of a borrow record
+     */
+    List<FineTransaction> findByBorrowRecordIdOrderById(Long borrowRecordId);
+
+    /**
+     * Append ASSESS entries for the late fines about to be accrued for the given overdue records
+     * (must run before BorrowRecordDetailRepository.accrueLateFines moves late_fine forward)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO fine_transactions " +
+            "(borrow_record_detail_id, borrow_record_id, member_id, type, amount, note, created_at) " +
+            "SELECT d.id, br.id, br.member_id, 'ASSESS', " +
+            ":finePerDay * DATEDIFF(:today, br.due_date) - COALESCE(d.late_fine, 0), 'Phạt quá hạn', NOW() " +
+            "FROM borrow_record_details d JOIN borrow_records br ON br.id = d.borrow_record_id " +
+            "WHERE br.id IN (:recordIds) AND d.actual_return_date IS NULL " +
+            "AND :finePerDay * DATEDIFF(:today, br.due_date) > COALESCE(d.late_fine, 0)", nativeQuery = true)
+    int appendAccruedLateFines(@Param("recordIds") List<Long> recordIds,
+            @Param("finePerDay") long finePerDay,
+            @Param("today") LocalDate today);
+
+    /**
+     * Append one ASSESS entry per outstanding fine (opening balance when the ledger is introduced)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO fine_transactions " +
+            "(borrow_record_detail_id, borrow_record_id, member_id, type, amount, note, created_at) " +
+            "SELECT d.id, br.id, br.member_id, 'ASSESS', d.fine, 'Số dư đầu kỳ', NOW() " +
+            "FROM borrow_record_details d JOIN borrow_records br ON br.id = d.borrow_record_id " +
+            "WHERE d.fine > 0", nativeQuery = true)
+    int appendOpeningBalances();
+}
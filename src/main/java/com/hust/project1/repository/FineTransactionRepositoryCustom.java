@@ -0,0 +1,16 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.FineTransaction;
+
+import java.util.List;
+
+/**
+ * JDBC batch append for the fine ledger (IDENTITY ids disable Hibernate insert batching)
+ */
+public interface FineTransactionRepositoryCustom {
+
+    /**
+     * Append all entries as a single JDBC batch
+     */
+    void batchAppend(List<FineTransaction> transactions);
+}
@@ -0,0 +1,44 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.FineTransaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class FineTransactionRepositoryCustomImpl implements FineTransactionRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchAppend(List<FineTransaction> transactions) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO fine_transactions " +
+                        "(borrow_record_detail_id, borrow_record_id, member_id, type, amount, note, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                transactions,
+                transactions.size(),
+                (ps, tx) -> {
+                    if (tx.getBorrowRecordDetailId() != null) {
+                        ps.setLong(1, tx.getBorrowRecordDetailId());
+                    } else {
+                        ps.setNull(1, Types.BIGINT);
+                    }
+                    if (tx.getBorrowRecordId() != null) {
+                        ps.setLong(2, tx.getBorrowRecordId());
+                    } else {
+                        ps.setNull(2, Types.BIGINT);
+                    }
+                    ps.setLong(3, tx.getMemberId());
+                    ps.setString(4, tx.getType().name());
+                    ps.setBigDecimal(5, tx.getAmount());
+                    ps.setString(6, tx.getNote());
+                    ps.setTimestamp(7, tx.getCreatedAt() != null ? Timestamp.valueOf(tx.getCreatedAt()) : now);
+                });
+    }
+}
@@ -2,18 +2,20 @@ package com.hust.project1.repository;
 
 import com.hust.project1.entity.Member;
 import com.hust.project1.entity.Member.MemberStatus;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface MemberRepository extends JpaRepository<Member, Long> {
+public interface MemberRepository extends JpaRepository<Member, Long>, JpaSpecificationExecutor<Member> {
 
         /**
          * Find member by member code
@@ -46,42 +48,80 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
         boolean existsByEmail(String email);
 
         /**
-         * Search members with multiple criteria
+         * Check if member code is used by a different member (indexed existence probe)
          */
-        @Query("SELECT m FROM Member m WHERE " +
-                        "(:memberCode IS NULL OR :memberCode = '' OR m.memberCode LIKE CONCAT('%', :memberCode, '%')) AND "
-                        +
-                        "(:fullName IS NULL OR :fullName = '' OR LOWER(m.fullName) LIKE LOWER(CONCAT('%', :fullName, '%'))) AND "
-                        +
-                        "(:email IS NULL OR :email = '' OR LOWER(m.email) LIKE LOWER(CONCAT('%', :email, '%'))) AND " +
-                        "(:phone IS NULL OR :phone = '' OR m.phone LIKE CONCAT('%', :phone, '%')) AND " +
-                        "(:status IS NULL OR :status = '' OR STR(m.status) = :status)")
-        Page<Member> searchCombined(@Param("memberCode") String memberCode,
-                        @Param("fullName") String fullName,
-                        @Param("email") String email,
-                        @Param("phone") String phone,
-                        @Param("status") String status,
-                        Pageable pageable);
+        boolean existsByMemberCodeAndIdNot(String memberCode, Long id);
 
         /**
-         * Find top active members by borrow count (for statistics)
+         * Check if email is used by a different member (indexed existence probe)
          */
-        @Query("SELECT m, COUNT(br) as borrowCount FROM Member m " +
-                        "JOIN BorrowRecord br ON br.member = m " +
-                        "GROUP BY m ORDER BY borrowCount DESC")
-        List<Object[]> findTopActiveMembers(Pageable pageable);
+        boolean existsByEmailAndIdNot(String email, Long id);
 
         /**
-         * Find blacklist members (with unpaid fines or overdue books)
+         * Member ID and borrow count of the most active members over the whole history
+         * (exact recompute of the top-members sketch)
          */
-        @Query("SELECT DISTINCT m FROM Member m " +
-                        "JOIN BorrowRecord br ON br.member = m " +
-                        "LEFT JOIN BorrowRecordDetail brd ON brd.borrowRecord = br " +
-                        "WHERE brd.fine > 0 OR br.status = 'OVERDUE'")
+        @Query("SELECT br.member.id, COUNT(br) as borrowCount FROM BorrowRecord br " +
+                        "GROUP BY br.member.id ORDER BY borrowCount DESC")
+        List<Object[]> findTopActiveMemberIds(Pageable pageable);
+
+        /**
+         * Member ID, borrow date and borrow count per member and day since a date
+         * (exact recompute of the daily top-members sketches)
+         */
+        @Query("SELECT br.member.id, br.borrowDate, COUNT(br) FROM BorrowRecord br " +
+                        "WHERE br.borrowDate >= :since GROUP BY br.member.id, br.borrowDate")
+        List<Object[]> countBorrowsPerMemberAndDaySince(@Param("since") LocalDate since);
+
+        /**
+         * Find blacklist members (with unpaid fines or overdue books) - indexed read of member_standing
+         */
+        @Query("SELECT m FROM Member m JOIN MemberStanding s ON s.memberId = m.id " +
+                        "WHERE s.blacklisted = true")
         List<Member> findBlacklistMembers();
 
+        /**
+         * Find member IDs after a given ID (keyset chunking for bulk jobs)
+         */
+        @Query("SELECT m.id FROM Member m WHERE m.id > :afterId ORDER BY m.id")
+        List<Long> findIdsByIdGreaterThan(@Param("afterId") Long afterId, Pageable pageable);
+
+        /**
+         * ID, member code and email of the members after a given ID (keyset chunking, for rebuilding
+         * the uniqueness filters)
+         */
+        @Query("SELECT m.id, m.memberCode, m.email FROM Member m WHERE m.id > :afterId ORDER BY m.id")
+        List<Object[]> findUniqueKeysByIdGreaterThan(@Param("afterId") Long afterId, Pageable pageable);
+
+        /**
+         * Next chunk of members after the given ID (keyset order, for rebuilding the search index)
+         */
+        List<Member> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
         /**
          * Count members by status (for statistics)
          */
         long countByStatus(Member.MemberStatus status);
+
+        /**
+         * Atomically take borrow slots for a member.
+         * The row only matches while the member stays within the limit, so concurrent checkouts
+         * can never exceed it; returns 0 when the limit would be exceeded.
+         */
+        @Modifying
+        @Query("UPDATE Member m SET m.activeBorrowCount = m.activeBorrowCount + :count " +
+                        "WHERE m.id = :memberId AND m.activeBorrowCount + :count <= :limit")
+        int incrementActiveBorrowCount(@Param("memberId") Long memberId,
+                        @Param("count") int count,
+                        @Param("limit") int limit);
+
+        /**
+         * Atomically release borrow slots for a member (never below zero)
+         */
+        @Modifying
+        @Query("UPDATE Member m SET m.activeBorrowCount = " +
+                        "CASE WHEN m.activeBorrowCount > :count THEN m.activeBorrowCount - :count ELSE 0 END " +
+                        "WHERE m.id = :memberId")
+        int decrementActiveBorrowCount(@Param("memberId") Long memberId,
+                        @Param("count") int count);
 }
@@ -0,0 +1,64 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.MemberStanding;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MemberStandingRepository extends JpaRepository<MemberStanding, Long> {
+
+    // Standing computed from the source tables; shared by refresh and the consistency check
+    String COMPUTED_STANDING = "SELECT x.member_id, x.member_status, x.expiry_date, x.active_loans, " +
+            "x.overdue_count, x.unpaid_fine, (x.overdue_count > 0 OR x.unpaid_fine > 0) AS blacklisted " +
+            "FROM (SELECT m.id AS member_id, m.status AS member_status, m.expiry_date, " +
+            "m.active_borrow_count AS active_loans, " +
+            "(SELECT COUNT(*) FROM borrow_records br " +
+            "WHERE br.member_id = m.id AND br.status = 'OVERDUE') AS overdue_count, " +
+            "(SELECT COALESCE(SUM(d.fine), 0) FROM borrow_record_details d " +
+            "JOIN borrow_records br ON br.id = d.borrow_record_id " +
+            "WHERE br.member_id = m.id AND d.fine > 0) AS unpaid_fine " +
+            "FROM members m WHERE m.id IN (:memberIds)) x";
+
+    /**
+     * Recompute and upsert the standing of the given members
+     */
+    @Modifying
+    @Query(value = "INSERT INTO member_standing (member_id, member_status, expiry_date, active_loans, " +
+            "overdue_count, unpaid_fine, blacklisted, updated_at) " +
+            "SELECT c.*, NOW() FROM (" + COMPUTED_STANDING + ") c " +
+            "ON DUPLICATE KEY UPDATE member_status = VALUES(member_status), expiry_date = VALUES(expiry_date), " +
+            "active_loans = VALUES(active_loans), overdue_count = VALUES(overdue_count), " +
+            "unpaid_fine = VALUES(unpaid_fine), blacklisted = VALUES(blacklisted), " +
+            "updated_at = VALUES(updated_at)", nativeQuery = true)
+    int refresh(@Param("memberIds") Collection<Long> memberIds);
+
+    /**
+     * Find the members (of the given ones) whose stored standing differs from the computed one
+     */
+    @Query(value = "SELECT c.member_id FROM (" + COMPUTED_STANDING + ") c " +
+            "LEFT JOIN member_standing s ON s.member_id = c.member_id " +
+            "WHERE s.member_id IS NULL OR s.member_status <> c.member_status OR s.expiry_date <> c.expiry_date " +
+            "OR s.active_loans <> c.active_loans OR s.overdue_count <> c.overdue_count " +
+            "OR s.unpaid_fine <> c.unpaid_fine OR s.blacklisted <> c.blacklisted", nativeQuery = true)
+    List<Long> findDrifted(@Param("memberIds") Collection<Long> memberIds);
+
+    /**
+     * Find IDs of members owning the given borrow records
+     */
+    @Query("SELECT DISTINCT br.member.id FROM BorrowRecord br WHERE br.id IN :recordIds")
+    List<Long> findMemberIdsByBorrowRecordIds(@Param("recordIds") Collection<Long> recordIds);
+
+    /**
+     * Remove standing rows whose member no longer exists
+     */
+    @Modifying
+    @Query(value = "DELETE s FROM member_standing s LEFT JOIN members m ON m.id = s.member_id " +
+            "WHERE m.id IS NULL", nativeQuery = true)
+    int deleteOrphans();
+}
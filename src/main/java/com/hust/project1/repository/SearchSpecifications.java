@@ -0,0 +1,211 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.entity.Book;
+import com.hust.project1.entity.BookAvailability;
+import com.hust.project1.entity.BookCopy;
+import com.hust.project1.entity.BookCopy.CopyStatus;
+import com.hust.project1.entity.BorrowRecord;
+import com.hust.project1.entity.BorrowRecord.RecordStatus;
+import com.hust.project1.entity.Member;
+import com.hust.project1.entity.Member.MemberStatus;
+import com.hust.project1.entity.User;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search filters for the list pages, built from only the criteria actually supplied.
+ * Every filter combination gets its own SQL (instead of one catch-all "(:x IS NULL OR ...)" query),
+ * so MySQL can plan each one on the matching index. Statuses are compared as enums, which keeps
+ * the status column sargable, and an exact ISBN or member code is compared with "=" on its unique index.
+ */
+public final class SearchSpecifications {
+
+    private SearchSpecifications() {
+    }
+
+    /**
+     * Books matching ISBN (exact or substring), title, author and category (substrings, ignoring case)
+     */
+    public static Specification<Book> books(String isbn, boolean exactIsbn, String title, String author,
+            String category) {
+        List<Specification<Book>> filters = new ArrayList<>();
+        if (StringUtils.hasText(isbn)) {
+            filters.add(exactIsbn ? equal("isbn", isbn.trim()) : contains("isbn", isbn));
+        }
+        if (StringUtils.hasText(title)) {
+            filters.add(containsIgnoreCase("title", title));
+        }
+        if (StringUtils.hasText(author)) {
+            filters.add(containsIgnoreCase("author", author));
+        }
+        if (StringUtils.hasText(category)) {
+            filters.add(containsIgnoreCase("category", category));
+        }
+        return Specification.allOf(filters);
+    }
+
+    /**
+     * Books in a facet selection: category ID, publisher (ignoring case), publish year and
+     * whether a copy is available (from the book_availability counts)
+     */
+    public static Specification<Book> bookFacets(Long categoryId, String publisher, Integer publishYear,
+            Boolean available) {
+        List<Specification<Book>> filters = new ArrayList<>();
+        if (categoryId != null) {
+            filters.add(equal("categoryId", categoryId));
+        }
+        if (StringUtils.hasText(publisher)) {
+            String name = publisher.trim().toLowerCase();
+            filters.add((root, query, cb) -> cb.equal(cb.lower(root.get("publisher")), name));
+        }
+        if (publishYear != null) {
+            filters.add(equal("publishYear", publishYear));
+        }
+        if (available != null) {
+            filters.add((root, query, cb) -> {
+                Subquery<Long> copies = query.subquery(Long.class);
+                Root<BookAvailability> counts = copies.from(BookAvailability.class);
+                copies.select(counts.get("bookId")).where(cb.equal(counts.get("bookId"), root.get("id")),
+                        cb.greaterThan(counts.get("available"), 0));
+                return available ? cb.exists(copies) : cb.not(cb.exists(copies));
+            });
+        }
+        return Specification.allOf(filters);
+    }
+
+    /**
+     * Members matching name, email, phone (substrings), member code (exact or substring) and status
+     */
+    public static Specification<Member> members(String fullName, String memberCode, boolean exactCode,
+            String email, String phone, String status) {
+        List<Specification<Member>> filters = new ArrayList<>();
+        if (StringUtils.hasText(memberCode)) {
+            filters.add(exactCode ? equal("memberCode", memberCode.trim()) : contains("memberCode", memberCode));
+        }
+        if (StringUtils.hasText(fullName)) {
+            filters.add(containsIgnoreCase("fullName", fullName));
+        }
+        if (StringUtils.hasText(email)) {
+            filters.add(containsIgnoreCase("email", email));
+        }
+        if (StringUtils.hasText(phone)) {
+            filters.add(contains("phone", phone));
+        }
+        if (StringUtils.hasText(status)) {
+            filters.add(enumEqual("status", MemberStatus.class, status));
+        }
+        return Specification.allOf(filters);
+    }
+
+    /**
+     * Members whose name, code, email or phone contains the query, optionally in a status (typeahead)
+     */
+    public static Specification<Member> memberLookup(String query, MemberStatus status) {
+        Specification<Member> matches = Specification.anyOf(containsIgnoreCase("fullName", query),
+                contains("memberCode", query), containsIgnoreCase("email", query), contains("phone", query));
+        return status != null ? matches.and(equal("status", status)) : matches;
+    }
+
+    /**
+     * Book copies matching book, copy number, status and location (the book is fetched with each copy)
+     */
+    public static Specification<BookCopy> bookCopies(Long bookId, String copyNumber, String status,
+            String location) {
+        List<Specification<BookCopy>> filters = new ArrayList<>();
+        filters.add(fetch("book"));
+        if (bookId != null) {
+            filters.add((root, query, cb) -> cb.equal(root.get("book").get("id"), bookId));
+        }
+        if (StringUtils.hasText(copyNumber)) {
+            filters.add(contains("copyNumber", copyNumber));
+        }
+        if (StringUtils.hasText(status)) {
+            filters.add(enumEqual("status", CopyStatus.class, status));
+        }
+        if (StringUtils.hasText(location)) {
+            filters.add(containsIgnoreCase("location", location));
+        }
+        return Specification.allOf(filters);
+    }
+
+    /**
+     * Borrow records matching member, status and borrow date range (the member is fetched with each record)
+     */
+    public static Specification<BorrowRecord> borrowRecords(Long memberId, String status,
+            LocalDate fromDate, LocalDate toDate) {
+        List<Specification<BorrowRecord>> filters = new ArrayList<>();
+        filters.add(fetch("member"));
+        if (memberId != null) {
+            filters.add((root, query, cb) -> cb.equal(root.get("member").get("id"), memberId));
+        }
+        if (StringUtils.hasText(status)) {
+            filters.add(enumEqual("status", RecordStatus.class, status));
+        }
+        if (fromDate != null) {
+            filters.add((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("borrowDate"), fromDate));
+        }
+        if (toDate != null) {
+            filters.add((root, query, cb) -> cb.lessThanOrEqualTo(root.get("borrowDate"), toDate));
+        }
+        return Specification.allOf(filters);
+    }
+
+    /**
+     * Users whose username or email contains the keyword (ignoring case)
+     */
+    public static Specification<User> users(String keyword) {
+        if (!StringUtils.hasText(keyword)) {
+            return Specification.unrestricted();
+        }
+        return Specification.anyOf(containsIgnoreCase("username", keyword), containsIgnoreCase("email", keyword));
+    }
+
+    private static <T> Specification<T> equal(String attribute, Object value) {
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    private static <T> Specification<T> contains(String attribute, String value) {
+        String pattern = "%" + value.trim() + "%";
+        return (root, query, cb) -> cb.like(root.get(attribute), pattern);
+    }
+
+    private static <T> Specification<T> containsIgnoreCase(String attribute, String value) {
+        String pattern = "%" + value.trim().toLowerCase() + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get(attribute)), pattern);
+    }
+
+    /**
+     * Status filter bound as the enum itself; an unknown name matches nothing
+     */
+    private static <T, E extends Enum<E>> Specification<T> enumEqual(String attribute, Class<E> type, String name) {
+        E value;
+        try {
+            value = Enum.valueOf(type, name.trim());
+        } catch (IllegalArgumentException e) {
+            return (root, query, cb) -> cb.disjunction();
+        }
+        return equal(attribute, value);
+    }
+
+    /**
+     * Fetch a to-one association with the rows (skipped in the count query of a page)
+     */
+    private static <T> Specification<T> fetch(String association) {
+        return (root, query, cb) -> {
+            if (!isCountQuery(query.getResultType())) {
+                root.fetch(association);
+            }
+            return null;
+        };
+    }
+
+    private static boolean isCountQuery(Class<?> resultType) {
+        return resultType == Long.class || resultType == long.class;
+    }
+}
@@ -0,0 +1,163 @@
+package com.hust.project1.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * BK-tree of words under edit distance (with transpositions), for typo-tolerant lookups.
+ * Each child hangs off its parent at their edit distance, so a lookup within distance k only descends
+ * into children at distance d - k .. d + k (triangle inequality) instead of comparing every word.
+ * Counting transpositions bends the triangle inequality slightly, so a rare distant match can be missed;
+ * fine for suggestions.
+ * Words are only ever added; callers skip words that are no longer used and rebuild the tree when
+ * too many have piled up. Not thread-safe (guarded by the owner's lock).
+ */
+final class BkTree {
+
+    /**
+     * A word found within the distance asked for
+     */
+    record Match(String word, int distance) {
+    }
+
+    private Node root;
+    private int size;
+
+    /**
+     * Add a word (no-op if present)
+     */
+    void add(String word) {
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(node.word, word, Integer.MAX_VALUE);
+            if (distance == 0) {
+                return;
+            }
+            Node child = node.child(distance);
+            if (child == null) {
+                node.addChild(distance, new Node(word));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Words within maxDistance of the query that pass the filter, nearest first.
+     * Stops early (with what was found so far) once the deadline (System.nanoTime) has passed.
+     */
+    List<Match> search(String query, int maxDistance, long deadline, Predicate<String> live) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        int visited = 0;
+        while (!pending.isEmpty()) {
+            // Checking the clock is cheap but not free: once every 256 nodes
+            if ((++visited & 0xFF) == 0 && System.nanoTime() > deadline) {
+                break;
+            }
+            Node node = pending.pop();
+            int distance = distance(node.word, query, Integer.MAX_VALUE);
+            if (distance <= maxDistance && live.test(node.word)) {
+                matches.add(new Match(node.word, distance));
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                if (Math.abs(node.distances[i] - distance) <= maxDistance) {
+                    pending.push(node.children[i]);
+                }
+            }
+        }
+        matches.sort((a, b) -> Integer.compare(a.distance(), b.distance()));
+        return matches;
+    }
+
+    /**
+     * Edit distance counting an adjacent transposition ("kiue" -> "kieu") as one edit, like a substitution
+     * (optimal string alignment). Gives up, returning limit + 1, as soon as it must exceed the limit.
+     */
+    static int distance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static final class Node {
+
+        private final String word;
+        private int[] distances = new int[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+
+        private Node(String word) {
+            this.word = word;
+        }
+
+        private Node child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (distances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(int distance, Node child) {
+            if (childCount == children.length) {
+                int capacity = Math.max(2, childCount * 2);
+                distances = Arrays.copyOf(distances, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            distances[childCount] = distance;
+            children[childCount] = child;
+            childCount++;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.hust.project1.service;
+
+import com.hust.project1.entity.BookAvailability;
+import com.hust.project1.repository.BookAvailabilityRepository;
+import com.hust.project1.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Maintains the book_availability projection (copy counts per book by status).
+ * Every copy status change (checkout, return, lost/damaged, copy edit or delete) refreshes the
+ * books involved in the same transaction; list pages then read the counts of a whole page at once.
+ * The search index is told which books have a copy available once the change has committed.
+ */
+@Service
+@Transactional
+public class BookAvailabilityService {
+
+    // Books recomputed per transaction when rebuilding the projection
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private BookAvailabilityRepository bookAvailabilityRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    /**
+     * Recompute the counts of one book
+     */
+    public void refresh(Long bookId) {
+        refresh(Set.of(bookId));
+    }
+
+    /**
+     * Recompute the counts of several books in one statement
+     */
+    public void refresh(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        // The refresh reads book_copies, so pending entity changes must hit the database first
+        bookAvailabilityRepository.flush();
+        bookAvailabilityRepository.refresh(bookIds);
+        pushToIndex(bookIds);
+    }
+
+    /**
+     * Books owning the given copies (look up before a copy is moved to another book or deleted)
+     */
+    public List<Long> findBookIdsByCopyIds(Collection<Long> copyIds) {
+        return copyIds.isEmpty() ? List.of() : bookAvailabilityRepository.findBookIdsByCopyIds(copyIds);
+    }
+
+    /**
+     * Drop the counts of a deleted book
+     */
+    public void remove(Long bookId) {
+        if (bookAvailabilityRepository.existsById(bookId)) {
+            bookAvailabilityRepository.deleteById(bookId);
+        }
+    }
+
+    /**
+     * Counts of one book, computing them on first use
+     */
+    public BookAvailability get(Long bookId) {
+        return findByBookIds(List.of(bookId)).getOrDefault(bookId, BookAvailability.empty(bookId));
+    }
+
+    /**
+     * Counts of a page of books, by book ID, in one query.
+     * Books without a row yet (created before the projection existed) are computed once and read again.
+     */
+    public Map<Long, BookAvailability> findByBookIds(Collection<Long> bookIds) {
+        Map<Long, BookAvailability> byBook = new HashMap<>();
+        if (bookIds.isEmpty()) {
+            return byBook;
+        }
+        for (BookAvailability availability : bookAvailabilityRepository.findAllById(bookIds)) {
+            byBook.put(availability.getBookId(), availability);
+        }
+        List<Long> missing = bookIds.stream().filter(id -> !byBook.containsKey(id)).distinct().toList();
+        if (!missing.isEmpty()) {
+            refresh(missing);
+            for (BookAvailability availability : bookAvailabilityRepository.findAllById(missing)) {
+                byBook.put(availability.getBookId(), availability);
+            }
+        }
+        return byBook;
+    }
+
+    /**
+     * Consistency check: recompute every book's counts in bulk, chunk by chunk,
+     * and report how many stored rows had drifted from book_copies.
+     * Runs at startup when the projection is incomplete and nightly as a safety net.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Scheduled(cron = "${library.availability.check-cron:0 15 3 * * *}")
+    public int rebuildAndDiff() {
+        Pageable chunk = PageRequest.of(0, REBUILD_CHUNK_SIZE);
+        long afterId = 0L;
+        int checked = 0;
+        int drifted = 0;
+        List<Long> ids;
+        while (!(ids = bookRepository.findIdsByIdGreaterThan(afterId, chunk)).isEmpty()) {
+            List<Long> bookIds = ids;
+            Integer changed = transactionTemplate.execute(status -> {
+                int count = bookAvailabilityRepository.findDrifted(bookIds).size();
+                bookAvailabilityRepository.refresh(bookIds);
+                pushToIndex(bookIds);
+                return count;
+            });
+            drifted += changed != null ? changed : 0;
+            checked += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        Integer orphans = transactionTemplate.execute(status -> bookAvailabilityRepository.deleteOrphans());
+
+        System.out.println("🔎 Book availability check: " + checked + " books, " + drifted + " drifted, "
+                + (orphans != null ? orphans : 0) + " orphan rows removed");
+        return drifted;
+    }
+
+    /**
+     * Availability facet of the search index, updated with the fresh counts after commit
+     */
+    private void pushToIndex(Collection<Long> bookIds) {
+        List<Long> ids = List.copyOf(bookIds);
+        List<Long> available = bookAvailabilityRepository.findAvailableBookIds(ids);
+        AfterCommit.run(() -> bookSearchIndex.updateAvailability(ids, available));
+    }
+
+    /**
+     * Build the projection on startup if it is missing rows (e.g. first deployment)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void initialize() {
+        if (bookAvailabilityRepository.count() != bookRepository.count()) {
+            rebuildAndDiff();
+        }
+    }
+}
@@ -1,22 +1,43 @@
 package com.hust.project1.service;
 
+import com.hust.project1.dto.CursorPage;
+import com.hust.project1.dto.PageCursor;
 import com.hust.project1.entity.BookCopy;
+import com.hust.project1.entity.BookCopy.CopyStatus;
 import com.hust.project1.repository.BookCopyRepository;
+import com.hust.project1.repository.SearchSpecifications;
+import com.hust.project1.service.BookSearchIndex.Clause;
+import com.hust.project1.service.BookSearchIndex.Field;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
-import java.util.Optional;
+import java.util.*;
 
 @Service
 @Transactional
 public class BookCopyService {
 
+    // Copies offered per matching book, so one title with many copies does not fill the list
+    private static final int SUGGESTED_COPIES_PER_BOOK = 3;
+
     @Autowired
     private BookCopyRepository bookCopyRepository;
 
+    @Autowired
+    private CountCache countCache;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookAvailabilityService bookAvailabilityService;
+
     /**
      * Get all book copies with pagination
      */
@@ -32,31 +53,86 @@ public class BookCopyService {
     }
 
     /**
-     * Create or update book copy
+     * Create or update book copy (an edit may change its status or move it to another book)
      */
     public BookCopy save(BookCopy bookCopy) {
-        return bookCopyRepository.save(bookCopy);
+        Set<Long> bookIds = new HashSet<>();
+        if (bookCopy.getId() != null) {
+            bookIds.addAll(bookAvailabilityService.findBookIdsByCopyIds(List.of(bookCopy.getId())));
+        }
+        BookCopy saved = bookCopyRepository.save(bookCopy);
+        bookIds.add(saved.getBook().getId());
+        bookAvailabilityService.refresh(bookIds);
+        countCache.invalidate("copies");
+        return saved;
     }
 
     /**
      * Delete book copy by ID
      */
     public void deleteById(Long id) {
+        List<Long> bookIds = bookAvailabilityService.findBookIdsByCopyIds(List.of(id));
         bookCopyRepository.deleteById(id);
+        bookAvailabilityService.refresh(bookIds);
+        countCache.invalidate("copies");
+    }
+
+    /**
+     * Search book copies with keyset pagination (newest first)
+     */
+    public CursorPage<BookCopy> searchBookCopies(Long bookId, String copyNumber, String status,
+            String location, PageCursor cursor, int size) {
+        Specification<BookCopy> filter = SearchSpecifications.bookCopies(bookId, copyNumber, status, location);
+        List<BookCopy> rows = Seek.byId(bookCopyRepository, filter, cursor, size);
+        long total = countCache.get("copies|" + bookId + "|" + copyNumber + "|" + status + "|" + location,
+                () -> bookCopyRepository.count(filter));
+        return CursorPage.fromSeek(rows, size, cursor, copy -> "", BookCopy::getId, total);
     }
 
     /**
-     * Search book copies with multiple criteria
+     * Typeahead lookup of available copies: copy number prefix matches first, then copies of the
+     * books best matching the query by title, author or ISBN (from the book search index)
      */
-    public Page<BookCopy> searchBookCopies(Long bookId, String copyNumber, String status,
-            String location, Pageable pageable) {
-        return bookCopyRepository.searchCombined(bookId, copyNumber, status, location, pageable);
+    @Transactional(readOnly = true)
+    public List<BookCopy> suggestAvailableCopies(String query, int limit) {
+        if (!StringUtils.hasText(query)) {
+            return List.of();
+        }
+        String text = query.trim();
+        if (!bookSearchIndex.isReady()) {
+            return bookCopyRepository.suggestByStatus(CopyStatus.AVAILABLE, text, PageRequest.of(0, limit));
+        }
+
+        Map<Long, BookCopy> suggestions = new LinkedHashMap<>();
+        for (BookCopy copy : bookCopyRepository.findByStatusAndCopyNumberPrefix(CopyStatus.AVAILABLE, text,
+                PageRequest.of(0, limit))) {
+            suggestions.put(copy.getId(), copy);
+        }
+        if (suggestions.size() < limit) {
+            List<Long> bookIds = bookSearchIndex.search(
+                    List.of(Clause.of(text, Field.TITLE, Field.AUTHOR, Field.ISBN)),
+                    PageRequest.of(0, limit)).getContent();
+            Map<Long, List<BookCopy>> byBook = new HashMap<>();
+            if (!bookIds.isEmpty()) {
+                for (BookCopy copy : bookCopyRepository.findByBookIdsAndStatus(bookIds, CopyStatus.AVAILABLE)) {
+                    byBook.computeIfAbsent(copy.getBook().getId(), id -> new ArrayList<>()).add(copy);
+                }
+            }
+            // Keep the index ranking of the books
+            for (Long bookId : bookIds) {
+                List<BookCopy> copies = byBook.getOrDefault(bookId, List.of());
+                for (int i = 0; i < copies.size() && i < SUGGESTED_COPIES_PER_BOOK && suggestions.size() < limit; i++) {
+                    suggestions.putIfAbsent(copies.get(i).getId(), copies.get(i));
+                }
+            }
+        }
+        return new ArrayList<>(suggestions.values());
     }
 
     /**
-     * Count copies by book ID and status
+     * Count copies by book ID and status (from the availability projection)
      */
     public Long countByBookIdAndStatus(Long bookId, BookCopy.CopyStatus status) {
-        return bookCopyRepository.countByBookIdAndStatus(bookId, status);
+        return (long) bookAvailabilityService.get(bookId).count(status);
     }
 }
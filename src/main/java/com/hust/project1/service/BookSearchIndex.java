@@ -0,0 +1,741 @@
+package com.hust.project1.service;
+
+import com.hust.project1.dto.CatalogFacets;
+import com.hust.project1.entity.Book;
+import com.hust.project1.repository.BookAvailabilityRepository;
+import com.hust.project1.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-memory inverted index over the book catalog (title, author, ISBN, category, publisher, description).
+ * Each field has its own sorted term dictionary, so a query word matches every term starting with it
+ * (search-as-you-type) without scanning the books table; hits are ranked with BM25.
+ * Each book also carries its facet attributes (category ID, publisher, publish year, availability), so the
+ * facet counts of a search are collected in the same pass that filters the hits.
+ * Title and author words are also kept in a BK-tree, so a misspelled word can be matched to the nearest
+ * indexed words (typo-tolerant search).
+ * Built from the database at startup and kept current by BookService and BookAvailabilityService after each commit.
+ */
+@Service
+public class BookSearchIndex {
+
+    // Books loaded per query while rebuilding
+    private static final int REBUILD_CHUNK_SIZE = 2000;
+
+    // BM25 parameters (the usual defaults)
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // A word matching only as a prefix ("ngu" -> "nguyen") scores less than an exact word
+    private static final double PREFIX_MATCH_WEIGHT = 0.5;
+
+    // Rough cost of one binary-search probe relative to one step of a posting list scan
+    private static final int PROBE_COST = 20;
+
+    // Values listed per facet (the most frequent ones, plus the selected one)
+    private static final int MAX_FACET_VALUES = 15;
+
+    // Score of a hit when there is no text to rank by (ties are broken newest first)
+    private static final double[] NO_SCORE = new double[1];
+
+    // Fields whose words can be corrected, the shortest word worth correcting and the score kept per edit
+    private static final Set<Field> FUZZY_FIELDS = EnumSet.of(Field.TITLE, Field.AUTHOR);
+    private static final int MIN_FUZZY_LENGTH = 3;
+    private static final double FUZZY_MATCH_WEIGHT = 0.5;
+
+    // Nearest words tried per misspelled word
+    private static final int MAX_CORRECTIONS = 3;
+
+    // Time allowed for looking up corrections in one search
+    private static final long FUZZY_BUDGET_NANOS = 20_000_000L;
+
+    // Words no longer used tolerated in the BK-tree before it is rebuilt
+    private static final int FUZZY_COMPACT_SLACK = 1000;
+
+    public enum Field {
+        TITLE(3.0),
+        AUTHOR(2.0),
+        ISBN(3.0),
+        CATEGORY(1.5),
+        PUBLISHER(1.0),
+        DESCRIPTION(1.0);
+
+        private final double boost;
+
+        Field(double boost) {
+            this.boost = boost;
+        }
+    }
+
+    /**
+     * One query clause: every word of the text must match one of the fields
+     */
+    public record Clause(Set<Field> fields, String text) {
+
+        public static Clause of(String text, Field... fields) {
+            return new Clause(EnumSet.copyOf(Arrays.asList(fields)), text);
+        }
+
+        public static Clause anyField(String text) {
+            return new Clause(EnumSet.allOf(Field.class), text);
+        }
+    }
+
+    /**
+     * Facet selection applied on top of the text clauses (null means "any")
+     */
+    public record FacetFilter(Long categoryId, String publisher, Integer publishYear, Boolean available) {
+
+        public static final FacetFilter NONE = new FacetFilter(null, null, null, null);
+
+        public boolean isEmpty() {
+            return categoryId == null && !StringUtils.hasText(publisher) && publishYear == null && available == null;
+        }
+    }
+
+    /**
+     * One page of matching book IDs with the facet counts over all matches
+     */
+    public record FacetedResult(Page<Long> page, CatalogFacets facets, String correctedQuery) {
+    }
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookAvailabilityRepository bookAvailabilityRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Field -> term -> books containing it (guarded by lock)
+    private final Map<Field, TreeMap<String, Postings>> dictionaries = new EnumMap<>(Field.class);
+
+    // Book ID -> what was indexed for it, so an update can remove the old terms (guarded by lock)
+    private final Map<Long, IndexedBook> books = new HashMap<>();
+
+    // Sum of field lengths over all books, for the BM25 average (guarded by lock)
+    private final long[] totalLengths = new long[Field.values().length];
+
+    // Folded publisher name -> facet ID, and facet ID -> name as first seen (guarded by lock)
+    private final Map<String, Integer> publisherIds = new HashMap<>();
+    private final List<String> publisherNames = new ArrayList<>();
+
+    // Category ID -> canonical name (guarded by lock)
+    private final Map<Long, String> categoryNames = new HashMap<>();
+
+    // Books with at least one available copy (guarded by lock)
+    private final Set<Long> availableBooks = new HashSet<>();
+
+    // Facet counts of the whole catalog, dropped on every change (written under the lock)
+    private volatile CatalogFacets catalogFacets;
+
+    // Title and author words for typo-tolerant lookups; removed words stay until the next compaction (guarded by lock)
+    private final BkTree fuzzyTerms = new BkTree();
+
+    private volatile boolean ready;
+
+    public BookSearchIndex() {
+        for (Field field : Field.values()) {
+            dictionaries.put(field, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Load every book from the database, chunk by chunk
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            dictionaries.values().forEach(Map::clear);
+            books.clear();
+            Arrays.fill(totalLengths, 0L);
+            publisherIds.clear();
+            publisherNames.clear();
+            categoryNames.clear();
+            availableBooks.clear();
+            fuzzyTerms.clear();
+            catalogFacets = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Pageable chunk = PageRequest.of(0, REBUILD_CHUNK_SIZE);
+        long afterId = 0L;
+        List<Book> page;
+        while (!(page = bookRepository.findByIdGreaterThanOrderByIdAsc(afterId, chunk)).isEmpty()) {
+            page.forEach(this::put);
+            List<Long> ids = page.stream().map(Book::getId).toList();
+            updateAvailability(ids, bookAvailabilityRepository.findAvailableBookIds(ids));
+            afterId = page.get(page.size() - 1).getId();
+        }
+        ready = true;
+        System.out.println("🔍 Book search index built with " + size() + " books");
+    }
+
+    /**
+     * Whether the index holds the whole catalog (false while rebuilding)
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return books.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a book
+     */
+    public void put(Book book) {
+        List<Map<String, Integer>> fieldTerms = new ArrayList<>(Field.values().length);
+        int[] lengths = new int[Field.values().length];
+        for (Field field : Field.values()) {
+            List<String> tokens = analyze(field, book);
+            Map<String, Integer> counts = new HashMap<>();
+            for (String token : tokens) {
+                counts.merge(token, 1, Integer::sum);
+            }
+            fieldTerms.add(counts);
+            lengths[field.ordinal()] = tokens.size();
+        }
+        String publisherKey = String.join(" ", TextNormalizer.tokenize(book.getPublisher()));
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(book.getId());
+            int publisherId = -1;
+            if (!publisherKey.isEmpty()) {
+                publisherId = publisherIds.computeIfAbsent(publisherKey, key -> {
+                    publisherNames.add(book.getPublisher().trim());
+                    return publisherNames.size() - 1;
+                });
+            }
+            if (book.getCategoryId() != null) {
+                categoryNames.put(book.getCategoryId(), book.getCategory());
+            }
+            String[][] terms = new String[fieldTerms.size()][];
+            for (Field field : Field.values()) {
+                TreeMap<String, Postings> dictionary = dictionaries.get(field);
+                Map<String, Integer> counts = fieldTerms.get(field.ordinal());
+                terms[field.ordinal()] = counts.keySet().toArray(new String[0]);
+                counts.forEach((term, tf) -> dictionary.computeIfAbsent(term, t -> new Postings()).add(book.getId(), tf));
+                totalLengths[field.ordinal()] += lengths[field.ordinal()];
+                if (FUZZY_FIELDS.contains(field)) {
+                    for (String term : counts.keySet()) {
+                        if (term.length() >= MIN_FUZZY_LENGTH) {
+                            fuzzyTerms.add(term);
+                        }
+                    }
+                }
+            }
+            compactFuzzyTerms();
+            books.put(book.getId(), new IndexedBook(lengths, terms,
+                    book.getCategoryId() != null ? book.getCategoryId() : 0L, publisherId,
+                    book.getPublishYear() != null ? book.getPublishYear() : 0));
+            catalogFacets = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a book (no-op if it is not indexed)
+     */
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(bookId);
+            availableBooks.remove(bookId);
+            compactFuzzyTerms();
+            catalogFacets = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Record which of the given books have a copy available (after their copy counts changed)
+     */
+    public void updateAvailability(Collection<Long> bookIds, Collection<Long> availableIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            bookIds.forEach(availableBooks::remove);
+            availableBooks.addAll(availableIds);
+            catalogFacets = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of the books matching all clauses, best match first (ties: newest first).
+     * No clause with text means "no filter" and is answered by the caller from the database.
+     */
+    public Page<Long> search(List<Clause> clauses, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            Map<Long, double[]> scores = matchClauses(clauses, null);
+            if (scores == null || scores.isEmpty()) {
+                return Page.empty(pageable);
+            }
+            return new PageImpl<>(topHits(scores, pageable), pageable, scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Like search, also narrowed by a facet selection, with the facet counts of the matches.
+     * Without text every book matches (newest first). Hits and facet counts come from one pass over the matches.
+     */
+    public FacetedResult facetedSearch(List<Clause> clauses, FacetFilter filter, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            return facetedResult(matchClauses(clauses, null), filter, pageable, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Typo-tolerant facetedSearch: a title or author word found in no book is matched to the nearest indexed
+     * words instead (1 edit away, 2 for words longer than 5 letters), each edit halving the score.
+     * Corrections are looked up within a fixed time budget. The corrected text comes with the result
+     * (null when no word needed correcting).
+     */
+    public FacetedResult fuzzySearch(List<Clause> clauses, FacetFilter filter, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            Map<String, String> corrections = new HashMap<>();
+            Map<Long, double[]> scores = matchClauses(clauses, corrections);
+            String correctedQuery = null;
+            if (!corrections.isEmpty()) {
+                List<String> words = new ArrayList<>();
+                for (Clause clause : clauses) {
+                    for (String token : TextNormalizer.tokenize(clause.text())) {
+                        words.add(corrections.getOrDefault(token, token));
+                    }
+                }
+                correctedQuery = String.join(" ", words);
+            }
+            return facetedResult(scores, filter, pageable, correctedQuery);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private FacetedResult facetedResult(Map<Long, double[]> scores, FacetFilter filter, Pageable pageable,
+            String correctedQuery) {
+        if (scores != null && scores.isEmpty()) {
+            return new FacetedResult(Page.empty(pageable), CatalogFacets.EMPTY, correctedQuery);
+        }
+        Map<Long, double[]> hits = new HashMap<>();
+        CatalogFacets facets = collectFacets(scores, filter, hits);
+        return new FacetedResult(new PageImpl<>(topHits(hits, pageable), pageable, hits.size()), facets,
+                correctedQuery);
+    }
+
+    /**
+     * Facet counts of the whole catalog (cached until the next change to a book or its availability)
+     */
+    public CatalogFacets catalogFacets() {
+        CatalogFacets cached = catalogFacets;
+        if (cached != null) {
+            return cached;
+        }
+        lock.readLock().lock();
+        try {
+            // Stored under the read lock, so a concurrent change cannot be overwritten by stale counts
+            cached = collectFacets(null, FacetFilter.NONE, null);
+            catalogFacets = cached;
+            return cached;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores of the books matching every word of the clauses, or null when the clauses have no words.
+     * When a corrections map is given, words found in no book are corrected (and recorded in it).
+     */
+    private Map<Long, double[]> matchClauses(List<Clause> clauses, Map<String, String> corrections) {
+        // Rarest word first, so the candidate set is small from the start
+        List<Clause> words = new ArrayList<>();
+        for (Clause clause : clauses) {
+            if (clause.fields().equals(EnumSet.of(Field.ISBN))) {
+                String isbn = compactIsbn(clause.text());
+                if (!isbn.isEmpty()) {
+                    words.add(new Clause(clause.fields(), isbn));
+                }
+                continue;
+            }
+            for (String token : TextNormalizer.tokenize(clause.text())) {
+                words.add(new Clause(clause.fields(), token));
+            }
+        }
+        if (words.isEmpty()) {
+            return null;
+        }
+        words.sort(Comparator.comparingLong(word -> postingCount(word.text(), word.fields())));
+
+        long deadline = System.nanoTime() + FUZZY_BUDGET_NANOS;
+        Map<Long, double[]> scores = null;
+        for (Clause word : words) {
+            if (corrections != null && postingCount(word.text(), word.fields()) == 0) {
+                scores = matchCorrections(word, scores, deadline, corrections);
+            } else {
+                scores = matchToken(word.text(), word.fields(), scores, true, 1.0);
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Score a misspelled word by its nearest title/author words (nearest first, then the most common),
+     * keeping each book's best score
+     */
+    private Map<Long, double[]> matchCorrections(Clause word, Map<Long, double[]> previous, long deadline,
+            Map<String, String> corrections) {
+        Set<Field> fields = EnumSet.noneOf(Field.class);
+        fields.addAll(word.fields());
+        fields.retainAll(FUZZY_FIELDS);
+        int maxEdits = word.text().length() < MIN_FUZZY_LENGTH ? 0 : word.text().length() <= 5 ? 1 : 2;
+        Map<Long, double[]> matches = new HashMap<>();
+        if (fields.isEmpty() || maxEdits == 0) {
+            return matches;
+        }
+
+        List<BkTree.Match> candidates = new ArrayList<>(fuzzyTerms.search(word.text(), maxEdits, deadline,
+                term -> termCount(term, fields) > 0));
+        candidates.sort(Comparator.comparingInt(BkTree.Match::distance)
+                .thenComparing(Comparator.comparingLong((BkTree.Match match) -> termCount(match.word(), fields))
+                        .reversed()));
+        for (BkTree.Match candidate : candidates.subList(0, Math.min(MAX_CORRECTIONS, candidates.size()))) {
+            double weight = Math.pow(FUZZY_MATCH_WEIGHT, candidate.distance());
+            matchToken(candidate.word(), fields, previous, false, weight)
+                    .forEach((bookId, score) -> matches.merge(bookId, score, (a, b) -> a[0] >= b[0] ? a : b));
+        }
+        if (!candidates.isEmpty()) {
+            corrections.put(word.text(), candidates.get(0).word());
+        }
+        return matches;
+    }
+
+    /**
+     * Number of books containing exactly this word in the given fields
+     */
+    private long termCount(String term, Set<Field> fields) {
+        long count = 0;
+        for (Field field : fields) {
+            Postings postings = dictionaries.get(field).get(term);
+            count += postings != null ? postings.size : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Rebuild the BK-tree from the live title and author words once removed words have piled up
+     */
+    private void compactFuzzyTerms() {
+        int live = 0;
+        for (Field field : FUZZY_FIELDS) {
+            live += dictionaries.get(field).size();
+        }
+        if (fuzzyTerms.size() <= 2 * live + FUZZY_COMPACT_SLACK) {
+            return;
+        }
+        fuzzyTerms.clear();
+        for (Field field : FUZZY_FIELDS) {
+            for (String term : dictionaries.get(field).keySet()) {
+                if (term.length() >= MIN_FUZZY_LENGTH) {
+                    fuzzyTerms.add(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * One pass over the matches (all books when null): books passing the facet selection go to hits,
+     * and each facet counts the books that pass every other selected facet.
+     */
+    private CatalogFacets collectFacets(Map<Long, double[]> matches, FacetFilter filter, Map<Long, double[]> hits) {
+        Integer publisherId = null;
+        if (StringUtils.hasText(filter.publisher())) {
+            publisherId = publisherIds.getOrDefault(String.join(" ", TextNormalizer.tokenize(filter.publisher())), -2);
+        }
+        Map<Long, long[]> categoryCounts = new HashMap<>();
+        Map<Integer, long[]> publisherCounts = new HashMap<>();
+        Map<Integer, long[]> yearCounts = new HashMap<>();
+        long availableCount = 0;
+        long unavailableCount = 0;
+
+        for (Long bookId : matches != null ? matches.keySet() : books.keySet()) {
+            IndexedBook book = books.get(bookId);
+            boolean available = availableBooks.contains(bookId);
+            boolean categoryOk = filter.categoryId() == null || filter.categoryId() == book.categoryId();
+            boolean publisherOk = publisherId == null || publisherId == book.publisherId();
+            boolean yearOk = filter.publishYear() == null || filter.publishYear() == book.publishYear();
+            boolean availableOk = filter.available() == null || filter.available() == available;
+
+            if (hits != null && categoryOk && publisherOk && yearOk && availableOk) {
+                hits.put(bookId, matches != null ? matches.get(bookId) : NO_SCORE);
+            }
+            if (publisherOk && yearOk && availableOk && book.categoryId() != 0) {
+                categoryCounts.computeIfAbsent(book.categoryId(), id -> new long[1])[0]++;
+            }
+            if (categoryOk && yearOk && availableOk && book.publisherId() >= 0) {
+                publisherCounts.computeIfAbsent(book.publisherId(), id -> new long[1])[0]++;
+            }
+            if (categoryOk && publisherOk && availableOk && book.publishYear() != 0) {
+                yearCounts.computeIfAbsent(book.publishYear(), year -> new long[1])[0]++;
+            }
+            if (categoryOk && publisherOk && yearOk) {
+                if (available) {
+                    availableCount++;
+                } else {
+                    unavailableCount++;
+                }
+            }
+        }
+
+        List<CatalogFacets.Value> availability = new ArrayList<>(2);
+        if (availableCount > 0) {
+            availability.add(new CatalogFacets.Value("true", "Còn bản sao", availableCount));
+        }
+        if (unavailableCount > 0) {
+            availability.add(new CatalogFacets.Value("false", "Hết bản sao", unavailableCount));
+        }
+        List<CatalogFacets.Value> years = topValues(yearCounts, filter.publishYear(), String::valueOf);
+        years.sort(Comparator.comparing((CatalogFacets.Value value) -> Integer.parseInt(value.value())).reversed());
+        return new CatalogFacets(
+                topValues(categoryCounts, filter.categoryId(), id -> categoryNames.getOrDefault(id, "#" + id)),
+                topValues(publisherCounts, publisherId, publisherNames::get).stream()
+                        .map(value -> new CatalogFacets.Value(value.label(), value.label(), value.count()))
+                        .toList(),
+                years,
+                availability);
+    }
+
+    /**
+     * The most frequent facet values (plus the selected one), most frequent first
+     */
+    private static <K> List<CatalogFacets.Value> topValues(Map<K, long[]> counts, K selected,
+            Function<K, String> label) {
+        List<Map.Entry<K, long[]>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<K, long[]> entry) -> entry.getValue()[0]).reversed()
+                .thenComparing(entry -> label.apply(entry.getKey())));
+        List<CatalogFacets.Value> values = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Map.Entry<K, long[]> entry = entries.get(i);
+            if (i < MAX_FACET_VALUES || entry.getKey().equals(selected)) {
+                values.add(new CatalogFacets.Value(String.valueOf(entry.getKey()), label.apply(entry.getKey()),
+                        entry.getValue()[0]));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Number of postings a query word expands to (its cost)
+     */
+    private long postingCount(String token, Set<Field> fields) {
+        long count = 0;
+        for (Field field : fields) {
+            for (Postings postings : dictionaries.get(field).subMap(token, token + Character.MAX_VALUE).values()) {
+                count += postings.size;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The requested page of hits, keeping only offset + size entries in a heap instead of sorting all hits
+     */
+    private static List<Long> topHits(Map<Long, double[]> scores, Pageable pageable) {
+        Comparator<Map.Entry<Long, double[]>> best = (a, b) -> {
+            int byScore = Double.compare(b.getValue()[0], a.getValue()[0]);
+            return byScore != 0 ? byScore : Long.compare(b.getKey(), a.getKey());
+        };
+        long wanted = pageable.getOffset() + pageable.getPageSize();
+        if (pageable.getOffset() >= scores.size()) {
+            return List.of();
+        }
+        PriorityQueue<Map.Entry<Long, double[]>> heap = new PriorityQueue<>(best.reversed());
+        for (Map.Entry<Long, double[]> entry : scores.entrySet()) {
+            if (heap.size() < wanted) {
+                heap.add(entry);
+            } else if (best.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Map.Entry<Long, double[]>> ranked = new ArrayList<>(heap);
+        ranked.sort(best);
+        List<Long> ids = new ArrayList<>(pageable.getPageSize());
+        for (Map.Entry<Long, double[]> entry : ranked.subList((int) pageable.getOffset(), ranked.size())) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    /**
+     * Score one query word over the given fields, as a prefix or as the exact word, scaled by factor.
+     * When previous matches are given, only books among them are kept (AND), carrying their score forward.
+     */
+    private Map<Long, double[]> matchToken(String token, Set<Field> fields, Map<Long, double[]> previous,
+            boolean prefix, double factor) {
+        Map<Long, double[]> matches = new HashMap<>();
+        int docCount = Math.max(books.size(), 1);
+        for (Field field : fields) {
+            double avgLength = Math.max((double) totalLengths[field.ordinal()] / docCount, 1.0);
+            SortedMap<String, Postings> terms = prefix
+                    ? dictionaries.get(field).subMap(token, token + Character.MAX_VALUE)
+                    : dictionaries.get(field).subMap(token, true, token, true);
+            for (Map.Entry<String, Postings> term : terms.entrySet()) {
+                Postings postings = term.getValue();
+                double idf = Math.log(1 + (docCount - postings.size + 0.5) / (postings.size + 0.5));
+                double weight = field.boost * idf * factor * (term.getKey().equals(token) ? 1.0 : PREFIX_MATCH_WEIGHT);
+                if (previous != null && previous.size() * PROBE_COST < postings.size) {
+                    // Few candidates left: look each one up instead of walking a long posting list
+                    for (Long bookId : previous.keySet()) {
+                        int i = postings.indexOf(bookId);
+                        if (i >= 0) {
+                            addScore(matches, bookId, postings.tfs[i], field, weight, avgLength);
+                        }
+                    }
+                    continue;
+                }
+                for (int i = 0; i < postings.size; i++) {
+                    long bookId = postings.ids[i];
+                    if (previous == null || previous.containsKey(bookId)) {
+                        addScore(matches, bookId, postings.tfs[i], field, weight, avgLength);
+                    }
+                }
+            }
+        }
+        if (previous != null) {
+            matches.forEach((bookId, score) -> score[0] += previous.get(bookId)[0]);
+        }
+        return matches;
+    }
+
+    private void addScore(Map<Long, double[]> matches, long bookId, int tf, Field field, double weight,
+            double avgLength) {
+        double norm = 1 - B + B * books.get(bookId).lengths[field.ordinal()] / avgLength;
+        matches.computeIfAbsent(bookId, id -> new double[1])[0] += weight * tf * (K1 + 1) / (tf + K1 * norm);
+    }
+
+    private void removeLocked(Long bookId) {
+        IndexedBook old = books.remove(bookId);
+        if (old == null) {
+            return;
+        }
+        for (Field field : Field.values()) {
+            TreeMap<String, Postings> dictionary = dictionaries.get(field);
+            for (String term : old.terms[field.ordinal()]) {
+                Postings postings = dictionary.get(term);
+                if (postings != null && postings.remove(bookId) && postings.size == 0) {
+                    dictionary.remove(term);
+                }
+            }
+            totalLengths[field.ordinal()] -= old.lengths[field.ordinal()];
+        }
+    }
+
+    private static List<String> analyze(Field field, Book book) {
+        return switch (field) {
+            case TITLE -> TextNormalizer.tokenize(book.getTitle());
+            case AUTHOR -> TextNormalizer.tokenize(book.getAuthor());
+            case CATEGORY -> TextNormalizer.tokenize(book.getCategory());
+            case PUBLISHER -> TextNormalizer.tokenize(book.getPublisher());
+            case DESCRIPTION -> TextNormalizer.tokenize(book.getDescription());
+            case ISBN -> {
+                String isbn = compactIsbn(book.getIsbn());
+                yield isbn.isEmpty() ? List.of() : List.of(isbn);
+            }
+        };
+    }
+
+    /**
+     * ISBN as one term without separators ("978-604-1-23456-7" -> "9786041234567"),
+     * so an ISBN typed with or without dashes is matched as a prefix
+     */
+    private static String compactIsbn(String isbn) {
+        return String.join("", TextNormalizer.tokenize(isbn));
+    }
+
+    /**
+     * What was indexed for one book, and its facet attributes (0 / -1 when not set)
+     */
+    private record IndexedBook(int[] lengths, String[][] terms, long categoryId, int publisherId, int publishYear) {
+    }
+
+    /**
+     * Books containing one term, as parallel primitive arrays (book ID, term frequency) sorted by book ID.
+     * New books have the highest IDs, so adding is usually an append.
+     */
+    private static final class Postings {
+
+        private long[] ids = new long[2];
+        private int[] tfs = new int[2];
+        private int size;
+
+        private int indexOf(long bookId) {
+            return Arrays.binarySearch(ids, 0, size, bookId);
+        }
+
+        private void add(long bookId, int tf) {
+            int i = indexOf(bookId);
+            if (i >= 0) {
+                tfs[i] = tf;
+                return;
+            }
+            i = -i - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            System.arraycopy(tfs, i, tfs, i + 1, size - i);
+            ids[i] = bookId;
+            tfs[i] = tf;
+            size++;
+        }
+
+        private boolean remove(long bookId) {
+            int i = indexOf(bookId);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            System.arraycopy(tfs, i + 1, tfs, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+}
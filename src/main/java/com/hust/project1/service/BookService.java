@@ -1,14 +1,30 @@
 package com.hust.project1.service;
 
+import com.hust.project1.dto.CatalogFacets;
+import com.hust.project1.dto.CatalogPage;
+import com.hust.project1.dto.CursorPage;
+import com.hust.project1.dto.PageCursor;
 import com.hust.project1.entity.Book;
+import com.hust.project1.entity.Category;
 import com.hust.project1.repository.BookRepository;
+import com.hust.project1.repository.SearchSpecifications;
+import com.hust.project1.service.BookSearchIndex.Clause;
+import com.hust.project1.service.BookSearchIndex.FacetFilter;
+import com.hust.project1.service.BookSearchIndex.FacetedResult;
+import com.hust.project1.service.BookSearchIndex.Field;
+import com.hust.project1.service.DashboardCounters.Counter;
+import com.hust.project1.service.UniquenessGuard.KeySpace;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
-import java.util.Optional;
+import java.util.*;
 
 @Service
 @Transactional
@@ -16,7 +32,25 @@ public class BookService {
 
     @Autowired
     private BookRepository bookRepository;
-    
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private CountCache countCache;
+
+    @Autowired
+    private BookAvailabilityService bookAvailabilityService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UniquenessGuard uniquenessGuard;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
     /**
      * Get all books with pagination
      */
@@ -35,7 +69,22 @@ public class BookService {
      * Create or update book
      */
     public Book save(Book book) {
-        return bookRepository.save(book);
+        // Typed category -> taxonomy entry, stored with its canonical spelling
+        Optional<Category> category = categoryService.resolve(book.getCategory());
+        book.setCategoryId(category.map(Category::getId).orElse(null));
+        book.setCategory(category.map(Category::getName).orElse(null));
+
+        boolean created = book.getId() == null;
+        Book saved = bookRepository.save(book);
+        if (created) {
+            dashboardCounters.add(Counter.BOOKS, 1);
+        }
+        uniquenessGuard.add(KeySpace.ISBN, saved.getIsbn());
+        bookAvailabilityService.refresh(saved.getId());
+        // Re-indexing also drops the cached facet counts of the catalog
+        AfterCommit.run(() -> bookSearchIndex.put(saved));
+        countCache.invalidate("books");
+        return saved;
     }
 
     /**
@@ -43,27 +92,100 @@ public class BookService {
      */
     public void deleteById(Long id) {
         bookRepository.deleteById(id);
+        bookAvailabilityService.remove(id);
+        AfterCommit.run(() -> bookSearchIndex.remove(id));
+        countCache.invalidate("books");
+        dashboardCounters.add(Counter.BOOKS, -1);
     }
 
     /**
-     * Search books with multiple criteria
+     * Search books with multiple criteria, ranked by relevance.
+     * Answered from the in-memory index; the page of books is then loaded by ID.
+     * While the index is still being built the database query is used instead.
+     * A complete ISBN on its own (e.g. scanned at the desk) is looked up directly on the unique index.
+     * Without any criteria the catalog is listed newest first with keyset pagination.
+     * Facet counts (category, publisher, publish year, availability) come with the page: computed with the
+     * hits in the same pass over the index, or the cached counts of the whole catalog when nothing is selected.
+     * When no book matches the words as typed, misspelled title and author words are corrected to the
+     * nearest indexed words and the corrected text is returned with the page.
      */
-    public Page<Book> searchBooks(String title, String isbn, String author, String category, Pageable pageable) {
-        return bookRepository.searchCombined(title, isbn, author, category, pageable);
+    public CatalogPage searchBooks(String keyword, String title, String isbn, String author, String category,
+            FacetFilter facets, PageCursor cursor, int size) {
+        List<Clause> clauses = new ArrayList<>();
+        if (StringUtils.hasText(keyword)) {
+            clauses.add(Clause.anyField(keyword));
+        }
+        if (StringUtils.hasText(title)) {
+            clauses.add(Clause.of(title, Field.TITLE));
+        }
+        if (StringUtils.hasText(isbn)) {
+            clauses.add(Clause.of(isbn, Field.ISBN));
+        }
+        if (StringUtils.hasText(author)) {
+            clauses.add(Clause.of(author, Field.AUTHOR));
+        }
+        if (StringUtils.hasText(category)) {
+            clauses.add(Clause.of(category, Field.CATEGORY));
+        }
+
+        if (clauses.isEmpty() && facets.isEmpty()) {
+            List<Book> rows = Seek.byId(bookRepository, Specification.unrestricted(), cursor, size);
+            long total = countCache.get("books", bookRepository::count);
+            return new CatalogPage(CursorPage.fromSeek(rows, size, cursor, book -> "", Book::getId, total),
+                    bookSearchIndex.isReady() ? bookSearchIndex.catalogFacets() : CatalogFacets.EMPTY);
+        }
+
+        // Exact ISBN fast path
+        String onlyText = clauses.size() == 1 && facets.isEmpty() && !StringUtils.hasText(title)
+                && !StringUtils.hasText(author) && !StringUtils.hasText(category) ? clauses.get(0).text().trim() : null;
+        if (onlyText != null) {
+            Optional<Book> exact = bookRepository.findByIsbn(onlyText);
+            if (exact.isPresent()) {
+                return new CatalogPage(CursorPage.fromOffset(List.of(exact.get()), 0, size, 1), CatalogFacets.EMPTY);
+            }
+        }
+
+        // Ranked results are paged by offset (in memory, so deep pages stay cheap)
+        long offset = PageCursor.offsetOf(cursor);
+        Pageable pageable = PageRequest.of((int) (offset / size), size, Sort.by("id").descending());
+        if (!bookSearchIndex.isReady()) {
+            String titleFilter = StringUtils.hasText(title) ? title : keyword;
+            Page<Book> page = bookRepository.findAll(
+                    SearchSpecifications.books(isbn, false, titleFilter, author, category)
+                            .and(SearchSpecifications.bookFacets(facets.categoryId(), facets.publisher(),
+                                    facets.publishYear(), facets.available())),
+                    pageable);
+            return new CatalogPage(CursorPage.fromOffset(page.getContent(), offset, size, page.getTotalElements()),
+                    CatalogFacets.EMPTY);
+        }
+
+        FacetedResult result = bookSearchIndex.facetedSearch(clauses, facets, pageable);
+        if (result.page().getTotalElements() == 0 && !clauses.isEmpty()) {
+            // Nothing as typed: retry tolerating typos in title and author words
+            result = bookSearchIndex.fuzzySearch(clauses, facets, pageable);
+        }
+        Page<Long> ids = result.page();
+        Map<Long, Book> byId = new HashMap<>();
+        for (Book book : bookRepository.findAllById(ids.getContent())) {
+            byId.put(book.getId(), book);
+        }
+        List<Book> ranked = ids.getContent().stream().map(byId::get).filter(Objects::nonNull).toList();
+        return new CatalogPage(CursorPage.fromOffset(ranked, offset, size, ids.getTotalElements()), result.facets(),
+                result.correctedQuery());
     }
 
     /**
-     * Check if ISBN already exists
+     * Check if ISBN already exists (a definitely new ISBN is answered without a query)
      */
     public boolean existsByIsbn(String isbn) {
-        return bookRepository.existsByIsbn(isbn);
+        return uniquenessGuard.mightExist(KeySpace.ISBN, isbn) && bookRepository.existsByIsbn(isbn);
     }
 
     /**
      * Check if ISBN exists for a different book (for edit validation)
      */
     public boolean existsByIsbnAndIdNot(String isbn, Long id) {
-        return bookRepository.existsByIsbnAndIdNot(isbn, id);
+        return uniquenessGuard.mightExist(KeySpace.ISBN, isbn) && bookRepository.existsByIsbnAndIdNot(isbn, id);
     }
 
     // private boolean isEmpty(String str) {
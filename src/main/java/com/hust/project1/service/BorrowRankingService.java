@@ -0,0 +1,378 @@
+package com.hust.project1.service;
+
+import com.hust.project1.entity.BorrowRankingEntry;
+import com.hust.project1.repository.BookRepository;
+import com.hust.project1.repository.BorrowRankingRepository;
+import com.hust.project1.repository.MemberRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Most borrowed books and most active members, kept as Space-Saving sketches (see SpaceSaving)
+ * instead of grouping the whole borrow history on every reports view.
+ * Each checkout is counted after commit into an all-time sketch and into the sketch of its day.
+ * A rolling window merges its past days once a day and adds today's sketch on read, so a top list
+ * costs O(K) however long the history is.
+ * Sketches are checkpointed every few minutes (only the buckets that changed) and on shutdown; after a crash
+ * the checkouts since the last checkpoint are missing until the next exact recompute.
+ */
+@Service
+public class BorrowRankingService {
+
+    public enum Dimension {
+        BOOK,
+        MEMBER
+    }
+
+    public enum Window {
+        ALL_TIME(0),
+        LAST_7_DAYS(7),
+        LAST_30_DAYS(30),
+        LAST_365_DAYS(365);
+
+        private final int days;
+
+        Window(int days) {
+            this.days = days;
+        }
+
+        /**
+         * Days covered, today included (0 = the whole history)
+         */
+        public int getDays() {
+            return days;
+        }
+    }
+
+    /**
+     * One place of a top list: book or member ID and its estimated borrow count
+     */
+    public record Ranked(Long id, long count) {
+    }
+
+    // Daily sketches are kept for the longest window
+    private static final int MAX_DAYS = 365;
+
+    @Value("${library.rankings.capacity:100}")
+    private int capacity;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private BorrowRankingRepository borrowRankingRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Dimension, SpaceSaving> allTime = new EnumMap<>(Dimension.class);
+    private final Map<Dimension, TreeMap<LocalDate, SpaceSaving>> daily = new EnumMap<>(Dimension.class);
+
+    // Past days of each window merged (today left out), valid while the date is closedFor
+    private final Map<Dimension, Map<Window, SpaceSaving>> pastDays = new EnumMap<>(Dimension.class);
+    private LocalDate closedFor;
+
+    // Buckets changed since the last checkpoint
+    private final Set<LocalDate> dirtyDays = new HashSet<>();
+    private boolean allTimeDirty;
+    private boolean rewriteAll;
+
+    // Checkouts counted while the sketches are being loaded or recomputed, replayed onto the result
+    private List<Checkout> pending = new ArrayList<>();
+
+    private final AtomicBoolean recomputing = new AtomicBoolean();
+    private volatile boolean ready;
+
+    private record Checkout(Long memberId, List<Long> bookIds, LocalDate day) {
+    }
+
+    public BorrowRankingService() {
+        for (Dimension dimension : Dimension.values()) {
+            daily.put(dimension, new TreeMap<>());
+            pastDays.put(dimension, new EnumMap<>(Window.class));
+        }
+    }
+
+    /**
+     * Count a checkout once the surrounding transaction has committed (one book entry per copy lent)
+     */
+    public void recordCheckout(Long memberId, List<Long> bookIds, LocalDate day) {
+        Checkout checkout = new Checkout(memberId, List.copyOf(bookIds), day);
+        AfterCommit.run(() -> count(checkout));
+    }
+
+    /**
+     * The n most borrowed books or most active members of a window, highest first
+     */
+    public synchronized List<Ranked> top(Dimension dimension, Window window, int n) {
+        SpaceSaving sketch;
+        if (window == Window.ALL_TIME) {
+            sketch = allTime.get(dimension);
+        } else {
+            LocalDate today = LocalDate.now();
+            closeDays(today);
+            SpaceSaving past = pastDays.get(dimension).get(window);
+            SpaceSaving current = daily.get(dimension).get(today);
+            sketch = current == null ? past : SpaceSaving.merge(capacity, List.of(past, current));
+        }
+        if (sketch == null) {
+            return List.of();
+        }
+        return sketch.top(n).stream().map(entry -> new Ranked(entry.item(), entry.count())).toList();
+    }
+
+    /**
+     * Load the checkpointed sketches once the application is up, or recompute them when there are none.
+     * Runs before the first report snapshot is computed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void start() {
+        List<BorrowRankingEntry> rows = new ArrayList<>(borrowRankingRepository.findAll());
+        if (rows.isEmpty()) {
+            recompute();
+        } else {
+            // Largest first, so a smaller capacity keeps the right counters
+            rows.sort((a, b) -> Long.compare(b.getBorrowCount(), a.getBorrowCount()));
+            Map<Dimension, SpaceSaving> loadedAllTime = emptyAllTime();
+            Map<Dimension, TreeMap<LocalDate, SpaceSaving>> loadedDaily = emptyDaily();
+            for (BorrowRankingEntry row : rows) {
+                Dimension dimension = Dimension.valueOf(row.getSketch());
+                SpaceSaving sketch = row.getBucketDay() == null ? loadedAllTime.get(dimension)
+                        : loadedDaily.get(dimension).computeIfAbsent(row.getBucketDay(), day -> new SpaceSaving(capacity));
+                sketch.load(row.getItemId(), row.getBorrowCount(), row.getCountError());
+            }
+            install(loadedAllTime, loadedDaily, false);
+            System.out.println("🏆 Borrow rankings loaded from " + rows.size() + " checkpointed counters");
+        }
+        ready = true;
+    }
+
+    /**
+     * Rebuild every sketch from the borrow history (admin action; also run when there is no checkpoint).
+     * Returns false when a recompute is already running.
+     */
+    public boolean recompute() {
+        if (!recomputing.compareAndSet(false, true)) {
+            return false;
+        }
+        synchronized (this) {
+            if (pending == null) {
+                pending = new ArrayList<>();
+            }
+        }
+        boolean installed = false;
+        try {
+            LocalDate since = LocalDate.now().minusDays(MAX_DAYS - 1);
+            PageRequest top = PageRequest.of(0, capacity);
+            Map<Dimension, SpaceSaving> exactAllTime = emptyAllTime();
+            Map<Dimension, TreeMap<LocalDate, SpaceSaving>> exactDaily = emptyDaily();
+            loadRanked(exactAllTime.get(Dimension.BOOK), bookRepository.findTopBorrowedBookIds(top));
+            loadRanked(exactAllTime.get(Dimension.MEMBER), memberRepository.findTopActiveMemberIds(top));
+            loadPerDay(exactDaily.get(Dimension.BOOK), bookRepository.countBorrowsPerBookAndDaySince(since));
+            loadPerDay(exactDaily.get(Dimension.MEMBER), memberRepository.countBorrowsPerMemberAndDaySince(since));
+            install(exactAllTime, exactDaily, true);
+            installed = true;
+            System.out.println("🏆 Borrow rankings recomputed from the borrow history");
+            return true;
+        } finally {
+            if (!installed) {
+                synchronized (this) {
+                    // The checkouts were counted into the current sketches as well
+                    pending = null;
+                }
+            }
+            recomputing.set(false);
+        }
+    }
+
+    /**
+     * Write the buckets that changed since the last checkpoint (the past days of a window never change)
+     */
+    @Scheduled(fixedDelayString = "${library.rankings.checkpoint-ms:300000}")
+    public void checkpoint() {
+        if (!ready) {
+            return;
+        }
+        boolean everything;
+        boolean allTimeChanged;
+        Set<LocalDate> days;
+        List<BorrowRankingEntry> rows = new ArrayList<>();
+        synchronized (this) {
+            if (!rewriteAll && !allTimeDirty && dirtyDays.isEmpty()) {
+                return;
+            }
+            everything = rewriteAll;
+            allTimeChanged = allTimeDirty || everything;
+            days = new HashSet<>(dirtyDays);
+            for (Dimension dimension : Dimension.values()) {
+                if (everything) {
+                    days.addAll(daily.get(dimension).keySet());
+                }
+            }
+            for (Dimension dimension : Dimension.values()) {
+                if (allTimeChanged) {
+                    addRows(rows, dimension, null, allTime.get(dimension));
+                }
+                for (LocalDate day : days) {
+                    addRows(rows, dimension, day, daily.get(dimension).get(day));
+                }
+            }
+            rewriteAll = false;
+            allTimeDirty = false;
+            dirtyDays.clear();
+        }
+
+        LocalDate oldest = LocalDate.now().minusDays(MAX_DAYS - 1);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (everything) {
+                    borrowRankingRepository.deleteAllInBatch();
+                } else {
+                    if (allTimeChanged) {
+                        borrowRankingRepository.deleteAllTime();
+                    }
+                    if (!days.isEmpty()) {
+                        borrowRankingRepository.deleteByBucketDayIn(days);
+                    }
+                    borrowRankingRepository.deleteByBucketDayBefore(oldest);
+                }
+                borrowRankingRepository.batchInsert(rows);
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                rewriteAll |= everything;
+                allTimeDirty |= allTimeChanged;
+                dirtyDays.addAll(days);
+            }
+            System.out.println("❌ Borrow rankings checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        checkpoint();
+    }
+
+    private synchronized void count(Checkout checkout) {
+        offer(Dimension.MEMBER, checkout.memberId(), checkout.day());
+        for (Long bookId : checkout.bookIds()) {
+            offer(Dimension.BOOK, bookId, checkout.day());
+        }
+        if (pending != null) {
+            pending.add(checkout);
+        }
+    }
+
+    private void offer(Dimension dimension, Long id, LocalDate day) {
+        allTime.computeIfAbsent(dimension, d -> new SpaceSaving(capacity)).offer(id, 1);
+        daily.get(dimension).computeIfAbsent(day, d -> new SpaceSaving(capacity)).offer(id, 1);
+        allTimeDirty = true;
+        dirtyDays.add(day);
+        if (closedFor != null && day.isBefore(closedFor)) {
+            // Committed after midnight: the past days have to be merged again
+            closedFor = null;
+        }
+    }
+
+    /**
+     * Swap in loaded or recomputed sketches and replay the checkouts counted in the meantime
+     */
+    private synchronized void install(Map<Dimension, SpaceSaving> newAllTime,
+                                      Map<Dimension, TreeMap<LocalDate, SpaceSaving>> newDaily, boolean rewrite) {
+        allTime.clear();
+        allTime.putAll(newAllTime);
+        daily.clear();
+        daily.putAll(newDaily);
+        closedFor = null;
+        dirtyDays.clear();
+        allTimeDirty = false;
+        rewriteAll |= rewrite;
+
+        List<Checkout> replay = pending != null ? pending : List.of();
+        pending = null;
+        replay.forEach(this::count);
+    }
+
+    /**
+     * Merge the past days of every window for today, dropping the days older than the longest window
+     */
+    private void closeDays(LocalDate today) {
+        if (today.equals(closedFor)) {
+            return;
+        }
+        for (Dimension dimension : Dimension.values()) {
+            TreeMap<LocalDate, SpaceSaving> days = daily.get(dimension);
+            days.headMap(today.minusDays(MAX_DAYS - 1)).clear();
+            for (Window window : Window.values()) {
+                if (window != Window.ALL_TIME) {
+                    Collection<SpaceSaving> past = days.subMap(today.minusDays(window.getDays() - 1), true,
+                            today, false).values();
+                    pastDays.get(dimension).put(window, SpaceSaving.merge(capacity, past));
+                }
+            }
+        }
+        closedFor = today;
+    }
+
+    private Map<Dimension, SpaceSaving> emptyAllTime() {
+        Map<Dimension, SpaceSaving> sketches = new EnumMap<>(Dimension.class);
+        for (Dimension dimension : Dimension.values()) {
+            sketches.put(dimension, new SpaceSaving(capacity));
+        }
+        return sketches;
+    }
+
+    private static Map<Dimension, TreeMap<LocalDate, SpaceSaving>> emptyDaily() {
+        Map<Dimension, TreeMap<LocalDate, SpaceSaving>> sketches = new EnumMap<>(Dimension.class);
+        for (Dimension dimension : Dimension.values()) {
+            sketches.put(dimension, new TreeMap<>());
+        }
+        return sketches;
+    }
+
+    /**
+     * Rows of (ID, count), highest first, as exact counters
+     */
+    private static void loadRanked(SpaceSaving sketch, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            sketch.load((Long) row[0], (Long) row[1], 0L);
+        }
+    }
+
+    /**
+     * Rows of (ID, day, count) as exact daily counters; a day keeps its capacity largest
+     */
+    private void loadPerDay(TreeMap<LocalDate, SpaceSaving> sketches, List<Object[]> rows) {
+        List<Object[]> sorted = new ArrayList<>(rows);
+        sorted.sort((a, b) -> Long.compare((Long) b[2], (Long) a[2]));
+        for (Object[] row : sorted) {
+            sketches.computeIfAbsent((LocalDate) row[1], day -> new SpaceSaving(capacity))
+                    .load((Long) row[0], (Long) row[2], 0L);
+        }
+    }
+
+    private static void addRows(List<BorrowRankingEntry> rows, Dimension dimension, LocalDate day, SpaceSaving sketch) {
+        if (sketch == null) {
+            return;
+        }
+        for (SpaceSaving.Entry entry : sketch.entries()) {
+            rows.add(new BorrowRankingEntry(null, dimension.name(), day, entry.item(), entry.count(), entry.error()));
+        }
+    }
+}
@@ -1,21 +1,33 @@
 package com.hust.project1.service;
 
+import com.hust.project1.dto.CursorPage;
+import com.hust.project1.dto.PageCursor;
+import com.hust.project1.dto.ReturnResult;
 import com.hust.project1.entity.BookCopy;
 import com.hust.project1.entity.BorrowRecord;
 import com.hust.project1.entity.BorrowRecordDetail;
+import com.hust.project1.entity.FineTransaction;
+import com.hust.project1.entity.FineTransaction.TransactionType;
 import com.hust.project1.entity.Member;
+import com.hust.project1.event.CirculationEvent;
+import com.hust.project1.event.CirculationEventBus;
 import com.hust.project1.repository.*;
+import com.hust.project1.service.DashboardCounters.Counter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.resilience.annotation.Retryable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Service
 @Transactional
@@ -33,10 +45,38 @@ public class BorrowRecordService {
     @Autowired
     private MemberRepository memberRepository;
 
-    // Fine rates
-    private static final BigDecimal LATE_FINE_PER_DAY = new BigDecimal("5000"); // 5,000 VND/day
-    private static final BigDecimal DAMAGED_FINE = new BigDecimal("50000"); // 50,000 VND
-    private static final BigDecimal LOST_FINE = new BigDecimal("100000"); // 100,000 VND
+    @Autowired
+    private DueDateScheduler dueDateScheduler;
+
+    @Autowired
+    private FineLedgerService fineLedgerService;
+
+    @Autowired
+    private MemberStandingService memberStandingService;
+
+    @Autowired
+    private BookAvailabilityService bookAvailabilityService;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private BorrowRankingService borrowRankingService;
+
+    @Autowired
+    private CirculationRollupService circulationRollupService;
+
+    @Autowired
+    private CirculationEventBus circulationEventBus;
+
+    @Autowired
+    private CountCache countCache;
+
+    // Maximum number of books a member can borrow at the same time
+    private static final int MAX_ACTIVE_BORROWS = 3;
+
+    // Number of records handled per bulk UPDATE in the overdue sweep
+    private static final int OVERDUE_SWEEP_CHUNK_SIZE = 500;
 
     /**
      * Get all borrow records with pagination
@@ -53,12 +93,19 @@ public class BorrowRecordService {
     }
 
     /**
-     * Search borrow records
+     * Search borrow records with keyset pagination on (borrow date, ID), newest first
      */
-    public Page<BorrowRecord> searchBorrowRecords(Long memberId, String status,
+    public CursorPage<BorrowRecord> searchBorrowRecords(Long memberId, String status,
             LocalDate fromDate, LocalDate toDate,
-            Pageable pageable) {
-        return borrowRecordRepository.searchCombined(memberId, status, fromDate, toDate, pageable);
+            PageCursor cursor, int size) {
+        Specification<BorrowRecord> filter = SearchSpecifications.borrowRecords(memberId, status, fromDate, toDate);
+        // A cursor that is not on a borrow date (tampered, or from another list) starts over
+        PageCursor position = Seek.dateCursor(cursor);
+        List<BorrowRecord> rows = Seek.byDateAndId(borrowRecordRepository, filter, "borrowDate", position, size);
+        long total = countCache.get("records|" + memberId + "|" + status + "|" + fromDate + "|" + toDate,
+                () -> borrowRecordRepository.count(filter));
+        return CursorPage.fromSeek(rows, size, position, record -> record.getBorrowDate().toString(),
+                BorrowRecord::getId, total);
     }
 
     /**
@@ -69,20 +116,42 @@ public class BorrowRecordService {
     }
 
     /**
-     * Create new borrow record
+     * Create new borrow record.
+     * Copies are reserved with a compare-and-set UPDATE (AVAILABLE -> BORROWED), so when two desks
+     * lend the same copy exactly one wins. Lock conflicts (deadlock, lock wait timeout, stale version)
+     * are retried a bounded number of times in a fresh transaction.
      */
+    @Retryable(includes = { PessimisticLockingFailureException.class, OptimisticLockingFailureException.class },
+            maxRetries = 3, delay = 20, jitter = 10, multiplier = 2)
     public BorrowRecord createBorrowRecord(Long memberId, List<Long> bookCopyIds, LocalDate dueDate) {
-        // Validate member exists
+        // Validate member exists and may borrow (status, card expiry, overdue books, unpaid fines)
         Member member = memberRepository.findById(memberId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy độc giả!"));
+        memberStandingService.checkEligibility(memberId);
 
-        // Check book count limit (3 books total)
+        // Check book count limit (3 books total) and take the slots in one atomic UPDATE.
+        // The member row lock only serializes checkouts/returns of this member; if a later
+        // step fails the transaction rolls the slots back.
         int requestedBooks = bookCopyIds.size();
-        int currentCount = member.getActiveBorrowCount();
-
-        if (currentCount + requestedBooks > 3) {
+        if (memberRepository.incrementActiveBorrowCount(memberId, requestedBooks, MAX_ACTIVE_BORROWS) == 0) {
+            int currentCount = member.getActiveBorrowCount();
             throw new RuntimeException("Vượt quá giới hạn! Độc giả đang mượn " + currentCount +
-                    " sách, chỉ có thể mượn thêm " + (3 - currentCount) + " sách.");
+                    " sách, chỉ có thể mượn thêm " + Math.max(0, MAX_ACTIVE_BORROWS - currentCount) + " sách.");
+        }
+
+        // Load all requested copies with one IN query and validate them together
+        List<Long> distinctIds = bookCopyIds.stream().distinct().sorted().toList();
+        if (distinctIds.size() != requestedBooks) {
+            throw new RuntimeException("Danh sách bản sao sách bị trùng lặp!");
+        }
+        List<BookCopy> bookCopies = bookCopyRepository.findAllById(distinctIds);
+        if (bookCopies.size() != requestedBooks) {
+            throw new RuntimeException("Không tìm thấy bản sao sách!");
+        }
+        for (BookCopy bookCopy : bookCopies) {
+            if (bookCopy.getStatus() != BookCopy.CopyStatus.AVAILABLE) {
+                throw new RuntimeException("Bản sao sách " + bookCopy.getCopyNumber() + " không khả dụng!");
+            }
         }
 
         // Create borrow record
@@ -93,32 +162,28 @@ public class BorrowRecordService {
         borrowRecord.setStatus(BorrowRecord.RecordStatus.ACTIVE);
 
         borrowRecord = borrowRecordRepository.save(borrowRecord);
-
-        // Create borrow record details for each book copy
-        for (Long bookCopyId : bookCopyIds) {
-            BookCopy bookCopy = bookCopyRepository.findById(bookCopyId)
-                    .orElseThrow(() -> new RuntimeException("Không tìm thấy bản sao sách!"));
-
-            // Check if book copy is available
-            if (bookCopy.getStatus() != BookCopy.CopyStatus.AVAILABLE) {
-                throw new RuntimeException("Bản sao sách " + bookCopy.getCopyNumber() + " không khả dụng!");
-            }
-
-            // Update book copy status to BORROWED
-            bookCopy.setStatus(BookCopy.CopyStatus.BORROWED);
-            bookCopyRepository.save(bookCopy);
-
-            // Create detail
-            BorrowRecordDetail detail = new BorrowRecordDetail();
-            detail.setBorrowRecord(borrowRecord);
-            detail.setBookCopy(bookCopy);
-            detail.setFine(BigDecimal.ZERO);
-            borrowRecordDetailRepository.save(detail);
+        countCache.invalidate("records");
+        dashboardCounters.add(Counter.ACTIVE_LOANS, 1);
+
+        // Reserve all copies with one conditional UPDATE and insert the details as one JDBC batch.
+        // Fewer rows updated than requested means another desk lent one of them in the meantime;
+        // throwing rolls back the whole checkout.
+        int reserved = bookCopyRepository.updateStatusByIds(distinctIds,
+                BookCopy.CopyStatus.AVAILABLE, BookCopy.CopyStatus.BORROWED);
+        if (reserved != requestedBooks) {
+            throw new RuntimeException("Bản sao sách vừa được cho mượn ở quầy khác, vui lòng chọn lại!");
         }
-
-        // Increment member's active borrow count
-        member.setActiveBorrowCount(currentCount + requestedBooks);
-        memberRepository.save(member);
+        borrowRecordDetailRepository.batchInsertDetails(borrowRecord.getId(), distinctIds);
+        circulationRollupService.recordCheckout(borrowRecord.getId());
+        memberStandingService.refresh(memberId);
+        List<Long> bookIds = bookCopies.stream().map(copy -> copy.getBook().getId()).toList();
+        bookAvailabilityService.refresh(bookIds);
+        borrowRankingService.recordCheckout(memberId, bookIds, borrowRecord.getBorrowDate());
+        circulationEventBus.publish(new CirculationEvent.BorrowCreated(borrowRecord.getId(), memberId,
+                distinctIds, borrowRecord.getDueDate()));
+
+        // Track the due date so the record turns OVERDUE right at the day boundary
+        dueDateScheduler.schedule(borrowRecord.getId(), borrowRecord.getDueDate());
 
         return borrowRecord;
     }
@@ -127,67 +192,165 @@ public class BorrowRecordService {
      * Return all books in a borrow record
      */
     public void returnAllBooks(Long recordId) {
-        BorrowRecord record = borrowRecordRepository.findById(recordId)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy phiếu mượn!"));
-
-        List<BorrowRecordDetail> details = borrowRecordDetailRepository.findByBorrowRecordId(recordId);
-
-        for (BorrowRecordDetail detail : details) {
-            if (detail.getActualReturnDate() == null) {
-                returnSingleBook(detail.getId());
-            }
+        if (!borrowRecordRepository.existsById(recordId)) {
+            throw new RuntimeException("Không tìm thấy phiếu mượn!");
         }
 
-        // Update record status
-        record.setReturnDate(LocalDate.now());
-        record.setStatus(BorrowRecord.RecordStatus.RETURNED);
-        borrowRecordRepository.save(record);
+        returnBooks(borrowRecordDetailRepository.findOpenDetailIdsByBorrowRecordId(recordId));
 
-        // Note: activeBorrowCount is already decremented in returnSingleBook()
+        // Also closes a record whose remaining books were all marked lost/damaged
+        closeCompletedRecords(List.of(recordId), LocalDate.now());
     }
 
     /**
      * Return single book
      */
     public void returnSingleBook(Long detailId) {
-        BorrowRecordDetail detail = borrowRecordDetailRepository.findById(detailId)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy chi tiết phiếu mượn!"));
+        ReturnResult result = returnBooks(List.of(detailId)).get(0);
+        if (!result.success()) {
+            throw new RuntimeException(result.message());
+        }
+    }
 
-        if (detail.getActualReturnDate() != null) {
-            throw new RuntimeException("Sách đã được trả!");
+    /**
+     * Return a cart of books by detail ID (one result per requested ID, in request order)
+     */
+    public List<ReturnResult> returnBooks(List<Long> detailIds) {
+        Map<String, BorrowRecordDetail> detailsByItem = new HashMap<>();
+        if (!detailIds.isEmpty()) {
+            for (BorrowRecordDetail detail : borrowRecordDetailRepository.findAllForReturnByIds(detailIds)) {
+                detailsByItem.put(String.valueOf(detail.getId()), detail);
+            }
         }
+        return processReturns(detailIds.stream().map(String::valueOf).toList(), detailsByItem,
+                "Không tìm thấy chi tiết phiếu mượn!");
+    }
 
-        // Set return date
-        detail.setActualReturnDate(LocalDate.now());
+    /**
+     * Return a cart of books by scanned copy number (one result per scanned copy, in scan order)
+     */
+    public List<ReturnResult> returnBooksByCopyNumbers(List<String> copyNumbers) {
+        Map<String, BorrowRecordDetail> detailsByItem = new HashMap<>();
+        if (!copyNumbers.isEmpty()) {
+            for (BorrowRecordDetail detail : borrowRecordDetailRepository.findOpenForReturnByCopyNumbers(copyNumbers)) {
+                detailsByItem.put(detail.getBookCopy().getCopyNumber(), detail);
+            }
+        }
+        return processReturns(copyNumbers, detailsByItem, "Không có phiếu mượn nào đang giữ bản sao này!");
+    }
 
-        // Calculate late fine
-        BorrowRecord record = detail.getBorrowRecord();
-        if (LocalDate.now().isAfter(record.getDueDate())) {
-            long daysLate = ChronoUnit.DAYS.between(record.getDueDate(), LocalDate.now());
-            BigDecimal lateFine = LATE_FINE_PER_DAY.multiply(BigDecimal.valueOf(daysLate));
-            detail.setFine(detail.getFine().add(lateFine));
+    /**
+     * Bulk return, linear in the cart size: all items were loaded (and locked) by one query,
+     * fines are computed in one pass, then copies, members and records are updated with one
+     * statement per group instead of per item.
+     */
+    private List<ReturnResult> processReturns(List<String> items, Map<String, BorrowRecordDetail> detailsByItem,
+            String notFoundMessage) {
+        LocalDate today = LocalDate.now();
+        // One result per scanned item, in scan order
+        ReturnResult[] results = new ReturnResult[items.size()];
+        List<Long> copyIds = new ArrayList<>();
+        List<Long> detailIds = new ArrayList<>();
+        Set<Long> bookIds = new HashSet<>();
+        Map<Long, Integer> returnedPerMember = new HashMap<>();
+        Set<Long> recordIds = new HashSet<>();
+        Set<String> seen = new HashSet<>();
+        List<FineTransaction> assessments = new ArrayList<>();
+        List<CirculationEvent> events = new ArrayList<>();
+
+        // Validate the cart and collect the items to return
+        List<BorrowRecordDetail> returning = new ArrayList<>(items.size());
+        List<Integer> returningPositions = new ArrayList<>(items.size());
+        for (int position = 0; position < items.size(); position++) {
+            String item = items.get(position);
+            BorrowRecordDetail detail = detailsByItem.get(item);
+            if (!seen.add(item)) {
+                results[position] = ReturnResult.failed(item, "Trùng lặp trong danh sách trả!");
+            } else if (detail == null) {
+                results[position] = ReturnResult.failed(item, notFoundMessage);
+            } else if (detail.getActualReturnDate() != null) {
+                results[position] = ReturnResult.failed(item, "Sách đã được trả!");
+            } else {
+                returning.add(detail);
+                returningPositions.add(position);
+            }
         }
 
-        // Update book copy status to AVAILABLE
-        BookCopy bookCopy = detail.getBookCopy();
-        bookCopy.setStatus(BookCopy.CopyStatus.AVAILABLE);
-        bookCopyRepository.save(bookCopy);
+        // Evaluate all late fines in one pass over primitive arrays
+        int n = returning.size();
+        long[] dueDays = new long[n];
+        long[] accrued = new long[n];
+        for (int i = 0; i < n; i++) {
+            BorrowRecordDetail detail = returning.get(i);
+            dueDays[i] = detail.getBorrowRecord().getDueDate().toEpochDay();
+            accrued[i] = FineCalculator.toDong(detail.getLateFine());
+        }
+        long[] newAccrued = new long[n];
+        long[] charged = new long[n];
+        FineCalculator.chargeLateFines(dueDays, accrued, today.toEpochDay(), newAccrued, charged);
 
-        borrowRecordDetailRepository.save(detail);
+        for (int i = 0; i < n; i++) {
+            BorrowRecordDetail detail = returning.get(i);
+            BorrowRecord record = detail.getBorrowRecord();
+            detail.setActualReturnDate(today);
+            if (charged[i] > 0) {
+                long fine = FineCalculator.toDong(detail.getFine()) + charged[i];
+                detail.setFine(FineCalculator.toBigDecimal(fine));
+                detail.setLateFine(FineCalculator.toBigDecimal(newAccrued[i]));
+                assessments.add(fineLedgerService.entry(TransactionType.ASSESS, detail, charged[i], "Phạt trả muộn"));
+            }
 
-        // Decrement member's active borrow count
-        Member member = record.getMember();
-        member.setActiveBorrowCount(Math.max(0, member.getActiveBorrowCount() - 1));
-        memberRepository.save(member);
+            copyIds.add(detail.getBookCopy().getId());
+            detailIds.add(detail.getId());
+            bookIds.add(detail.getBookCopy().getBook().getId());
+            returnedPerMember.merge(record.getMember().getId(), 1, Integer::sum);
+            recordIds.add(record.getId());
+            int position = returningPositions.get(i);
+            results[position] = ReturnResult.returned(items.get(position), record.getId(), detail.getFine());
+            events.add(new CirculationEvent.CopyReturned(record.getId(), detail.getId(), record.getMember().getId(),
+                    detail.getBookCopy().getId(), today, charged[i]));
+        }
+
+        if (copyIds.isEmpty()) {
+            return List.of(results);
+        }
+
+        // Dirty details go out as batched UPDATEs (hibernate.jdbc.batch_size)
+        borrowRecordDetailRepository.flush();
+        circulationRollupService.recordReturns(detailIds, today);
+        bookCopyRepository.updateStatusByIds(copyIds, BookCopy.CopyStatus.BORROWED, BookCopy.CopyStatus.AVAILABLE);
+        bookAvailabilityService.refresh(bookIds);
+        returnedPerMember.forEach(memberRepository::decrementActiveBorrowCount);
+        fineLedgerService.append(assessments);
+        closeCompletedRecords(recordIds, today);
+        // A late fine charged here can blacklist the member (the record may not have been flipped
+        // to OVERDUE yet), so those members are refreshed right away; for the others the return
+        // only improves the standing and the event handler catches up
+        Set<Long> finedMembers = new HashSet<>();
+        for (FineTransaction assessment : assessments) {
+            finedMembers.add(assessment.getMemberId());
+        }
+        memberStandingService.refresh(finedMembers);
+        circulationEventBus.publish(events);
 
-        // Check if all books are returned
-        List<BorrowRecordDetail> allDetails = borrowRecordDetailRepository.findByBorrowRecordId(record.getId());
-        boolean allReturned = allDetails.stream().allMatch(d -> d.getActualReturnDate() != null);
+        return List.of(results);
+    }
 
-        if (allReturned) {
-            record.setReturnDate(LocalDate.now());
-            record.setStatus(BorrowRecord.RecordStatus.RETURNED);
-            borrowRecordRepository.save(record);
+    /**
+     * Mark records RETURNED once none of their books are out any more
+     */
+    private void closeCompletedRecords(Collection<Long> recordIds, LocalDate today) {
+        Set<Long> stillOpen = new HashSet<>(borrowRecordDetailRepository.findRecordIdsWithOpenDetails(recordIds));
+        List<Long> completed = recordIds.stream().filter(id -> !stillOpen.contains(id)).toList();
+        if (!completed.isEmpty()) {
+            // One UPDATE per open status, so the dashboard knows which loans were closed
+            int closedActive = borrowRecordRepository.closeRecordsInStatus(completed,
+                    BorrowRecord.RecordStatus.ACTIVE, BorrowRecord.RecordStatus.RETURNED, today);
+            int closedOverdue = borrowRecordRepository.closeRecordsInStatus(completed,
+                    BorrowRecord.RecordStatus.OVERDUE, BorrowRecord.RecordStatus.RETURNED, today);
+            dashboardCounters.add(Counter.ACTIVE_LOANS, -closedActive);
+            dashboardCounters.add(Counter.OVERDUE_LOANS, -closedOverdue);
+            completed.forEach(dueDateScheduler::cancel);
         }
     }
 
@@ -201,26 +364,40 @@ public class BorrowRecordService {
         BookCopy bookCopy = detail.getBookCopy();
         bookCopy.setStatus(newStatus);
         bookCopyRepository.save(bookCopy);
+        bookAvailabilityService.refresh(bookCopy.getBook().getId());
 
         // Calculate fine based on status
+        long fine = 0L;
         if (newStatus == BookCopy.CopyStatus.LOST) {
-            detail.setFine(detail.getFine().add(LOST_FINE));
+            fine = FineCalculator.LOST_FINE;
+            detail.setFine(FineCalculator.toBigDecimal(FineCalculator.toDong(detail.getFine()) + FineCalculator.LOST_FINE));
             detail.setNotes("Sách bị mất");
             detail.setActualReturnDate(LocalDate.now()); // Mark as "returned" (lost)
+            fineLedgerService.append(List.of(fineLedgerService.entry(TransactionType.ASSESS, detail,
+                    FineCalculator.LOST_FINE, "Sách bị mất")));
         } else if (newStatus == BookCopy.CopyStatus.DAMAGED) {
-            detail.setFine(detail.getFine().add(DAMAGED_FINE));
+            fine = FineCalculator.DAMAGED_FINE;
+            detail.setFine(FineCalculator.toBigDecimal(FineCalculator.toDong(detail.getFine()) + FineCalculator.DAMAGED_FINE));
             detail.setNotes("Sách bị hỏng");
             detail.setActualReturnDate(LocalDate.now()); // Mark as "returned" (damaged)
+            fineLedgerService.append(List.of(fineLedgerService.entry(TransactionType.ASSESS, detail,
+                    FineCalculator.DAMAGED_FINE, "Sách bị hỏng")));
         }
 
         borrowRecordDetailRepository.save(detail);
 
         // Decrement member's active borrow count (book is no longer "active")
         if (newStatus == BookCopy.CopyStatus.LOST || newStatus == BookCopy.CopyStatus.DAMAGED) {
-            BorrowRecord record = detail.getBorrowRecord();
-            Member member = record.getMember();
-            member.setActiveBorrowCount(Math.max(0, member.getActiveBorrowCount() - 1));
-            memberRepository.save(member);
+            memberRepository.decrementActiveBorrowCount(detail.getBorrowRecord().getMember().getId(), 1);
+            circulationRollupService.recordReturns(List.of(detailId), detail.getActualReturnDate());
+        }
+
+        // The new fine blocks further checkouts, so the standing is refreshed right away
+        Long memberId = detail.getBorrowRecord().getMember().getId();
+        memberStandingService.refresh(memberId);
+        if (fine > 0) {
+            circulationEventBus.publish(new CirculationEvent.CopyLost(detail.getBorrowRecord().getId(), detailId,
+                    memberId, bookCopy.getId(), newStatus, fine));
         }
     }
 
@@ -229,7 +406,7 @@ public class BorrowRecordService {
      */
     public void deleteById(Long id) {
         // Validate that the record exists
-        borrowRecordRepository.findById(id)
+        BorrowRecord record = borrowRecordRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy phiếu mượn!"));
 
         // Check if any book is still borrowed
@@ -242,44 +419,78 @@ public class BorrowRecordService {
         }
 
         // Check if there are unpaid fines
-        BigDecimal totalFine = calculateTotalFine(id);
-        if (totalFine.compareTo(BigDecimal.ZERO) > 0) {
+        BigDecimal totalFine = calculateTotalFine(details);
+        if (totalFine.signum() > 0) {
             throw new RuntimeException("Không thể xóa! Vẫn còn tiền phạt chưa thanh toán: " +
                     totalFine + " VND");
         }
 
+        Long memberId = record.getMember().getId();
         borrowRecordRepository.deleteById(id);
+        dueDateScheduler.cancel(id);
+        countCache.invalidate("records");
+        memberStandingService.refresh(memberId);
     }
 
     /**
-     * Pay fine - mark all fines as paid (reset to zero)
+     * Pay fine - mark all fines as paid (reset to zero); each paid amount goes to the fine ledger
      */
     public void payFine(Long recordId) {
+        settleFines(recordId, TransactionType.PAY, "Đã thanh toán tiền phạt");
+    }
+
+    /**
+     * Waive fine - cancel all outstanding fines of a record without payment
+     */
+    public void waiveFine(Long recordId) {
+        settleFines(recordId, TransactionType.WAIVE, "Đã miễn tiền phạt");
+    }
+
+    private void settleFines(Long recordId, TransactionType type, String note) {
         // Validate record exists
-        borrowRecordRepository.findById(recordId)
+        BorrowRecord record = borrowRecordRepository.findById(recordId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy phiếu mượn!"));
 
         List<BorrowRecordDetail> details = borrowRecordDetailRepository.findByBorrowRecordId(recordId);
+        List<FineTransaction> settlements = new ArrayList<>();
+        long settled = 0L;
 
         // Reset all fines to zero
         for (BorrowRecordDetail detail : details) {
-            if (detail.getFine().compareTo(BigDecimal.ZERO) > 0) {
+            long fine = FineCalculator.toDong(detail.getFine());
+            if (fine > 0) {
+                settled += fine;
+                settlements.add(fineLedgerService.entry(type, detail, fine, note));
                 detail.setFine(BigDecimal.ZERO);
-                detail.setNotes(
-                        (detail.getNotes() != null ? detail.getNotes() + " | " : "") + "Đã thanh toán tiền phạt");
+                detail.setNotes((detail.getNotes() != null ? detail.getNotes() + " | " : "") + note);
                 borrowRecordDetailRepository.save(detail);
             }
         }
+
+        fineLedgerService.append(settlements);
+        // Settling only lowers the unpaid fine, so the standing can only improve: the event handler refreshes it
+        if (settled > 0) {
+            circulationEventBus.publish(new CirculationEvent.FinePaid(recordId, record.getMember().getId(),
+                    settled, type == TransactionType.WAIVE));
+        }
     }
 
     /**
      * Calculate total fine for a borrow record
      */
     public BigDecimal calculateTotalFine(Long recordId) {
-        List<BorrowRecordDetail> details = borrowRecordDetailRepository.findByBorrowRecordId(recordId);
-        return details.stream()
-                .map(BorrowRecordDetail::getFine)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return calculateTotalFine(borrowRecordDetailRepository.findByBorrowRecordId(recordId));
+    }
+
+    /**
+     * Calculate total fine of already loaded details (summed in đồng, converted once)
+     */
+    public BigDecimal calculateTotalFine(List<BorrowRecordDetail> details) {
+        long[] fines = new long[details.size()];
+        for (int i = 0; i < fines.length; i++) {
+            fines[i] = FineCalculator.toDong(details.get(i).getFine());
+        }
+        return FineCalculator.toBigDecimal(FineCalculator.sum(fines));
     }
 
     /**
@@ -290,47 +501,39 @@ public class BorrowRecordService {
     }
 
     /**
-     * Update overdue status for all active records and calculate fines
+     * Update overdue status for all active records and accrue late fines.
+     * Works set-based: each chunk is one bulk UPDATE that commits on its own,
+     * and fine accrual is idempotent (see BorrowRecordDetailRepository.accrueLateFines);
+     * accrued amounts are written to the fine ledger in the same chunk transaction.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updateOverdueStatus() {
-        List<BorrowRecord> overdueRecords = borrowRecordRepository
-                .findByDueDateBeforeAndStatus(LocalDate.now(), BorrowRecord.RecordStatus.ACTIVE);
-
-        for (BorrowRecord record : overdueRecords) {
-            // Update status to OVERDUE
-            record.setStatus(BorrowRecord.RecordStatus.OVERDUE);
-            borrowRecordRepository.save(record);
-
-            // Calculate and update fines for each unreturned book
-            List<BorrowRecordDetail> details = borrowRecordDetailRepository.findByBorrowRecordId(record.getId());
-            for (BorrowRecordDetail detail : details) {
-                // Only calculate fine for books that haven't been returned
-                if (detail.getActualReturnDate() == null) {
-                    // Calculate days overdue
-                    long daysOverdue = ChronoUnit.DAYS.between(record.getDueDate(), LocalDate.now());
-
-                    // Calculate fine (5,000 VND per day)
-                    BigDecimal fine = LATE_FINE_PER_DAY.multiply(new BigDecimal(daysOverdue));
-
-                    // Update fine in detail
-                    detail.setFine(fine);
-
-                    // Add note about the fine
-                    String fineNote = "Quá hạn " + daysOverdue + " ngày - Phạt: " +
-                            fine.longValue() + " VND";
-                    if (detail.getNotes() != null && !detail.getNotes().isEmpty()) {
-                        detail.setNotes(detail.getNotes() + " | " + fineNote);
-                    } else {
-                        detail.setNotes(fineNote);
-                    }
-
-                    borrowRecordDetailRepository.save(detail);
-                }
+        LocalDate today = LocalDate.now();
+        Pageable chunk = PageRequest.of(0, OVERDUE_SWEEP_CHUNK_SIZE);
+
+        // 1. Flip ACTIVE -> OVERDUE; flipped rows drop out of the next chunk query
+        int flipped = 0;
+        List<Long> ids;
+        while (!(ids = borrowRecordRepository.findIdsByDueDateBeforeAndStatus(
+                today, BorrowRecord.RecordStatus.ACTIVE, chunk)).isEmpty()) {
+            int updated = dueDateScheduler.markOverdue(ids);
+            if (updated == 0) {
+                break;
             }
+            flipped += updated;
+        }
+
+        // 2. Accrue late fines for every overdue record, walking the IDs in keyset order
+        int accrued = 0;
+        long afterId = 0L;
+        while (!(ids = borrowRecordRepository.findIdsByStatusAndIdGreaterThan(
+                BorrowRecord.RecordStatus.OVERDUE, afterId, chunk)).isEmpty()) {
+            accrued += fineLedgerService.accrueLateFines(ids, FineCalculator.LATE_FINE_PER_DAY, today);
+            afterId = ids.get(ids.size() - 1);
         }
 
-        if (!overdueRecords.isEmpty()) {
-            System.out.println("✅ Updated " + overdueRecords.size() + " overdue records and calculated fines");
+        if (flipped > 0 || accrued > 0) {
+            System.out.println("✅ Marked " + flipped + " records overdue, accrued late fines on " + accrued + " items");
         }
     }
 }
@@ -0,0 +1,68 @@
+package com.hust.project1.service;
+
+import com.hust.project1.entity.Category;
+import com.hust.project1.repository.CategoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.Optional;
+
+/**
+ * Category taxonomy: maps the category typed on a book to one shared entry,
+ * so facets and filters compare category IDs instead of free text
+ */
+@Service
+@Transactional
+public class CategoryService {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    /**
+     * Category for a typed name, created on first use (empty when the name is blank).
+     * Never empty for a non-blank name: the book must not silently lose its category.
+     */
+    public Optional<Category> resolve(String name) {
+        if (!StringUtils.hasText(name)) {
+            return Optional.empty();
+        }
+        String displayName = name.trim().replaceAll("\\s+", " ");
+        String key = String.join(" ", TextNormalizer.tokenize(displayName));
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Category> existing = categoryRepository.findByNameKey(key);
+        if (existing.isPresent()) {
+            return existing;
+        }
+        categoryRepository.insertIfMissing(displayName, key);
+        // When a concurrent insert won, the row is newer than this transaction's snapshot
+        Category category = categoryRepository.findLockedByNameKey(key)
+                .orElseThrow(() -> new RuntimeException("Không thể tạo danh mục: " + displayName + "!"));
+        return Optional.of(category);
+    }
+
+    /**
+     * Link books saved before the taxonomy existed. Runs before the search index is built,
+     * so the index sees the category IDs.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void linkUnlinkedBooks() {
+        int linked = 0;
+        for (String name : categoryRepository.findUnlinkedBookCategories()) {
+            Optional<Category> category = resolve(name);
+            if (category.isPresent()) {
+                linked += categoryRepository.linkBooks(name, category.get().getId(), category.get().getName());
+            }
+        }
+        if (linked > 0) {
+            System.out.println("🏷️ Linked " + linked + " books to the category taxonomy");
+        }
+    }
+}
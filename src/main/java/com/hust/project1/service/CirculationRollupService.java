@@ -0,0 +1,332 @@
+package com.hust.project1.service;
+
+import com.hust.project1.dto.CirculationTrendPoint;
+import com.hust.project1.entity.Category;
+import com.hust.project1.entity.CirculationDaily;
+import com.hust.project1.entity.CirculationDaily.Dimension;
+import com.hust.project1.entity.FineTransaction;
+import com.hust.project1.entity.FineTransaction.TransactionType;
+import com.hust.project1.repository.BorrowRecordRepository;
+import com.hust.project1.repository.CategoryRepository;
+import com.hust.project1.repository.CirculationDailyRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Daily circulation totals per book category and per member status (checkouts, returns, overdue items,
+ * fines assessed and paid), so trend charts read a few rows per day instead of scanning the borrow history.
+ * Checkouts, returns and fines of the circulation desk are buffered in memory once their transaction has
+ * committed (so a rolled back write never counts) and added with set-based upserts by a periodic flush,
+ * so desk transactions never wait on the few hot rows of today. Overdue flips and late-fine accruals come
+ * from the background sweep and are still counted in its own transaction.
+ * Deltas not flushed yet are lost if the process dies; the backfill is the repair path. It recomputes a
+ * date range from history in parallel chunks of days; it runs at startup while the table is empty and on demand.
+ */
+@Service
+public class CirculationRollupService {
+
+    // Attempts per backfill chunk (neighbouring chunks may deadlock on the unique index gaps)
+    private static final int BACKFILL_ATTEMPTS = 2;
+
+    // IDs per upsert when flushing buffered checkouts and returns
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    private static final String UNCATEGORIZED = "0";
+
+    @Value("${library.rollup.backfill-chunk-days:31}")
+    private int chunkDays;
+
+    @Value("${library.rollup.backfill-threads:4}")
+    private int backfillThreads;
+
+    @Autowired
+    private CirculationDailyRepository circulationDailyRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean backfilling = new AtomicBoolean();
+
+    // Desk totals committed but not flushed yet (guarded by "this")
+    private Pending pending = new Pending();
+
+    /**
+     * Count the copies lent by a new borrow record (after commit, on the next flush)
+     */
+    public void recordCheckout(Long borrowRecordId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                pending.checkouts.add(borrowRecordId);
+            }
+        });
+    }
+
+    /**
+     * Count items checked in on a day, returned or closed as lost/damaged (after commit, on the next flush)
+     */
+    public void recordReturns(Collection<Long> detailIds, LocalDate day) {
+        List<Long> ids = List.copyOf(detailIds);
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                pending.returns.computeIfAbsent(day, d -> new ArrayList<>()).addAll(ids);
+            }
+        });
+    }
+
+    /**
+     * Count the items still on loan of records that were just turned OVERDUE (in the sweep's transaction)
+     */
+    public void recordOverdue(Collection<Long> borrowRecordIds) {
+        circulationDailyRepository.addOverdue(borrowRecordIds);
+    }
+
+    /**
+     * Count the assessed and paid amounts of new fine ledger entries, waivers are not payments
+     * (after commit, on the next flush)
+     */
+    public void recordFines(List<FineTransaction> entries) {
+        LocalDate today = LocalDate.now();
+        // One upsert per item, day and type, even when a cart charges the same item twice
+        Map<FineDay, Long> assessed = new LinkedHashMap<>();
+        Map<FineDay, Long> paid = new LinkedHashMap<>();
+        for (FineTransaction tx : entries) {
+            if (tx.getBorrowRecordDetailId() == null) {
+                continue;
+            }
+            FineDay key = new FineDay(tx.getBorrowRecordDetailId(), today);
+            long amount = FineCalculator.toDong(tx.getAmount());
+            if (tx.getType() == TransactionType.ASSESS) {
+                assessed.merge(key, amount, Long::sum);
+            } else if (tx.getType() == TransactionType.PAY) {
+                paid.merge(key, amount, Long::sum);
+            }
+        }
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                assessed.forEach((key, amount) -> pending.assessed.merge(key, amount, Long::sum));
+                paid.forEach((key, amount) -> pending.paid.merge(key, amount, Long::sum));
+            }
+        });
+    }
+
+    /**
+     * Add the buffered desk totals in one short transaction. On failure they are kept for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${library.rollup.flush-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        Pending batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new Pending();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (List<Long> chunk : chunks(batch.checkouts)) {
+                    circulationDailyRepository.addCheckouts(chunk);
+                }
+                batch.returns.forEach((day, detailIds) -> {
+                    for (List<Long> chunk : chunks(detailIds)) {
+                        circulationDailyRepository.addReturns(chunk, day);
+                    }
+                });
+                batch.assessed.forEach((key, amount) ->
+                        circulationDailyRepository.addFineAssessed(key.detailId(), amount, key.day()));
+                batch.paid.forEach((key, amount) ->
+                        circulationDailyRepository.addFinePaid(key.detailId(), amount, key.day()));
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending.addAll(batch);
+            }
+            System.out.println("❌ Circulation rollup flush failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Count the late fines about to be accrued on a chunk of overdue records, in the sweep's transaction
+     * (before the details are updated)
+     */
+    public void recordAccruedLateFines(List<Long> borrowRecordIds, long finePerDay, LocalDate today) {
+        circulationDailyRepository.addAccruedLateFines(borrowRecordIds, finePerDay, today);
+    }
+
+    /**
+     * Totals of one dimension between two dates, per day or per month, oldest first
+     */
+    public List<CirculationTrendPoint> getTrend(Dimension dimension, LocalDate from, LocalDate to, boolean monthly) {
+        Map<String, String> labels = new HashMap<>();
+        if (dimension == Dimension.CATEGORY) {
+            labels.put(UNCATEGORIZED, "Chưa phân loại");
+            for (Category category : categoryRepository.findAll()) {
+                labels.put(String.valueOf(category.getId()), category.getName());
+            }
+        }
+
+        // Rows come ordered by day, so the periods come out in order too
+        Map<List<Object>, long[]> totals = new LinkedHashMap<>();
+        for (CirculationDaily row : circulationDailyRepository.findByDimensionAndDateRange(dimension, from, to)) {
+            LocalDate period = monthly ? row.getStatDate().withDayOfMonth(1) : row.getStatDate();
+            long[] sums = totals.computeIfAbsent(List.of(period, row.getDimensionKey()), key -> new long[5]);
+            sums[0] += row.getCheckoutCount();
+            sums[1] += row.getReturnCount();
+            sums[2] += row.getOverdueCount();
+            sums[3] += row.getFinesAssessed();
+            sums[4] += row.getFinesPaid();
+        }
+
+        List<CirculationTrendPoint> points = new ArrayList<>(totals.size());
+        totals.forEach((key, sums) -> {
+            String dimensionKey = (String) key.get(1);
+            points.add(new CirculationTrendPoint((LocalDate) key.get(0), dimensionKey,
+                    labels.getOrDefault(dimensionKey, dimensionKey), sums[0], sums[1], sums[2], sums[3], sums[4]));
+        });
+        return points;
+    }
+
+    /**
+     * Fill the table from the whole history once the application is up, if it is still empty
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (circulationDailyRepository.count() == 0) {
+            startBackfill(null, null);
+        }
+    }
+
+    /**
+     * Recompute a date range in the background (null = from the first borrow / up to today).
+     * Returns false when a backfill is already running.
+     */
+    public boolean startBackfill(LocalDate from, LocalDate to) {
+        if (!backfilling.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofVirtual().name("rollup-backfill").start(() -> {
+            try {
+                LocalDate first = from != null ? from : borrowRecordRepository.findFirstBorrowDate();
+                LocalDate last = to != null ? to : LocalDate.now();
+                if (first != null && !first.isAfter(last)) {
+                    backfill(first, last);
+                }
+            } catch (RuntimeException e) {
+                System.out.println("❌ Circulation rollup backfill failed: " + e.getMessage());
+            } finally {
+                backfilling.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Recompute every day of the range from history: the range is cut into chunks of days, and each chunk
+     * is deleted and rebuilt in its own transaction, several chunks at a time. Safe to repeat.
+     * Returns the number of chunks that failed (their days keep their previous totals).
+     */
+    public int backfill(LocalDate from, LocalDate to) {
+        long started = System.currentTimeMillis();
+        Semaphore permits = new Semaphore(Math.max(1, backfillThreads));
+        AtomicInteger chunks = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (LocalDate start = from; !start.isAfter(to); start = start.plusDays(Math.max(1, chunkDays))) {
+                LocalDate chunkFrom = start;
+                LocalDate chunkTo = min(start.plusDays(Math.max(1, chunkDays) - 1L), to);
+                chunks.incrementAndGet();
+                threads.submit(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        if (!rebuildChunk(chunkFrom, chunkTo)) {
+                            failed.incrementAndGet();
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        System.out.println("📈 Circulation rollup rebuilt " + from + " → " + to + " (" + chunks.get() + " chunks, "
+                + failed.get() + " failed) in " + (System.currentTimeMillis() - started) + " ms");
+        return failed.get();
+    }
+
+    private boolean rebuildChunk(LocalDate from, LocalDate to) {
+        // Buffered deltas are already in the history the chunk is rebuilt from: add them first, so the
+        // rebuild replaces them instead of having them added on top (only a commit landing in between
+        // can still be counted twice)
+        flush();
+        for (int attempt = 1; attempt <= BACKFILL_ATTEMPTS; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    circulationDailyRepository.deleteByDateRange(from, to);
+                    circulationDailyRepository.rebuildRange(from, to);
+                });
+                return true;
+            } catch (RuntimeException e) {
+                System.out.println("❌ Circulation rollup chunk " + from + " → " + to + " failed (attempt "
+                        + attempt + "): " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += FLUSH_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private record FineDay(Long detailId, LocalDate day) {
+    }
+
+    /**
+     * Desk totals waiting for a flush
+     */
+    private static final class Pending {
+
+        private final List<Long> checkouts = new ArrayList<>();
+        private final Map<LocalDate, List<Long>> returns = new TreeMap<>();
+        private final Map<FineDay, Long> assessed = new LinkedHashMap<>();
+        private final Map<FineDay, Long> paid = new LinkedHashMap<>();
+
+        private boolean isEmpty() {
+            return checkouts.isEmpty() && returns.isEmpty() && assessed.isEmpty() && paid.isEmpty();
+        }
+
+        private void addAll(Pending other) {
+            checkouts.addAll(other.checkouts);
+            other.returns.forEach((day, ids) -> returns.computeIfAbsent(day, d -> new ArrayList<>()).addAll(ids));
+            other.assessed.forEach((key, amount) -> assessed.merge(key, amount, Long::sum));
+            other.paid.forEach((key, amount) -> paid.merge(key, amount, Long::sum));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.hust.project1.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of list totals, so paging through a list does not run COUNT(*) on every page.
+ * Totals shown next to a list may lag behind by up to the TTL.
+ */
+@Service
+public class CountCache {
+
+    // Upper bound on cached filter combinations; the cache is simply cleared when it is reached
+    private static final int MAX_ENTRIES = 1000;
+
+    @Value("${library.pagination.count-ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final Map<String, Entry> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Cached total for the given list and filters, counting on a miss or once expired
+     */
+    public long get(String key, LongSupplier counter) {
+        long now = System.nanoTime();
+        Entry entry = counts.get(key);
+        if (entry != null && now - entry.countedAt < ttlSeconds * 1_000_000_000L) {
+            return entry.count;
+        }
+        if (counts.size() >= MAX_ENTRIES) {
+            counts.clear();
+        }
+        long count = counter.getAsLong();
+        counts.put(key, new Entry(count, now));
+        return count;
+    }
+
+    /**
+     * Drop the cached totals of one list (keys starting with the prefix), e.g. after an insert or delete
+     */
+    public void invalidate(String prefix) {
+        counts.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private record Entry(long count, long countedAt) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.hust.project1.service;
+
+import com.hust.project1.entity.BorrowRecord;
+import com.hust.project1.repository.BookRepository;
+import com.hust.project1.repository.BorrowRecordRepository;
+import com.hust.project1.repository.MemberRepository;
+import com.hust.project1.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Totals shown on the dashboard, kept in memory so the landing page never queries the database.
+ * Seeded with COUNT queries at startup, then moved by the write paths after their transaction commits.
+ * A periodic reconcile recounts from the database and corrects any drift (bulk statements or writes
+ * that bypass the services); the drift found is kept per counter for monitoring.
+ */
+@Service
+public class DashboardCounters {
+
+    public enum Counter {
+        BOOKS,
+        MEMBERS,
+        USERS,
+        ACTIVE_LOANS,
+        OVERDUE_LOANS
+    }
+
+    /**
+     * Drift found by the reconciles of one counter: the last correction and the sum of all corrections (absolute)
+     */
+    public record Drift(long last, long total, LocalDateTime lastReconciledAt) {
+    }
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    private final Map<Counter, LongAdder> counts = new EnumMap<>(Counter.class);
+    private final Map<Counter, AtomicLong> lastDrift = new EnumMap<>(Counter.class);
+    private final Map<Counter, AtomicLong> totalDrift = new EnumMap<>(Counter.class);
+
+    private volatile boolean seeded;
+    private volatile LocalDateTime lastReconciledAt;
+
+    public DashboardCounters() {
+        for (Counter counter : Counter.values()) {
+            counts.put(counter, new LongAdder());
+            lastDrift.put(counter, new AtomicLong());
+            totalDrift.put(counter, new AtomicLong());
+        }
+    }
+
+    /**
+     * Current value of a counter
+     */
+    public long get(Counter counter) {
+        return counts.get(counter).sum();
+    }
+
+    /**
+     * Whether the counters have been seeded from the database yet
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Adjust a counter once the surrounding transaction has committed
+     */
+    public void add(Counter counter, long delta) {
+        if (delta != 0) {
+            AfterCommit.run(() -> counts.get(counter).add(delta));
+        }
+    }
+
+    /**
+     * Move a number of items from one counter to another once the surrounding transaction has committed
+     */
+    public void move(Counter from, Counter to, long amount) {
+        if (amount != 0) {
+            AfterCommit.run(() -> {
+                counts.get(from).add(-amount);
+                counts.get(to).add(amount);
+            });
+        }
+    }
+
+    /**
+     * Drift found so far, per counter
+     */
+    public Map<Counter, Drift> drift() {
+        Map<Counter, Drift> drift = new EnumMap<>(Counter.class);
+        for (Counter counter : Counter.values()) {
+            drift.put(counter, new Drift(lastDrift.get(counter).get(), totalDrift.get(counter).get(), lastReconciledAt));
+        }
+        return drift;
+    }
+
+    /**
+     * Recount every counter from the database and correct the in-memory value.
+     * The first run seeds the counters. Afterwards a counter that moved while it was being counted is
+     * left alone until the next run, since the count may or may not include that write.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${library.dashboard.reconcile-cron:0 */15 * * * *}")
+    public void reconcile() {
+        boolean seeding = !seeded;
+        StringBuilder drifted = new StringBuilder();
+        reconcile(Counter.BOOKS, bookRepository::count, seeding, drifted);
+        reconcile(Counter.MEMBERS, memberRepository::count, seeding, drifted);
+        reconcile(Counter.USERS, userRepository::count, seeding, drifted);
+        reconcile(Counter.ACTIVE_LOANS,
+                () -> borrowRecordRepository.countByStatus(BorrowRecord.RecordStatus.ACTIVE), seeding, drifted);
+        reconcile(Counter.OVERDUE_LOANS,
+                () -> borrowRecordRepository.countByStatus(BorrowRecord.RecordStatus.OVERDUE), seeding, drifted);
+        seeded = true;
+        lastReconciledAt = LocalDateTime.now();
+
+        if (seeding) {
+            System.out.println("🔢 Dashboard counters seeded");
+        } else if (!drifted.isEmpty()) {
+            System.out.println("⚠️ Dashboard counters drifted, corrected:" + drifted);
+        }
+    }
+
+    private void reconcile(Counter counter, LongSupplier query, boolean seeding, StringBuilder drifted) {
+        LongAdder adder = counts.get(counter);
+        long before = adder.sum();
+        long actual = query.getAsLong();
+        if (adder.sum() != before && !seeding) {
+            return;
+        }
+        long correction = actual - before;
+        adder.add(correction);
+        if (seeding) {
+            return;
+        }
+        lastDrift.get(counter).set(correction);
+        if (correction != 0) {
+            totalDrift.get(counter).addAndGet(Math.abs(correction));
+            drifted.append(' ').append(counter).append(correction > 0 ? " +" : " ").append(correction);
+        }
+    }
+}
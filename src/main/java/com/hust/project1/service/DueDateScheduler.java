@@ -0,0 +1,174 @@
+package com.hust.project1.service;
+
+import com.hust.project1.entity.BorrowRecord;
+import com.hust.project1.repository.BorrowRecordRepository;
+import com.hust.project1.service.DashboardCounters.Counter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * In-memory timer of due dates for open borrow records.
+ * Records are kept in one bucket per due date (a day-granularity timer wheel),
+ * so at the day boundary only the records that just became overdue are touched
+ * instead of rescanning the whole borrow_records table.
+ */
+@Service
+public class DueDateScheduler {
+
+    // Records flipped per bulk UPDATE when a bucket fires
+    private static final int FIRE_BATCH_SIZE = 200;
+
+    // Records loaded per query when building the timer at startup
+    private static final int LOAD_CHUNK_SIZE = 5000;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private FineLedgerService fineLedgerService;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private CirculationRollupService circulationRollupService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Due date -> IDs of ACTIVE records due that day (guarded by "this")
+    private final TreeMap<LocalDate, Set<Long>> buckets = new TreeMap<>();
+
+    // Record ID -> bucket it sits in, so cancel() is O(1)
+    private final Map<Long, LocalDate> dueDates = new HashMap<>();
+
+    /**
+     * Build the timer from all ACTIVE records, then fire anything that fell due while the app was down
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOpenRecords() {
+        Pageable chunk = PageRequest.of(0, LOAD_CHUNK_SIZE);
+        long afterId = 0L;
+        int loaded = 0;
+        List<Object[]> rows;
+        while (!(rows = borrowRecordRepository.findIdAndDueDateByStatusAndIdGreaterThan(
+                BorrowRecord.RecordStatus.ACTIVE, afterId, chunk)).isEmpty()) {
+            synchronized (this) {
+                for (Object[] row : rows) {
+                    add((Long) row[0], (LocalDate) row[1]);
+                }
+            }
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+            loaded += rows.size();
+        }
+        System.out.println("🕐 Due date timer loaded " + loaded + " open borrow records");
+        fireDueRecords();
+    }
+
+    /**
+     * Track a newly created record (applied after the creating transaction commits)
+     */
+    public void schedule(Long recordId, LocalDate dueDate) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                add(recordId, dueDate);
+            }
+        });
+    }
+
+    /**
+     * Stop tracking a record that was returned or deleted
+     */
+    public void cancel(Long recordId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                LocalDate dueDate = dueDates.remove(recordId);
+                if (dueDate != null) {
+                    Set<Long> bucket = buckets.get(dueDate);
+                    bucket.remove(recordId);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(dueDate);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Fire at the day boundary: every record due before today becomes OVERDUE.
+     * The UPDATE only touches rows that are still ACTIVE, so a stale entry is harmless.
+     */
+    @Scheduled(cron = "${library.overdue.timer-cron:1 0 0 * * *}")
+    public void fireDueRecords() {
+        LocalDate today = LocalDate.now();
+        List<Long> due = new ArrayList<>();
+        synchronized (this) {
+            SortedMap<LocalDate, Set<Long>> expired = buckets.headMap(today);
+            for (Set<Long> bucket : expired.values()) {
+                due.addAll(bucket);
+                bucket.forEach(dueDates::remove);
+            }
+            expired.clear();
+        }
+
+        int flipped = 0;
+        for (int from = 0; from < due.size(); from += FIRE_BATCH_SIZE) {
+            List<Long> batch = due.subList(from, Math.min(from + FIRE_BATCH_SIZE, due.size()));
+            flipped += markOverdue(batch);
+            fineLedgerService.accrueLateFines(batch, FineCalculator.LATE_FINE_PER_DAY, today);
+        }
+
+        if (flipped > 0) {
+            System.out.println("✅ Due date timer marked " + flipped + " records overdue");
+        }
+    }
+
+    /**
+     * Flip the given records from ACTIVE to OVERDUE in one transaction, counting them in the circulation
+     * rollup and the dashboard. The rows are locked first so the rollup counts exactly the records flipped here.
+     * Returns the number of records flipped.
+     */
+    public int markOverdue(List<Long> recordIds) {
+        Integer updated = transactionTemplate.execute(status -> {
+            List<Long> locked = borrowRecordRepository.lockIdsByIdInAndStatus(recordIds,
+                    BorrowRecord.RecordStatus.ACTIVE.name());
+            if (locked.isEmpty()) {
+                return 0;
+            }
+            int count = borrowRecordRepository.updateStatusByIds(locked,
+                    BorrowRecord.RecordStatus.ACTIVE, BorrowRecord.RecordStatus.OVERDUE);
+            circulationRollupService.recordOverdue(locked);
+            dashboardCounters.move(Counter.ACTIVE_LOANS, Counter.OVERDUE_LOANS, count);
+            return count;
+        });
+        return updated == null ? 0 : updated;
+    }
+
+    /**
+     * Number of records currently tracked
+     */
+    public synchronized int size() {
+        return dueDates.size();
+    }
+
+    private void add(Long recordId, LocalDate dueDate) {
+        LocalDate previous = dueDates.put(recordId, dueDate);
+        if (previous != null && !previous.equals(dueDate)) {
+            Set<Long> bucket = buckets.get(previous);
+            bucket.remove(recordId);
+            if (bucket.isEmpty()) {
+                buckets.remove(previous);
+            }
+        }
+        buckets.computeIfAbsent(dueDate, d -> new HashSet<>()).add(recordId);
+    }
+}
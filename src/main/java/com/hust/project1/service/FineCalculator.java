@@ -0,0 +1,73 @@
+package com.hust.project1.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fine arithmetic in whole đồng (VND has no fractional unit).
+ * Works on long values and primitive arrays so whole batches of details can be evaluated
+ * without allocating; BigDecimal only appears at the persistence/view boundary (toDong/toBigDecimal).
+ */
+public final class FineCalculator {
+
+    public static final long LATE_FINE_PER_DAY = 5_000L; // 5,000 VND/day
+    public static final long DAMAGED_FINE = 50_000L; // 50,000 VND
+    public static final long LOST_FINE = 100_000L; // 100,000 VND
+
+    private FineCalculator() {
+    }
+
+    /**
+     * Late fine owed for a loan due on dueEpochDay when it is returned (or evaluated) on epochDay
+     */
+    public static long lateFine(long dueEpochDay, long epochDay) {
+        return epochDay > dueEpochDay ? (epochDay - dueEpochDay) * LATE_FINE_PER_DAY : 0L;
+    }
+
+    public static long lateFine(LocalDate dueDate, LocalDate day) {
+        return lateFine(dueDate.toEpochDay(), day.toEpochDay());
+    }
+
+    /**
+     * Batch evaluation: for every item, the late fine still to charge on epochDay given what was
+     * already accrued. Writes the new accrued totals to accruedOut and the amounts to charge to
+     * chargedOut; returns the sum charged.
+     */
+    public static long chargeLateFines(long[] dueEpochDays, long[] accrued, long epochDay,
+            long[] accruedOut, long[] chargedOut) {
+        long total = 0L;
+        for (int i = 0; i < dueEpochDays.length; i++) {
+            long owed = lateFine(dueEpochDays[i], epochDay);
+            long charged = owed > accrued[i] ? owed - accrued[i] : 0L;
+            accruedOut[i] = charged > 0 ? owed : accrued[i];
+            chargedOut[i] = charged;
+            total += charged;
+        }
+        return total;
+    }
+
+    /**
+     * Sum of a batch of amounts
+     */
+    public static long sum(long[] amounts) {
+        long total = 0L;
+        for (long amount : amounts) {
+            total += amount;
+        }
+        return total;
+    }
+
+    /**
+     * Convert a stored amount to đồng (null counts as zero)
+     */
+    public static long toDong(BigDecimal amount) {
+        return amount != null ? amount.longValue() : 0L;
+    }
+
+    /**
+     * Convert đồng back to the type stored in the database and shown in views
+     */
+    public static BigDecimal toBigDecimal(long dong) {
+        return BigDecimal.valueOf(dong);
+    }
+}
@@ -0,0 +1,159 @@
+package com.hust.project1.service;
+
+import com.hust.project1.entity.BorrowRecordDetail;
+import com.hust.project1.entity.FineBalance;
+import com.hust.project1.entity.FineTransaction;
+import com.hust.project1.entity.FineTransaction.TransactionType;
+import com.hust.project1.repository.BorrowRecordDetailRepository;
+import com.hust.project1.repository.FineBalanceRepository;
+import com.hust.project1.repository.FineTransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Append-only fine ledger.
+ * Every assessment, payment and waiver is one fine_transactions row; per-member and global
+ * totals in fine_balances are bumped in the same transaction, so financial statistics are
+ * single-row reads instead of scans over borrow_record_details.
+ */
+@Service
+@Transactional
+public class FineLedgerService {
+
+    @Autowired
+    private FineTransactionRepository fineTransactionRepository;
+
+    @Autowired
+    private FineBalanceRepository fineBalanceRepository;
+
+    @Autowired
+    private BorrowRecordDetailRepository borrowRecordDetailRepository;
+
+    @Autowired
+    private MemberStandingService memberStandingService;
+
+    @Autowired
+    private CirculationRollupService circulationRollupService;
+
+    /**
+     * Build a ledger entry for a borrow record detail
+     */
+    public FineTransaction entry(TransactionType type, BorrowRecordDetail detail, long amount, String note) {
+        FineTransaction tx = new FineTransaction();
+        tx.setBorrowRecordDetailId(detail.getId());
+        tx.setBorrowRecordId(detail.getBorrowRecord().getId());
+        tx.setMemberId(detail.getBorrowRecord().getMember().getId());
+        tx.setType(type);
+        tx.setAmount(FineCalculator.toBigDecimal(amount));
+        tx.setNote(note);
+        return tx;
+    }
+
+    /**
+     * Append entries as one batch and add them to the member and global running totals
+     * (and to the daily circulation rollup)
+     */
+    public void append(List<FineTransaction> transactions) {
+        List<FineTransaction> entries = transactions.stream()
+                .filter(tx -> tx.getAmount() != null && tx.getAmount().signum() > 0)
+                .toList();
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        fineTransactionRepository.batchAppend(entries);
+        circulationRollupService.recordFines(entries);
+
+        // Aggregate per member first: one upsert per member plus one for the global row
+        Map<Long, long[]> totals = new HashMap<>();
+        for (FineTransaction tx : entries) {
+            addTo(totals.computeIfAbsent(tx.getMemberId(), id -> zeros()), tx);
+            addTo(totals.computeIfAbsent(FineBalance.GLOBAL, id -> zeros()), tx);
+        }
+        totals.forEach((memberId, t) -> fineBalanceRepository.addToBalance(memberId, t[0], t[1], t[2]));
+    }
+
+    /**
+     * Accrue late fines for one chunk of overdue records: ledger entries and balances for the
+     * amounts not yet accrued, then the detail rows and the members' standing - all in one transaction
+     */
+    public int accrueLateFines(List<Long> recordIds, long finePerDay, LocalDate today) {
+        fineTransactionRepository.appendAccruedLateFines(recordIds, finePerDay, today);
+        fineBalanceRepository.addAccruedLateFinesPerMember(recordIds, finePerDay, today);
+        fineBalanceRepository.addAccruedLateFinesGlobal(recordIds, finePerDay, today);
+        circulationRollupService.recordAccruedLateFines(recordIds, finePerDay, today);
+        int accrued = borrowRecordDetailRepository.accrueLateFines(recordIds, finePerDay, today);
+        memberStandingService.refreshByBorrowRecordIds(recordIds);
+        return accrued;
+    }
+
+    /**
+     * Library-wide totals
+     */
+    @Transactional(readOnly = true)
+    public FineBalance getGlobalBalance() {
+        return getMemberBalance(FineBalance.GLOBAL);
+    }
+
+    /**
+     * Totals of one member (zeros if the member never had a fine)
+     */
+    @Transactional(readOnly = true)
+    public FineBalance getMemberBalance(Long memberId) {
+        return fineBalanceRepository.findById(memberId)
+                .orElseGet(() -> {
+                    FineBalance empty = new FineBalance();
+                    empty.setMemberId(memberId);
+                    return empty;
+                });
+    }
+
+    /**
+     * Ledger history of a borrow record
+     */
+    @Transactional(readOnly = true)
+    public List<FineTransaction> findByBorrowRecordId(Long recordId) {
+        return fineTransactionRepository.findByBorrowRecordIdOrderById(recordId);
+    }
+
+    /**
+     * When the ledger is introduced on an existing database, record the fines that are
+     * currently outstanding as opening balances (amounts paid before that were never stored)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeOpeningBalances() {
+        if (fineBalanceRepository.count() > 0 || fineTransactionRepository.count() > 0) {
+            return;
+        }
+        fineTransactionRepository.appendOpeningBalances();
+        List<FineTransaction> opening = fineTransactionRepository.findAll();
+        Map<Long, long[]> totals = new HashMap<>();
+        for (FineTransaction tx : opening) {
+            addTo(totals.computeIfAbsent(tx.getMemberId(), id -> zeros()), tx);
+            addTo(totals.computeIfAbsent(FineBalance.GLOBAL, id -> zeros()), tx);
+        }
+        totals.forEach((memberId, t) -> fineBalanceRepository.addToBalance(memberId, t[0], t[1], t[2]));
+        if (!opening.isEmpty()) {
+            System.out.println("✅ Fine ledger initialized with " + opening.size() + " opening balances");
+        }
+    }
+
+    private static long[] zeros() {
+        return new long[3];
+    }
+
+    private static void addTo(long[] totals, FineTransaction tx) {
+        int slot = switch (tx.getType()) {
+            case ASSESS -> 0;
+            case PAY -> 1;
+            case WAIVE -> 2;
+        };
+        totals[slot] += FineCalculator.toDong(tx.getAmount());
+    }
+}
@@ -0,0 +1,410 @@
+package com.hust.project1.service;
+
+import com.hust.project1.entity.Member;
+import com.hust.project1.repository.MemberRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory trigram index for member lookup at the desk (substring match on name, code, email, phone).
+ * Text is folded (case, Vietnamese diacritics), so "nguyen van an" finds "Nguyễn Văn An".
+ * Members are numbered with dense int document numbers in ID order; each trigram keeps a sorted
+ * int[] of documents. A query intersects the postings of its trigrams and verifies the few
+ * remaining candidates against the stored folded text.
+ */
+@Service
+public class MemberSearchIndex {
+
+    // Members loaded per query while rebuilding
+    private static final int REBUILD_CHUNK_SIZE = 5000;
+
+    // Candidate count below which the remaining trigram lists are not intersected any more
+    private static final int VERIFY_THRESHOLD = 32;
+
+    // Above this length ratio a short list probes the long one by binary search instead of merging
+    private static final int MERGE_RATIO = 16;
+
+    // Separates the fields inside a document's folded text (never produced by folding)
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    public enum Field {
+        FULL_NAME,
+        MEMBER_CODE,
+        EMAIL,
+        PHONE
+    }
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Field + trigram -> documents containing it (guarded by lock)
+    private final Map<Long, Postings> trigrams = new HashMap<>();
+
+    // Member ID -> document number (guarded by lock)
+    private final Map<Long, Integer> documents = new HashMap<>();
+
+    // Per document: member ID (0 once deleted), folded fields joined by FIELD_SEPARATOR, status
+    private long[] memberIds = new long[1024];
+    private String[] texts = new String[1024];
+    private Member.MemberStatus[] statuses = new Member.MemberStatus[1024];
+    private int documentCount;
+
+    private volatile boolean ready;
+
+    /**
+     * Load every member from the database, chunk by chunk
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            trigrams.clear();
+            documents.clear();
+            memberIds = new long[1024];
+            texts = new String[1024];
+            statuses = new Member.MemberStatus[1024];
+            documentCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Pageable chunk = PageRequest.of(0, REBUILD_CHUNK_SIZE);
+        long afterId = 0L;
+        List<Member> page;
+        while (!(page = memberRepository.findByIdGreaterThanOrderByIdAsc(afterId, chunk)).isEmpty()) {
+            page.forEach(this::put);
+            afterId = page.get(page.size() - 1).getId();
+        }
+        ready = true;
+        System.out.println("🔍 Member search index built with " + size() + " members");
+    }
+
+    /**
+     * Whether the index holds all members (false while rebuilding)
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a member
+     */
+    public void put(Member member) {
+        String[] values = new String[Field.values().length];
+        values[Field.FULL_NAME.ordinal()] = fold(member.getFullName());
+        values[Field.MEMBER_CODE.ordinal()] = fold(member.getMemberCode());
+        values[Field.EMAIL.ordinal()] = fold(member.getEmail());
+        values[Field.PHONE.ordinal()] = fold(member.getPhone());
+        String text = String.join(String.valueOf(FIELD_SEPARATOR), values);
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = documents.get(member.getId());
+            int document;
+            if (existing != null) {
+                document = existing;
+                forEachTrigram(texts[document], key -> {
+                    Postings postings = trigrams.get(key);
+                    if (postings != null && postings.remove(document) && postings.size == 0) {
+                        trigrams.remove(key);
+                    }
+                });
+            } else {
+                document = documentCount++;
+                ensureCapacity(documentCount);
+                documents.put(member.getId(), document);
+            }
+            memberIds[document] = member.getId();
+            texts[document] = text;
+            statuses[document] = member.getStatus();
+            forEachTrigram(text, key -> trigrams.computeIfAbsent(key, k -> new Postings()).add(document));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a member (no-op if it is not indexed). The document number is not reused.
+     */
+    public void remove(Long memberId) {
+        lock.writeLock().lock();
+        try {
+            Integer document = documents.remove(memberId);
+            if (document == null) {
+                return;
+            }
+            forEachTrigram(texts[document], key -> {
+                Postings postings = trigrams.get(key);
+                if (postings != null && postings.remove(document) && postings.size == 0) {
+                    trigrams.remove(key);
+                }
+            });
+            memberIds[document] = 0L;
+            texts[document] = null;
+            statuses[document] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of the members whose fields contain all given substrings (null/blank filters are ignored)
+     * and whose status matches, newest first
+     */
+    public Page<Long> search(Map<Field, String> filters, String status, Pageable pageable) {
+        Map<Field, String> queries = new EnumMap<>(Field.class);
+        filters.forEach((field, value) -> {
+            String folded = fold(value);
+            if (!folded.isEmpty()) {
+                queries.put(field, folded);
+            }
+        });
+
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidates(queries);
+            List<Long> ids = new ArrayList<>(pageable.getPageSize());
+            long skip = pageable.getOffset();
+            int total = 0;
+            // Document numbers follow member IDs, so walking backwards yields newest first
+            for (int i = candidates.length - 1; i >= 0; i--) {
+                int document = candidates[i];
+                if (memberIds[document] == 0L || !matches(document, queries, status)) {
+                    continue;
+                }
+                if (total >= skip && ids.size() < pageable.getPageSize()) {
+                    ids.add(memberIds[document]);
+                }
+                total++;
+            }
+            return new PageImpl<>(ids, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Typeahead: IDs of up to limit members, newest first, whose name, code, email or phone
+     * contains the query and whose status matches
+     */
+    public List<Long> suggest(String query, String status, int limit) {
+        String folded = fold(query);
+        if (folded.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (folded.length() < 3) {
+                // No trigram to narrow with: one newest-first pass over the whole folded text
+                // (the query holds no separator, so a hit never spans two fields)
+                List<Long> ids = new ArrayList<>(limit);
+                for (int document = documentCount - 1; document >= 0 && ids.size() < limit; document--) {
+                    if (memberIds[document] != 0L && matches(document, Map.of(), status)
+                            && texts[document].contains(folded)) {
+                        ids.add(memberIds[document]);
+                    }
+                }
+                return ids;
+            }
+
+            // Each field's newest matches; the newest of their union are the answer
+            TreeSet<Integer> found = new TreeSet<>(Comparator.reverseOrder());
+            for (Field field : Field.values()) {
+                Map<Field, String> queries = Map.of(field, folded);
+                int[] candidates = candidates(queries);
+                int kept = 0;
+                for (int i = candidates.length - 1; i >= 0 && kept < limit; i--) {
+                    int document = candidates[i];
+                    if (memberIds[document] != 0L && matches(document, queries, status)) {
+                        found.add(document);
+                        kept++;
+                    }
+                }
+            }
+            return found.stream().limit(limit).map(document -> memberIds[document]).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documents that may match: the intersection of all query trigrams, smallest posting list first.
+     * Queries shorter than a trigram give no constraint and fall back to checking every document.
+     */
+    private int[] candidates(Map<Field, String> queries) {
+        List<Postings> lists = new ArrayList<>();
+        for (Map.Entry<Field, String> query : queries.entrySet()) {
+            String text = query.getValue();
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                Postings postings = trigrams.get(key(query.getKey(), text, i));
+                if (postings == null) {
+                    return new int[0];
+                }
+                lists.add(postings);
+            }
+        }
+        if (lists.isEmpty()) {
+            int[] all = new int[documentCount];
+            for (int i = 0; i < documentCount; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        lists.sort(Comparator.comparingInt(postings -> postings.size));
+        int[] result = Arrays.copyOf(lists.get(0).documents, lists.get(0).size);
+        int size = result.length;
+        // Once few candidates are left, verifying them is cheaper than probing more lists
+        for (int l = 1; l < lists.size() && size > VERIFY_THRESHOLD; l++) {
+            Postings next = lists.get(l);
+            int kept = 0;
+            if (next.size / MERGE_RATIO <= size) {
+                // Similar lengths: linear merge of the two sorted lists
+                int j = 0;
+                for (int i = 0; i < size && j < next.size; ) {
+                    if (result[i] < next.documents[j]) {
+                        i++;
+                    } else if (result[i] > next.documents[j]) {
+                        j++;
+                    } else {
+                        result[kept++] = result[i++];
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (Arrays.binarySearch(next.documents, 0, next.size, result[i]) >= 0) {
+                        result[kept++] = result[i];
+                    }
+                }
+            }
+            size = kept;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Verify a candidate: every query is a substring of its field, and the status matches
+     */
+    private boolean matches(int document, Map<Field, String> queries, String status) {
+        if (status != null && !status.isEmpty() && !status.equals(statuses[document].name())) {
+            return false;
+        }
+        String text = texts[document];
+        for (Map.Entry<Field, String> query : queries.entrySet()) {
+            int start = fieldStart(text, query.getKey());
+            int end = text.indexOf(FIELD_SEPARATOR, start);
+            int found = text.indexOf(query.getValue(), start);
+            if (found < 0 || found + query.getValue().length() > (end < 0 ? text.length() : end)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int fieldStart(String text, Field field) {
+        int start = 0;
+        for (int i = 0; i < field.ordinal(); i++) {
+            start = text.indexOf(FIELD_SEPARATOR, start) + 1;
+        }
+        return start;
+    }
+
+    private static void forEachTrigram(String text, LongConsumer action) {
+        Set<Long> seen = new HashSet<>();
+        Field[] fields = Field.values();
+        int start = 0;
+        for (Field field : fields) {
+            int end = text.indexOf(FIELD_SEPARATOR, start);
+            if (end < 0) {
+                end = text.length();
+            }
+            for (int i = start; i + 3 <= end; i++) {
+                long key = key(field, text, i);
+                if (seen.add(key)) {
+                    action.accept(key);
+                }
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Field and three 16-bit chars packed into one long
+     */
+    private static long key(Field field, String text, int i) {
+        return ((long) field.ordinal() << 48) | ((long) text.charAt(i) << 32)
+                | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    /**
+     * Folded text with runs of whitespace collapsed, so spacing does not affect matching
+     */
+    private static String fold(String value) {
+        return String.join(" ", TextNormalizer.fold(value).trim().split("\\s+"));
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > memberIds.length) {
+            int newLength = Math.max(capacity, memberIds.length * 2);
+            memberIds = Arrays.copyOf(memberIds, newLength);
+            texts = Arrays.copyOf(texts, newLength);
+            statuses = Arrays.copyOf(statuses, newLength);
+        }
+    }
+
+    /**
+     * Sorted document numbers containing one trigram
+     */
+    private static final class Postings {
+
+        private int[] documents = new int[2];
+        private int size;
+
+        private void add(int document) {
+            int i = Arrays.binarySearch(documents, 0, size, document);
+            if (i >= 0) {
+                return;
+            }
+            i = -i - 1;
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            System.arraycopy(documents, i, documents, i + 1, size - i);
+            documents[i] = document;
+            size++;
+        }
+
+        private boolean remove(int document) {
+            int i = Arrays.binarySearch(documents, 0, size, document);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(documents, i + 1, documents, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+}
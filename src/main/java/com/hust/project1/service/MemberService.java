@@ -1,14 +1,25 @@
 package com.hust.project1.service;
 
+import com.hust.project1.dto.CursorPage;
+import com.hust.project1.dto.PageCursor;
 import com.hust.project1.entity.Member;
 import com.hust.project1.repository.MemberRepository;
+import com.hust.project1.repository.SearchSpecifications;
+import com.hust.project1.service.MemberSearchIndex.Field;
+import com.hust.project1.service.DashboardCounters.Counter;
+import com.hust.project1.service.UniquenessGuard.KeySpace;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
-import java.util.Optional;
+import java.util.*;
 
 @Service
 @Transactional
@@ -17,6 +28,21 @@ public class MemberService {
     @Autowired
     private MemberRepository memberRepository;
 
+    @Autowired
+    private MemberStandingService memberStandingService;
+
+    @Autowired
+    private MemberSearchIndex memberSearchIndex;
+
+    @Autowired
+    private CountCache countCache;
+
+    @Autowired
+    private UniquenessGuard uniquenessGuard;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
     /**
      * Get all members with pagination
      */
@@ -35,7 +61,18 @@ public class MemberService {
      * Create or update member
      */
     public Member save(Member member) {
-        return memberRepository.save(member);
+        boolean created = member.getId() == null;
+        Member saved = memberRepository.save(member);
+        if (created) {
+            dashboardCounters.add(Counter.MEMBERS, 1);
+        }
+        uniquenessGuard.add(KeySpace.MEMBER_CODE, saved.getMemberCode());
+        uniquenessGuard.add(KeySpace.MEMBER_EMAIL, saved.getEmail());
+        // Status and expiry date are part of the member's standing
+        memberStandingService.refresh(saved.getId());
+        AfterCommit.run(() -> memberSearchIndex.put(saved));
+        countCache.invalidate("members");
+        return saved;
     }
 
     /**
@@ -43,43 +80,119 @@ public class MemberService {
      */
     public void deleteById(Long id) {
         memberRepository.deleteById(id);
+        memberStandingService.remove(id);
+        AfterCommit.run(() -> memberSearchIndex.remove(id));
+        countCache.invalidate("members");
+        dashboardCounters.add(Counter.MEMBERS, -1);
     }
 
     /**
-     * Search members with multiple criteria
+     * Search members with multiple criteria (substring match, ignoring case and diacritics).
+     * Text filters are answered by the in-memory trigram index, newest first;
+     * a status-only filter, or a search while the index is being built, goes to the database.
+     * A complete member code on its own (e.g. scanned from a card) is looked up directly on the unique index.
      */
     public Page<Member> searchMembers(String fullName, String memberCode, String email,
             String phone, String status, Pageable pageable) {
-        return memberRepository.searchCombined(fullName, memberCode, email, phone, status, pageable);
+        boolean hasText = StringUtils.hasText(fullName) || StringUtils.hasText(memberCode)
+                || StringUtils.hasText(email) || StringUtils.hasText(phone);
+        boolean onlyCode = StringUtils.hasText(memberCode) && !StringUtils.hasText(fullName)
+                && !StringUtils.hasText(email) && !StringUtils.hasText(phone);
+        if (onlyCode && memberRepository.existsByMemberCode(memberCode.trim())) {
+            return memberRepository.findAll(
+                    SearchSpecifications.members(null, memberCode, true, null, null, status), pageable);
+        }
+        if (!hasText || !memberSearchIndex.isReady()) {
+            return memberRepository.findAll(
+                    SearchSpecifications.members(fullName, memberCode, false, email, phone, status), pageable);
+        }
+
+        Map<Field, String> filters = new EnumMap<>(Field.class);
+        filters.put(Field.FULL_NAME, fullName);
+        filters.put(Field.MEMBER_CODE, memberCode);
+        filters.put(Field.EMAIL, email);
+        filters.put(Field.PHONE, phone);
+        Page<Long> ids = memberSearchIndex.search(filters, status, pageable);
+
+        Map<Long, Member> byId = new HashMap<>();
+        for (Member member : memberRepository.findAllById(ids.getContent())) {
+            byId.put(member.getId(), member);
+        }
+        List<Member> members = ids.getContent().stream().map(byId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(members, pageable, ids.getTotalElements());
+    }
+
+    /**
+     * Search members for the member list: keyset pagination newest first, or offset pages of
+     * index results when searching by text
+     */
+    public CursorPage<Member> searchMembers(String fullName, String memberCode, String email,
+            String phone, String status, PageCursor cursor, int size) {
+        boolean hasText = StringUtils.hasText(fullName) || StringUtils.hasText(memberCode)
+                || StringUtils.hasText(email) || StringUtils.hasText(phone);
+        if (!hasText) {
+            Specification<Member> filter = SearchSpecifications.members(null, null, false, null, null, status);
+            List<Member> rows = Seek.byId(memberRepository, filter, cursor, size);
+            long total = countCache.get("members|" + status, () -> memberRepository.count(filter));
+            return CursorPage.fromSeek(rows, size, cursor, member -> "", Member::getId, total);
+        }
+
+        long offset = PageCursor.offsetOf(cursor);
+        Page<Member> page = searchMembers(fullName, memberCode, email, phone, status,
+                PageRequest.of((int) (offset / size), size, Sort.by("id").descending()));
+        return CursorPage.fromOffset(page.getContent(), offset, size, page.getTotalElements());
+    }
+
+    /**
+     * Typeahead lookup: up to limit members, newest first, whose name, code, email or phone
+     * contains the query (status optional)
+     */
+    @Transactional(readOnly = true)
+    public List<Member> suggestMembers(String query, Member.MemberStatus status, int limit) {
+        if (!StringUtils.hasText(query)) {
+            return List.of();
+        }
+        if (!memberSearchIndex.isReady()) {
+            return memberRepository.findAll(SearchSpecifications.memberLookup(query, status),
+                    PageRequest.of(0, limit, Sort.by("id").descending())).getContent();
+        }
+
+        List<Long> ids = memberSearchIndex.suggest(query, status != null ? status.name() : null, limit);
+        Map<Long, Member> byId = new HashMap<>();
+        for (Member member : memberRepository.findAllById(ids)) {
+            byId.put(member.getId(), member);
+        }
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
     /**
-     * Check if member code exists
+     * Check if member code exists (a definitely new code is answered without a query)
      */
     public boolean existsByMemberCode(String memberCode) {
-        return memberRepository.existsByMemberCode(memberCode);
+        return uniquenessGuard.mightExist(KeySpace.MEMBER_CODE, memberCode)
+                && memberRepository.existsByMemberCode(memberCode);
     }
 
     /**
      * Check if member code exists for a different member (for edit validation)
      */
     public boolean existsByMemberCodeAndIdNot(String memberCode, Long id) {
-        Optional<Member> existing = memberRepository.findByMemberCode(memberCode);
-        return existing.isPresent() && !existing.get().getId().equals(id);
+        return uniquenessGuard.mightExist(KeySpace.MEMBER_CODE, memberCode)
+                && memberRepository.existsByMemberCodeAndIdNot(memberCode, id);
     }
 
     /**
-     * Check if email exists
+     * Check if email exists (a definitely new email is answered without a query)
      */
     public boolean existsByEmail(String email) {
-        return memberRepository.existsByEmail(email);
+        return uniquenessGuard.mightExist(KeySpace.MEMBER_EMAIL, email) && memberRepository.existsByEmail(email);
     }
 
     /**
      * Check if email exists for a different member (for edit validation)
      */
     public boolean existsByEmailAndIdNot(String email, Long id) {
-        Optional<Member> existing = memberRepository.findByEmail(email);
-        return existing.isPresent() && !existing.get().getId().equals(id);
+        return uniquenessGuard.mightExist(KeySpace.MEMBER_EMAIL, email)
+                && memberRepository.existsByEmailAndIdNot(email, id);
     }
 }
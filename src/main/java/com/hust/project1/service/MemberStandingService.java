@@ -0,0 +1,178 @@
+package com.hust.project1.service;
+
+import com.hust.project1.entity.Member;
+import com.hust.project1.entity.MemberStanding;
+import com.hust.project1.event.CirculationEvent;
+import com.hust.project1.event.CirculationEventHandler;
+import com.hust.project1.repository.MemberRepository;
+import com.hust.project1.repository.MemberStandingRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the member_standing projection and answers checkout eligibility from it.
+ * Changes that can block a member (checkout, lost/damaged copy, overdue sweep, a return charged a
+ * late fine) refresh it in the same transaction; on-time returns and fine payments only ever unblock,
+ * so they reach it through the circulation event bus.
+ */
+@Service
+@Transactional
+public class MemberStandingService implements CirculationEventHandler {
+
+    // Members recomputed per transaction when rebuilding the projection
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private MemberStandingRepository memberStandingRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Recompute the standing of one member (call after the member's loans/fines changed)
+     */
+    public void refresh(Long memberId) {
+        refresh(Set.of(memberId));
+    }
+
+    /**
+     * Recompute the standing of several members in one statement
+     */
+    public void refresh(Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        // The refresh reads the source tables, so pending entity changes must hit the database first
+        memberStandingRepository.flush();
+        memberStandingRepository.refresh(memberIds);
+    }
+
+    /**
+     * Recompute the standing of the members owning the given borrow records
+     */
+    public void refreshByBorrowRecordIds(Collection<Long> recordIds) {
+        if (recordIds.isEmpty()) {
+            return;
+        }
+        refresh(memberStandingRepository.findMemberIdsByBorrowRecordIds(recordIds));
+    }
+
+    @Override
+    public String handlerName() {
+        return "member-standing";
+    }
+
+    /**
+     * Refresh the members touched by a batch of circulation events
+     */
+    @Override
+    public void handle(List<CirculationEvent> events) {
+        refresh(events.stream().map(CirculationEvent::memberId).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Drop the standing of a deleted member
+     */
+    public void remove(Long memberId) {
+        if (memberStandingRepository.existsById(memberId)) {
+            memberStandingRepository.deleteById(memberId);
+        }
+    }
+
+    /**
+     * Get the standing of a member, computing it on first use
+     */
+    public MemberStanding getStanding(Long memberId) {
+        return memberStandingRepository.findById(memberId).orElseGet(() -> {
+            refresh(memberId);
+            return memberStandingRepository.findById(memberId)
+                    .orElseThrow(() -> new RuntimeException("Không tìm thấy độc giả!"));
+        });
+    }
+
+    /**
+     * Check that a member may borrow books (single read of the standing row).
+     * Before refusing, the row is recomputed once: a return or payment may not have been projected yet.
+     */
+    public void checkEligibility(Long memberId) {
+        MemberStanding standing = getStanding(memberId);
+        if (standing.getMemberStatus() != Member.MemberStatus.ACTIVE
+                || standing.getExpiryDate().isBefore(LocalDate.now()) || standing.isBlacklisted()) {
+            refresh(memberId);
+            entityManager.refresh(standing);
+        }
+        if (standing.getMemberStatus() != Member.MemberStatus.ACTIVE) {
+            throw new RuntimeException("Độc giả không ở trạng thái hoạt động (" + standing.getMemberStatus() + ")!");
+        }
+        if (standing.getExpiryDate().isBefore(LocalDate.now())) {
+            throw new RuntimeException("Thẻ độc giả đã hết hạn!");
+        }
+        if (standing.isBlacklisted()) {
+            throw new RuntimeException("Độc giả đang có sách quá hạn hoặc tiền phạt chưa thanh toán!");
+        }
+    }
+
+    /**
+     * Consistency check: recompute every member's standing in bulk, chunk by chunk,
+     * and report how many stored rows had drifted from the source tables.
+     * Runs at startup when the projection is incomplete and nightly as a safety net.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Scheduled(cron = "${library.standing.check-cron:0 0 3 * * *}")
+    public int rebuildAndDiff() {
+        Pageable chunk = PageRequest.of(0, REBUILD_CHUNK_SIZE);
+        long afterId = 0L;
+        int checked = 0;
+        int drifted = 0;
+        List<Long> ids;
+        while (!(ids = memberRepository.findIdsByIdGreaterThan(afterId, chunk)).isEmpty()) {
+            List<Long> memberIds = ids;
+            Integer changed = transactionTemplate.execute(status -> {
+                int count = memberStandingRepository.findDrifted(memberIds).size();
+                memberStandingRepository.refresh(memberIds);
+                return count;
+            });
+            drifted += changed != null ? changed : 0;
+            checked += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        Integer orphans = transactionTemplate.execute(status -> memberStandingRepository.deleteOrphans());
+
+        System.out.println("🔎 Member standing check: " + checked + " members, " + drifted + " drifted, "
+                + (orphans != null ? orphans : 0) + " orphan rows removed");
+        return drifted;
+    }
+
+    /**
+     * Build the projection on startup if it is missing rows (e.g. first deployment)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void initialize() {
+        if (memberStandingRepository.count() != memberRepository.count()) {
+            rebuildAndDiff();
+        }
+    }
+}
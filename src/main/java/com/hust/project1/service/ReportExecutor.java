@@ -0,0 +1,134 @@
+package com.hust.project1.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs the independent parts of a report concurrently, one virtual thread each.
+ * A fan-out forks every subtask, joins them against one deadline and cancels whatever is still
+ * running at the deadline; a subtask that failed or timed out is replaced by its fallback value,
+ * so the caller always gets a (possibly partial) result on time.
+ * Database queries go through a semaphore sized from the connection pool, so a report never takes
+ * every connection away from the circulation desk.
+ */
+@Service
+public class ReportExecutor {
+
+    /**
+     * One named part of a report, and the value used when it fails or times out
+     */
+    public record Subtask(String name, Callable<?> task, Object fallback) {
+    }
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    // 0 = half of the connection pool
+    @Value("${library.reports.db-permits:0}")
+    private int dbPermits;
+
+    @Value("${library.reports.section-timeout-ms:5000}")
+    private long sectionTimeoutMs;
+
+    // Kill switch (and baseline for benchmarks): run every subtask inline, one after another
+    @Value("${library.reports.parallel:true}")
+    private volatile boolean parallel;
+
+    // Whole sections wait this much longer than their own subtasks, which always finish by the section timeout
+    private static final long SECTION_GRACE_MS = 1000;
+
+    private final ExecutorService threads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("report-", 0).factory());
+
+    private Semaphore connections;
+
+    @PostConstruct
+    void init() {
+        connections = new Semaphore(dbPermits > 0 ? dbPermits : Math.max(1, poolSize / 2));
+    }
+
+    @PreDestroy
+    void stop() {
+        threads.shutdownNow();
+    }
+
+    /**
+     * Run the subtasks concurrently and collect their results by name, waiting at most the section timeout.
+     * Failed or timed out subtasks get their fallback value.
+     */
+    public Map<String, Object> fanOut(List<Subtask> subtasks) {
+        return fanOut(subtasks, sectionTimeoutMs);
+    }
+
+    /**
+     * Like fanOut, for subtasks that are whole sections fanning out their own queries
+     */
+    public Map<String, Object> fanOutSections(List<Subtask> sections) {
+        return fanOut(sections, sectionTimeoutMs + SECTION_GRACE_MS);
+    }
+
+    private Map<String, Object> fanOut(List<Subtask> subtasks, long timeoutMs) {
+        Map<String, Object> results = new HashMap<>();
+        if (!parallel) {
+            for (Subtask subtask : subtasks) {
+                results.put(subtask.name(), runInline(subtask));
+            }
+            return results;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Map<Subtask, Future<?>> forked = new LinkedHashMap<>();
+        for (Subtask subtask : subtasks) {
+            forked.put(subtask, threads.submit(subtask.task()));
+        }
+        for (Map.Entry<Subtask, Future<?>> entry : forked.entrySet()) {
+            Subtask subtask = entry.getKey();
+            Future<?> future = entry.getValue();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                results.put(subtask.name(), future.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                results.put(subtask.name(), subtask.fallback());
+                System.out.println("⏱️ Report part " + subtask.name() + " timed out after " + timeoutMs + " ms");
+            } catch (ExecutionException e) {
+                results.put(subtask.name(), subtask.fallback());
+                System.out.println("❌ Report part " + subtask.name() + " failed: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                // The caller is going away: stop every subtask still running
+                forked.values().forEach(running -> running.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Báo cáo bị hủy", e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Run one database query while holding a connection permit (waits at most the section timeout for one)
+     */
+    public <T> T query(Callable<T> query) throws Exception {
+        if (!connections.tryAcquire(sectionTimeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("Không có kết nối cơ sở dữ liệu rảnh cho báo cáo");
+        }
+        try {
+            return query.call();
+        } finally {
+            connections.release();
+        }
+    }
+
+    private static Object runInline(Subtask subtask) {
+        try {
+            return subtask.task().call();
+        } catch (Exception e) {
+            System.out.println("❌ Report part " + subtask.name() + " failed: " + e.getMessage());
+            return subtask.fallback();
+        }
+    }
+}
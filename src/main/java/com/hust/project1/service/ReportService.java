@@ -3,19 +3,25 @@ package com.hust.project1.service;
 import com.hust.project1.entity.Book;
 import com.hust.project1.entity.BookCopy;
 import com.hust.project1.entity.BorrowRecord;
+import com.hust.project1.entity.FineBalance;
 import com.hust.project1.entity.Member;
 import com.hust.project1.repository.*;
+import com.hust.project1.service.BorrowRankingService.Dimension;
+import com.hust.project1.service.BorrowRankingService.Ranked;
+import com.hust.project1.service.BorrowRankingService.Window;
+import com.hust.project1.service.ReportExecutor.Subtask;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Function;
 
 @Service
 public class ReportService {
 
+    // Places shown in each top list
+    private static final int TOP_N = 10;
+
     @Autowired
     private BookRepository bookRepository;
 
@@ -29,134 +35,130 @@ public class ReportService {
     private BorrowRecordRepository borrowRecordRepository;
 
     @Autowired
-    private BorrowRecordDetailRepository borrowRecordDetailRepository;
+    private FineLedgerService fineLedgerService;
+
+    @Autowired
+    private ReportExecutor reportExecutor;
+
+    @Autowired
+    private BorrowRankingService borrowRankingService;
 
     /**
-     * Get overview statistics
+     * Get overview statistics (the counts run concurrently)
      */
     public Map<String, Object> getOverviewStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-
-        // Total books (distinct titles)
-        long totalBooks = bookRepository.count();
-        stats.put("totalBooks", totalBooks);
-
-        // Total book copies (physical items)
-        long totalCopies = bookCopyRepository.count();
-        stats.put("totalCopies", totalCopies);
-
-        // Currently borrowed books
-        long borrowedBooks = bookCopyRepository.countByStatus(BookCopy.CopyStatus.BORROWED);
-        stats.put("borrowedBooks", borrowedBooks);
-
-        // Overdue books
-        long overdueBooks = borrowRecordRepository.countByStatus(BorrowRecord.RecordStatus.OVERDUE);
-        stats.put("overdueBooks", overdueBooks);
-
-        // Active members
-        long activeMembers = memberRepository.countByStatus(Member.MemberStatus.ACTIVE);
-        stats.put("activeMembers", activeMembers);
-
-        return stats;
+        return reportExecutor.fanOut(List.of(
+                // Total books (distinct titles)
+                new Subtask("totalBooks", () -> reportExecutor.query(bookRepository::count), null),
+                // Total book copies (physical items)
+                new Subtask("totalCopies", () -> reportExecutor.query(bookCopyRepository::count), null),
+                // Currently borrowed books
+                new Subtask("borrowedBooks", () -> reportExecutor.query(
+                        () -> bookCopyRepository.countByStatus(BookCopy.CopyStatus.BORROWED)), null),
+                // Overdue books
+                new Subtask("overdueBooks", () -> reportExecutor.query(
+                        () -> borrowRecordRepository.countByStatus(BorrowRecord.RecordStatus.OVERDUE)), null),
+                // Active members
+                new Subtask("activeMembers", () -> reportExecutor.query(
+                        () -> memberRepository.countByStatus(Member.MemberStatus.ACTIVE)), null)));
     }
 
     /**
-     * Get book statistics
+     * Get book statistics (the queries run concurrently)
      */
     public Map<String, Object> getBookStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-
-        // Top 10 most borrowed books
-        Pageable top10 = PageRequest.of(0, 10);
-        List<Object[]> topBorrowedRaw = bookRepository.findTopBorrowedBooks(top10);
-        List<Map<String, Object>> topBorrowed = new ArrayList<>();
-        for (Object[] row : topBorrowedRaw) {
-            Map<String, Object> item = new HashMap<>();
-            item.put("book", row[0]);
-            item.put("borrowCount", row[1]);
-            topBorrowed.add(item);
-        }
-        stats.put("topBorrowedBooks", topBorrowed);
-
-        // Never borrowed books
-        List<Book> neverBorrowed = bookRepository.findNeverBorrowedBooks();
-        stats.put("neverBorrowedBooks", neverBorrowed);
-
-        // Damaged/Lost books
-        List<BookCopy.CopyStatus> problemStatuses = Arrays.asList(
-                BookCopy.CopyStatus.DAMAGED,
-                BookCopy.CopyStatus.LOST);
-        List<BookCopy> problemBooks = bookCopyRepository.findByStatusIn(problemStatuses);
-        stats.put("damagedLostBooks", problemBooks);
-
-        // Count by status
-        long damagedCount = bookCopyRepository.countByStatus(BookCopy.CopyStatus.DAMAGED);
-        long lostCount = bookCopyRepository.countByStatus(BookCopy.CopyStatus.LOST);
-        stats.put("damagedCount", damagedCount);
-        stats.put("lostCount", lostCount);
-
-        return stats;
+        return reportExecutor.fanOut(List.of(
+                // Top 10 most borrowed books, per window
+                new Subtask("topBorrowedBooks", () -> topLists(Dimension.BOOK,
+                        bookRepository::findAllById, Book::getId, "book"), List.of()),
+                // Never borrowed books
+                new Subtask("neverBorrowedBooks",
+                        () -> reportExecutor.query(bookRepository::findNeverBorrowedBooks), List.of()),
+                // Damaged/Lost books
+                new Subtask("damagedLostBooks", () -> reportExecutor.query(() -> bookCopyRepository.findByStatusIn(
+                        List.of(BookCopy.CopyStatus.DAMAGED, BookCopy.CopyStatus.LOST))), List.of()),
+                // Count by status
+                new Subtask("damagedCount", () -> reportExecutor.query(
+                        () -> bookCopyRepository.countByStatus(BookCopy.CopyStatus.DAMAGED)), null),
+                new Subtask("lostCount", () -> reportExecutor.query(
+                        () -> bookCopyRepository.countByStatus(BookCopy.CopyStatus.LOST)), null)));
     }
 
     /**
-     * Get member statistics
+     * Get member statistics (the queries run concurrently)
      */
     public Map<String, Object> getMemberStatistics() {
-        Map<String, Object> stats = new HashMap<>();
+        return reportExecutor.fanOut(List.of(
+                // Top 10 active members, per window
+                new Subtask("topActiveMembers", () -> topLists(Dimension.MEMBER,
+                        memberRepository::findAllById, Member::getId, "member"), List.of()),
+                // Blacklist members (with fines or overdue)
+                new Subtask("blacklistMembers",
+                        () -> reportExecutor.query(memberRepository::findBlacklistMembers), List.of())));
+    }
 
-        // Top 10 active members
-        Pageable top10 = PageRequest.of(0, 10);
-        List<Object[]> topMembersRaw = memberRepository.findTopActiveMembers(top10);
-        List<Map<String, Object>> topMembers = new ArrayList<>();
-        for (Object[] row : topMembersRaw) {
-            Map<String, Object> item = new HashMap<>();
-            item.put("member", row[0]);
-            item.put("borrowCount", row[1]);
-            topMembers.add(item);
+    /**
+     * Top lists of every window, read from the ranking sketches, as maps for the template:
+     * one entry per window (its days and items), each item an entity and its borrow count.
+     * The entities of all windows are loaded with one primary key lookup.
+     */
+    private <T> List<Map<String, Object>> topLists(Dimension dimension, Function<Collection<Long>, List<T>> loader,
+                                                   Function<T, Long> idOf, String key) throws Exception {
+        Map<Window, List<Ranked>> tops = new EnumMap<>(Window.class);
+        Set<Long> ids = new HashSet<>();
+        for (Window window : Window.values()) {
+            // A few spare places for entities deleted since they were counted
+            List<Ranked> top = borrowRankingService.top(dimension, window, 2 * TOP_N);
+            tops.put(window, top);
+            top.forEach(ranked -> ids.add(ranked.id()));
+        }
+        Map<Long, T> entities = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (T entity : reportExecutor.query(() -> loader.apply(ids))) {
+                entities.put(idOf.apply(entity), entity);
+            }
         }
-        stats.put("topActiveMembers", topMembers);
-
-        // Blacklist members (with fines or overdue)
-        List<Member> blacklist = memberRepository.findBlacklistMembers();
-        stats.put("blacklistMembers", blacklist);
 
-        return stats;
+        List<Map<String, Object>> windows = new ArrayList<>();
+        for (Map.Entry<Window, List<Ranked>> top : tops.entrySet()) {
+            List<Map<String, Object>> items = new ArrayList<>();
+            for (Ranked ranked : top.getValue()) {
+                T entity = entities.get(ranked.id());
+                if (entity != null && items.size() < TOP_N) {
+                    Map<String, Object> item = new HashMap<>();
+                    item.put(key, entity);
+                    item.put("borrowCount", ranked.count());
+                    items.add(item);
+                }
+            }
+            Map<String, Object> window = new HashMap<>();
+            window.put("days", top.getKey().getDays());
+            window.put("items", items);
+            windows.add(window);
+        }
+        return windows;
     }
 
     /**
-     * Get financial statistics
+     * Get financial statistics (O(1) read of the running totals kept by the fine ledger)
      */
     public Map<String, Object> getFinancialStatistics() {
         Map<String, Object> stats = new HashMap<>();
 
-        // Total unpaid fines (current fines > 0)
-        BigDecimal unpaidFines = borrowRecordDetailRepository.sumUnpaidFines();
-        stats.put("unpaidFines", unpaidFines != null ? unpaidFines : BigDecimal.ZERO);
+        FineBalance totals = fineLedgerService.getGlobalBalance();
 
-        // Calculate paid fines by finding records with payment notes
-        // When a fine is paid, we set fine to 0 and add "Đã thanh toán tiền phạt" to
-        // notes
-        // So we need to count records that have this note
-        BigDecimal paidFines = borrowRecordDetailRepository.sumPaidFines();
-        stats.put("paidFines", paidFines != null ? paidFines : BigDecimal.ZERO);
+        // Total unpaid fines (assessed, neither paid nor waived)
+        stats.put("unpaidFines", totals.getOutstanding());
 
-        // Total all fines (paid + unpaid)
-        BigDecimal totalFines = (unpaidFines != null ? unpaidFines : BigDecimal.ZERO)
-                .add(paidFines != null ? paidFines : BigDecimal.ZERO);
-        stats.put("totalFines", totalFines);
+        // Paid fines - real amounts from PAY ledger entries
+        stats.put("paidFines", totals.getPaid());
 
-        return stats;
-    }
+        // Waived fines
+        stats.put("waivedFines", totals.getWaived());
 
-    /**
-     * Get all statistics at once
-     */
-    public Map<String, Object> getAllStatistics() {
-        Map<String, Object> allStats = new HashMap<>();
-        allStats.put("overview", getOverviewStatistics());
-        allStats.put("books", getBookStatistics());
-        allStats.put("members", getMemberStatistics());
-        allStats.put("financial", getFinancialStatistics());
-        return allStats;
+        // Total all fines ever assessed
+        stats.put("totalFines", totals.getAssessed());
+
+        return stats;
     }
 }
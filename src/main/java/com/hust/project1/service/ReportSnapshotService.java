@@ -0,0 +1,178 @@
+package com.hust.project1.service;
+
+import com.hust.project1.dto.ReportSection;
+import com.hust.project1.event.CirculationEvent;
+import com.hust.project1.event.CirculationEventHandler;
+import com.hust.project1.service.ReportExecutor.Subtask;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves the reports page from an in-memory snapshot instead of running the aggregates on every hit.
+ * Each section is recomputed in the background: soon after a circulation event changed it
+ * (at most once per min-refresh window) and in any case once it is older than the maximum staleness.
+ * Catalog and member edits are not events, so they show up within the staleness bound.
+ * Readers get the sections as last computed and never wait for a recomputation.
+ * The sections due at a check are computed concurrently through the ReportExecutor.
+ */
+@Service
+public class ReportSnapshotService implements CirculationEventHandler {
+
+    public enum Section {
+        OVERVIEW,
+        BOOKS,
+        MEMBERS,
+        FINANCIAL
+    }
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportExecutor reportExecutor;
+
+    @Value("${library.reports.max-staleness-seconds:300}")
+    private long maxStalenessSeconds;
+
+    @Value("${library.reports.min-refresh-seconds:10}")
+    private long minRefreshSeconds;
+
+    // Last computed sections (each one immutable, replaced as a whole)
+    private final Map<Section, ReportSection> sections = new ConcurrentHashMap<>();
+
+    // Sections changed by an event since they were last computed
+    private final Set<Section> changed = ConcurrentHashMap.newKeySet();
+
+    // One background recomputation at a time, off the scheduler thread
+    private final ExecutorService refresher =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("report-snapshot").factory());
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * Sections computed so far (a section is missing until its first computation finishes)
+     */
+    public Map<Section, ReportSection> getSnapshot() {
+        Map<Section, ReportSection> snapshot = new EnumMap<>(Section.class);
+        snapshot.putAll(sections);
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Compute every section once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        changed.addAll(EnumSet.allOf(Section.class));
+        requestRefresh();
+    }
+
+    /**
+     * Mark sections whose data changed outside the circulation events (recomputed on the next check)
+     */
+    public void invalidate(Section... stale) {
+        changed.addAll(Arrays.asList(stale));
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Recompute the sections that are due, unless a recomputation is still running
+     */
+    @Scheduled(fixedDelayString = "${library.reports.check-ms:5000}")
+    public void requestRefresh() {
+        if (refreshing.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    refreshDue();
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Recompute the due sections, fanned out together (each section also fans out its own queries)
+     */
+    void refreshDue() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Subtask> due = new ArrayList<>();
+        for (Section section : Section.values()) {
+            ReportSection current = sections.get(section);
+            boolean expired = current == null || current.computedAt().isBefore(now.minusSeconds(maxStalenessSeconds));
+            boolean changedSince = changed.contains(section)
+                    && (current == null || current.computedAt().isBefore(now.minusSeconds(minRefreshSeconds)));
+            if (!expired && !changedSince) {
+                continue;
+            }
+            // Cleared first, so an event arriving during the computation marks the section again
+            changed.remove(section);
+            due.add(new Subtask(section.name(), () -> compute(section), null));
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime computedAt = LocalDateTime.now();
+        Map<String, Object> results = reportExecutor.fanOutSections(due);
+        for (Subtask subtask : due) {
+            Section section = Section.valueOf(subtask.name());
+            if (results.get(subtask.name()) instanceof Map<?, ?> stats) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> computed = (Map<String, Object>) stats;
+                sections.put(section, new ReportSection(computed, computedAt));
+            } else {
+                // Failed or timed out (already logged): keep serving the previous snapshot, retried on the next check
+                changed.add(section);
+            }
+        }
+    }
+
+    private Map<String, Object> compute(Section section) {
+        return switch (section) {
+            case OVERVIEW -> reportService.getOverviewStatistics();
+            case BOOKS -> reportService.getBookStatistics();
+            case MEMBERS -> reportService.getMemberStatistics();
+            case FINANCIAL -> reportService.getFinancialStatistics();
+        };
+    }
+
+    @Override
+    public String handlerName() {
+        return "report-snapshot";
+    }
+
+    /**
+     * Mark the sections a circulation event changes (recomputed on the next check)
+     */
+    @Override
+    public void handle(List<CirculationEvent> events) {
+        for (CirculationEvent event : events) {
+            switch (event) {
+                case CirculationEvent.BorrowCreated created ->
+                        changed.addAll(EnumSet.of(Section.OVERVIEW, Section.BOOKS, Section.MEMBERS));
+                case CirculationEvent.CopyReturned returned ->
+                        changed.addAll(EnumSet.of(Section.OVERVIEW, Section.MEMBERS, Section.FINANCIAL));
+                case CirculationEvent.CopyLost lost ->
+                        changed.addAll(EnumSet.of(Section.OVERVIEW, Section.BOOKS, Section.MEMBERS, Section.FINANCIAL));
+                case CirculationEvent.FinePaid paid ->
+                        changed.addAll(EnumSet.of(Section.MEMBERS, Section.FINANCIAL));
+            }
+        }
+    }
+}
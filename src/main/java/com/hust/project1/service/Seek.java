@@ -0,0 +1,85 @@
+package com.hust.project1.service;
+
+import com.hust.project1.dto.PageCursor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Keyset page over a list shown newest first (descending sort key, then ID).
+ * The first page and AFTER cursors read downwards from the cursor; BEFORE cursors read
+ * upwards from it, and the rows are put back in display order by CursorPage.
+ * One extra row is fetched to know whether another page follows.
+ */
+final class Seek {
+
+    private Seek() {
+    }
+
+    /**
+     * Rows of the page after (or before) the cursor, ordered by ID
+     */
+    static <T> List<T> byId(JpaSpecificationExecutor<T> repository, Specification<T> filter,
+            PageCursor cursor, int size) {
+        Specification<T> bound = filter;
+        if (isKind(cursor, PageCursor.Kind.AFTER)) {
+            bound = filter.and((root, query, cb) -> cb.lessThan(root.get("id"), cursor.id()));
+        } else if (isKind(cursor, PageCursor.Kind.BEFORE)) {
+            bound = filter.and((root, query, cb) -> cb.greaterThan(root.get("id"), cursor.id()));
+        }
+        return rows(repository, bound, cursor, size, "id");
+    }
+
+    /**
+     * Rows of the page after (or before) the cursor, ordered by a date and then ID
+     */
+    static <T> List<T> byDateAndId(JpaSpecificationExecutor<T> repository, Specification<T> filter,
+            String dateProperty, PageCursor cursor, int size) {
+        PageCursor position = dateCursor(cursor);
+        Specification<T> bound = filter;
+        if (isKind(position, PageCursor.Kind.AFTER)) {
+            LocalDate date = LocalDate.parse(position.key());
+            bound = filter.and((root, query, cb) -> cb.or(
+                    cb.lessThan(root.get(dateProperty), date),
+                    cb.and(cb.equal(root.get(dateProperty), date), cb.lessThan(root.get("id"), position.id()))));
+        } else if (isKind(position, PageCursor.Kind.BEFORE)) {
+            LocalDate date = LocalDate.parse(position.key());
+            bound = filter.and((root, query, cb) -> cb.or(
+                    cb.greaterThan(root.get(dateProperty), date),
+                    cb.and(cb.equal(root.get(dateProperty), date), cb.greaterThan(root.get("id"), position.id()))));
+        }
+        return rows(repository, bound, position, size, dateProperty, "id");
+    }
+
+    /**
+     * The cursor if it is a keyset cursor on a date, otherwise null (start from the first page):
+     * a token can be hand-edited or come from a list sorted by something else
+     */
+    static PageCursor dateCursor(PageCursor cursor) {
+        if (cursor == null || cursor.kind() == PageCursor.Kind.OFFSET) {
+            return null;
+        }
+        try {
+            LocalDate.parse(cursor.key());
+            return cursor;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static <T> List<T> rows(JpaSpecificationExecutor<T> repository, Specification<T> spec,
+            PageCursor cursor, int size, String... sortProperties) {
+        Sort.Direction direction = cursor != null && cursor.isBackward() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        return repository.findBy(spec, query -> query.sortBy(Sort.by(direction, sortProperties))
+                .limit(size + 1)
+                .all());
+    }
+
+    private static boolean isKind(PageCursor cursor, PageCursor.Kind kind) {
+        return cursor != null && cursor.kind() == kind;
+    }
+}
@@ -0,0 +1,131 @@
+package com.hust.project1.service;
+
+import java.util.*;
+
+/**
+ * Space-Saving heavy hitter sketch over item IDs: keeps at most capacity counters, and when a new item
+ * arrives while full it takes over the counter of the least counted item (inheriting its count as error).
+ * Every item counted more than total / capacity times is guaranteed to be kept, and a kept item's count
+ * overestimates its true count by at most its error.
+ * Not thread-safe (guarded by the owner's lock).
+ */
+final class SpaceSaving {
+
+    /**
+     * A kept item: estimated count, and by how much that may overestimate
+     */
+    record Entry(long item, long count, long error) {
+    }
+
+    private static final Comparator<Counter> ORDER = Comparator.<Counter>comparingLong(c -> c.count)
+            .thenComparingLong(c -> c.item);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(ORDER);
+
+    SpaceSaving(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Count an occurrence (or weight occurrences) of an item
+     */
+    void offer(long item, long weight) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += weight;
+            byCount.add(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            put(item, weight, 0L);
+            return;
+        }
+        Counter min = byCount.pollFirst();
+        counters.remove(min.item);
+        put(item, min.count + weight, min.count);
+    }
+
+    /**
+     * Restore a counter (from a checkpoint or an exact count); ignored when full
+     */
+    void load(long item, long count, long error) {
+        if (counters.size() < capacity && !counters.containsKey(item)) {
+            put(item, count, error);
+        }
+    }
+
+    /**
+     * The n most counted items, highest first
+     */
+    List<Entry> top(int n) {
+        List<Entry> top = new ArrayList<>(Math.min(n, counters.size()));
+        Iterator<Counter> it = byCount.descendingIterator();
+        while (top.size() < n && it.hasNext()) {
+            Counter counter = it.next();
+            top.add(new Entry(counter.item, counter.count, counter.error));
+        }
+        return top;
+    }
+
+    /**
+     * Every kept item
+     */
+    List<Entry> entries() {
+        return top(counters.size());
+    }
+
+    int size() {
+        return counters.size();
+    }
+
+    /**
+     * Combine sketches (e.g. the days of a window) into one that keeps the same guarantee: an item
+     * missing from a full sketch may still have been counted there up to that sketch's smallest count,
+     * so that minimum is added to both its count and its error (an item missing from a sketch that is
+     * not full was never offered to it). The capacity largest are kept.
+     */
+    static SpaceSaving merge(int capacity, Collection<SpaceSaving> sketches) {
+        // Charged to every item; items a sketch does keep get its minimum taken off again below
+        long absentCount = 0L;
+        Map<Long, long[]> sums = new HashMap<>();
+        for (SpaceSaving sketch : sketches) {
+            long min = sketch.counters.size() >= sketch.capacity ? sketch.byCount.first().count : 0L;
+            absentCount += min;
+            for (Counter counter : sketch.counters.values()) {
+                long[] sum = sums.computeIfAbsent(counter.item, item -> new long[2]);
+                sum[0] += counter.count - min;
+                sum[1] += counter.error - min;
+            }
+        }
+        List<Map.Entry<Long, long[]>> ranked = new ArrayList<>(sums.entrySet());
+        ranked.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        SpaceSaving merged = new SpaceSaving(capacity);
+        for (int i = 0; i < Math.min(capacity, ranked.size()); i++) {
+            Map.Entry<Long, long[]> entry = ranked.get(i);
+            merged.put(entry.getKey(), entry.getValue()[0] + absentCount, entry.getValue()[1] + absentCount);
+        }
+        return merged;
+    }
+
+    private void put(long item, long count, long error) {
+        Counter counter = new Counter(item, count, error);
+        counters.put(item, counter);
+        byCount.add(counter);
+    }
+
+    private static final class Counter {
+
+        private final long item;
+        private long count;
+        private final long error;
+
+        private Counter(long item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
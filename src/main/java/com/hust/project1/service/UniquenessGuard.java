@@ -0,0 +1,134 @@
+package com.hust.project1.service;
+
+import com.hust.project1.repository.BookRepository;
+import com.hust.project1.repository.MemberRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory pre-check for the unique keys typed on the book and member forms (ISBN, member code, email).
+ * One Bloom filter per key space holds every stored key, so a new key is answered "definitely new"
+ * without a database round trip; only a possible match goes on to the indexed existence query.
+ * Keys are added as soon as they are saved. Deleted or changed keys stay in the filter (a harmless false
+ * positive) until the nightly rebuild. The unique indexes remain the real guarantee.
+ */
+@Service
+public class UniquenessGuard {
+
+    // Keys loaded per query while rebuilding
+    private static final int REBUILD_CHUNK_SIZE = 5000;
+
+    // Filters are sized for twice the stored keys, so growth until the next rebuild keeps the rate low
+    private static final int HEADROOM = 2;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    public enum KeySpace {
+        ISBN,
+        MEMBER_CODE,
+        MEMBER_EMAIL
+    }
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    // Current filters (empty until built: every key is then "maybe")
+    private volatile Map<KeySpace, BloomFilter> filters = Map.of();
+
+    // Filters being rebuilt; keys saved meanwhile are added to them too (guarded by this)
+    private Map<KeySpace, BloomFilter> building;
+
+    /**
+     * Whether the key may already be stored (false means it is definitely new)
+     */
+    public boolean mightExist(KeySpace space, String key) {
+        if (key == null) {
+            return false;
+        }
+        BloomFilter filter = filters.get(space);
+        return filter == null || filter.mightContain(normalize(key));
+    }
+
+    /**
+     * Record a saved key (call before commit: a rolled back save only leaves a false positive)
+     */
+    public void add(KeySpace space, String key) {
+        if (key == null) {
+            return;
+        }
+        String normalized = normalize(key);
+        synchronized (this) {
+            BloomFilter filter = filters.get(space);
+            if (filter != null) {
+                filter.add(normalized);
+            }
+            if (building != null) {
+                building.get(space).add(normalized);
+            }
+        }
+    }
+
+    /**
+     * Load every key from the database, chunk by chunk, and swap the new filters in.
+     * Runs at startup and nightly, dropping the keys of deleted or changed rows.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${library.uniqueness.rebuild-cron:0 45 3 * * *}")
+    public void rebuild() {
+        Map<KeySpace, BloomFilter> next = new EnumMap<>(KeySpace.class);
+        long books = bookRepository.count();
+        long members = memberRepository.count();
+        next.put(KeySpace.ISBN, new BloomFilter(books * HEADROOM, FALSE_POSITIVE_RATE));
+        next.put(KeySpace.MEMBER_CODE, new BloomFilter(members * HEADROOM, FALSE_POSITIVE_RATE));
+        next.put(KeySpace.MEMBER_EMAIL, new BloomFilter(members * HEADROOM, FALSE_POSITIVE_RATE));
+        synchronized (this) {
+            building = next;
+        }
+
+        try {
+            Pageable chunk = PageRequest.of(0, REBUILD_CHUNK_SIZE);
+            long afterId = 0L;
+            List<Object[]> rows;
+            while (!(rows = bookRepository.findIsbnsByIdGreaterThan(afterId, chunk)).isEmpty()) {
+                for (Object[] row : rows) {
+                    next.get(KeySpace.ISBN).add(normalize((String) row[1]));
+                }
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+            afterId = 0L;
+            while (!(rows = memberRepository.findUniqueKeysByIdGreaterThan(afterId, chunk)).isEmpty()) {
+                for (Object[] row : rows) {
+                    next.get(KeySpace.MEMBER_CODE).add(normalize((String) row[1]));
+                    next.get(KeySpace.MEMBER_EMAIL).add(normalize((String) row[2]));
+                }
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+            synchronized (this) {
+                filters = next;
+            }
+        } finally {
+            synchronized (this) {
+                building = null;
+            }
+        }
+        System.out.println("🧮 Uniqueness filters built for " + books + " books and " + members + " members");
+    }
+
+    /**
+     * Key as the unique index compares it (the columns use a case- and accent-insensitive collation)
+     */
+    private static String normalize(String key) {
+        return TextNormalizer.fold(key).trim();
+    }
+}
@@ -1,7 +1,11 @@
 package com.hust.project1.service;
 
+import com.hust.project1.dto.CursorPage;
+import com.hust.project1.dto.PageCursor;
 import com.hust.project1.entity.User;
+import com.hust.project1.repository.SearchSpecifications;
 import com.hust.project1.repository.UserRepository;
+import com.hust.project1.service.DashboardCounters.Counter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,6 +13,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -18,9 +23,15 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CountCache countCache;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
     /**
      * Get all users with pagination
      */
@@ -29,13 +40,14 @@ public class UserService {
     }
 
     /**
-     * Search users by keyword (username or email)
+     * Search users by keyword (username or email) with keyset pagination, newest first
      */
-    public Page<User> searchUsers(String keyword, Pageable pageable) {
-        if (keyword == null || keyword.trim().isEmpty()) {
-            return findAll(pageable);
-        }
-        return userRepository.searchByKeyword(keyword.trim(), pageable);
+    public CursorPage<User> searchUsers(String keyword, PageCursor cursor, int size) {
+        String filter = keyword == null || keyword.trim().isEmpty() ? null : keyword.trim();
+        List<User> rows = Seek.byId(userRepository, SearchSpecifications.users(filter), cursor, size);
+        long total = countCache.get("users|" + filter,
+                () -> userRepository.count(SearchSpecifications.users(filter)));
+        return CursorPage.fromSeek(rows, size, cursor, user -> "", User::getId, total);
     }
 
     /**
@@ -79,6 +91,8 @@ public class UserService {
         user.setRole(role);
         user.setEnabled(true);
 
+        countCache.invalidate("users");
+        dashboardCounters.add(Counter.USERS, 1);
         return userRepository.save(user);
     }
 
@@ -122,6 +136,8 @@ public class UserService {
         }
 
         userRepository.delete(user);
+        countCache.invalidate("users");
+        dashboardCounters.add(Counter.USERS, -1);
     }
 
     /**
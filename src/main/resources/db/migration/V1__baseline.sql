@@ -0,0 +1,88 @@
+-- Schema of the last release before migrations took over, as Hibernate (ddl-auto=update) created it
+-- from that release's entities. Databases created that way are baselined at this version and skip this script;
+-- everything added since then lives in the later scripts.
+
+CREATE TABLE books (
+    publish_year integer,
+    id bigint NOT NULL AUTO_INCREMENT,
+    isbn varchar(20) NOT NULL,
+    category varchar(100),
+    publisher varchar(100),
+    author varchar(255) NOT NULL,
+    description TEXT,
+    title varchar(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_books_isbn UNIQUE (isbn)
+) ENGINE=InnoDB;
+
+CREATE TABLE book_copies (
+    book_id bigint NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    copy_number varchar(50) NOT NULL,
+    location varchar(100),
+    status enum ('AVAILABLE','BORROWED','DAMAGED','LOST') NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE members (
+    active_borrow_count integer NOT NULL,
+    expiry_date date NOT NULL,
+    registration_date date NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    member_code varchar(20) NOT NULL,
+    phone varchar(20),
+    email varchar(100) NOT NULL,
+    full_name varchar(100) NOT NULL,
+    address varchar(255),
+    status enum ('ACTIVE','EXPIRED','SUSPENDED') NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_members_member_code UNIQUE (member_code),
+    CONSTRAINT uk_members_email UNIQUE (email)
+) ENGINE=InnoDB;
+
+CREATE TABLE borrow_records (
+    borrow_date date NOT NULL,
+    due_date date NOT NULL,
+    return_date date,
+    id bigint NOT NULL AUTO_INCREMENT,
+    member_id bigint NOT NULL,
+    notes TEXT,
+    status enum ('ACTIVE','OVERDUE','RETURNED') NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE borrow_record_details (
+    actual_return_date date,
+    fine decimal(10,2),
+    book_copy_id bigint NOT NULL,
+    borrow_record_id bigint NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    notes TEXT,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE users (
+    enabled bit NOT NULL,
+    created_at datetime(6),
+    id bigint NOT NULL AUTO_INCREMENT,
+    updated_at datetime(6),
+    username varchar(50) NOT NULL,
+    email varchar(100) NOT NULL,
+    password varchar(255) NOT NULL,
+    role enum ('ROLE_ADMIN','ROLE_LIBRARIAN') NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE=InnoDB;
+
+ALTER TABLE book_copies
+    ADD CONSTRAINT fk_book_copies_book FOREIGN KEY (book_id) REFERENCES books (id);
+
+ALTER TABLE borrow_records
+    ADD CONSTRAINT fk_borrow_records_member FOREIGN KEY (member_id) REFERENCES members (id);
+
+ALTER TABLE borrow_record_details
+    ADD CONSTRAINT fk_borrow_record_details_record FOREIGN KEY (borrow_record_id) REFERENCES borrow_records (id);
+
+ALTER TABLE borrow_record_details
+    ADD CONSTRAINT fk_borrow_record_details_copy FOREIGN KEY (book_copy_id) REFERENCES book_copies (id);
@@ -0,0 +1,72 @@
+-- Columns and tables added after the last release before migrations: the late fine accrued per line,
+-- the copy version, the fine ledger and its running totals, the member standing projection and the
+-- circulation event outbox. Databases that ran an intermediate build under ddl-auto=update may already
+-- have some of them, so every change is only made when missing.
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'borrow_record_details' AND column_name = 'late_fine') = 0,
+              'ALTER TABLE borrow_record_details ADD COLUMN late_fine decimal(10,2)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'book_copies' AND column_name = 'version') = 0,
+              'ALTER TABLE book_copies ADD COLUMN version bigint DEFAULT 0 NOT NULL', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+CREATE TABLE IF NOT EXISTS fine_transactions (
+    amount decimal(10,2) NOT NULL,
+    borrow_record_detail_id bigint,
+    borrow_record_id bigint,
+    created_at datetime(6) NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    member_id bigint NOT NULL,
+    note varchar(255),
+    type enum ('ASSESS','PAY','WAIVE') NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS fine_balances (
+    assessed decimal(14,2) NOT NULL,
+    paid decimal(14,2) NOT NULL,
+    waived decimal(14,2) NOT NULL,
+    member_id bigint NOT NULL,
+    PRIMARY KEY (member_id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS member_standing (
+    active_loans integer NOT NULL,
+    blacklisted bit NOT NULL,
+    expiry_date date NOT NULL,
+    overdue_count integer NOT NULL,
+    unpaid_fine decimal(14,2) NOT NULL,
+    member_id bigint NOT NULL,
+    updated_at datetime(6) NOT NULL,
+    member_status enum ('ACTIVE','EXPIRED','SUSPENDED') NOT NULL,
+    PRIMARY KEY (member_id)
+) ENGINE=InnoDB;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'member_standing' AND index_name = 'idx_member_standing_blacklisted') = 0,
+              'CREATE INDEX idx_member_standing_blacklisted ON member_standing (blacklisted)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+CREATE TABLE IF NOT EXISTS circulation_events (
+    created_at datetime(6) NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    event_type varchar(50) NOT NULL,
+    payload TEXT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS event_offsets (
+    last_event_id bigint NOT NULL,
+    updated_at datetime(6),
+    handler_name varchar(100) NOT NULL,
+    PRIMARY KEY (handler_name)
+) ENGINE=InnoDB;
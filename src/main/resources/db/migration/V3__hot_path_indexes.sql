@@ -0,0 +1,126 @@
+-- Composite indexes for the repository queries on the hot paths.
+-- Databases that ran under ddl-auto=update may already have some of them (declared on the entities),
+-- so each index is only created when missing. An index leading with a foreign key column also replaces
+-- the index MySQL created implicitly for that foreign key.
+
+-- Catalogue
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'books' AND index_name = 'idx_books_category') = 0,
+              'CREATE INDEX idx_books_category ON books (category)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'book_copies' AND index_name = 'idx_book_copies_status') = 0,
+              'CREATE INDEX idx_book_copies_status ON book_copies (status)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'book_copies' AND index_name = 'idx_book_copies_book_status') = 0,
+              'CREATE INDEX idx_book_copies_book_status ON book_copies (book_id, status)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'book_copies' AND index_name = 'idx_book_copies_copy_number') = 0,
+              'CREATE INDEX idx_book_copies_copy_number ON book_copies (copy_number)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Members and staff
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'members' AND index_name = 'idx_members_status') = 0,
+              'CREATE INDEX idx_members_status ON members (status)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'users' AND index_name = 'idx_users_role') = 0,
+              'CREATE INDEX idx_users_role ON users (role)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Borrow records: list pages, the overdue sweep and per-member standing
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'borrow_records' AND index_name = 'idx_borrow_records_borrow_date') = 0,
+              'CREATE INDEX idx_borrow_records_borrow_date ON borrow_records (borrow_date)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'borrow_records' AND index_name = 'idx_borrow_records_status_borrow_date') = 0,
+              'CREATE INDEX idx_borrow_records_status_borrow_date ON borrow_records (status, borrow_date)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'borrow_records' AND index_name = 'idx_borrow_records_member_borrow_date') = 0,
+              'CREATE INDEX idx_borrow_records_member_borrow_date ON borrow_records (member_id, borrow_date)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'borrow_records' AND index_name = 'idx_borrow_records_status_due_date') = 0,
+              'CREATE INDEX idx_borrow_records_status_due_date ON borrow_records (status, due_date)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'borrow_records' AND index_name = 'idx_borrow_records_member_status') = 0,
+              'CREATE INDEX idx_borrow_records_member_status ON borrow_records (member_id, status)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Borrow record details: the open (not yet returned) lines of a record or a copy, and unpaid fines
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'borrow_record_details' AND index_name = 'idx_borrow_record_details_record_return') = 0,
+              'CREATE INDEX idx_borrow_record_details_record_return ON borrow_record_details (borrow_record_id, actual_return_date)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'borrow_record_details' AND index_name = 'idx_borrow_record_details_copy_return') = 0,
+              'CREATE INDEX idx_borrow_record_details_copy_return ON borrow_record_details (book_copy_id, actual_return_date)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'borrow_record_details' AND index_name = 'idx_borrow_record_details_fine') = 0,
+              'CREATE INDEX idx_borrow_record_details_fine ON borrow_record_details (fine)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Fine ledger history
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'fine_transactions' AND index_name = 'idx_fine_transactions_member') = 0,
+              'CREATE INDEX idx_fine_transactions_member ON fine_transactions (member_id)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'fine_transactions' AND index_name = 'idx_fine_transactions_record') = 0,
+              'CREATE INDEX idx_fine_transactions_record ON fine_transactions (borrow_record_id)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,11 @@
+-- Copy counts per book, maintained on every copy status change and rebuilt at startup when incomplete
+CREATE TABLE book_availability (
+    available integer NOT NULL,
+    borrowed integer NOT NULL,
+    damaged integer NOT NULL,
+    lost integer NOT NULL,
+    total_copies integer NOT NULL,
+    book_id bigint NOT NULL,
+    updated_at datetime(6) NOT NULL,
+    PRIMARY KEY (book_id)
+) ENGINE=InnoDB;
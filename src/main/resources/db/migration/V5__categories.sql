@@ -0,0 +1,16 @@
+-- Category taxonomy; books keep the category name for display and reference the entry by ID.
+-- Existing books are linked at startup (names are matched ignoring case and diacritics).
+CREATE TABLE categories (
+    id bigint NOT NULL AUTO_INCREMENT,
+    name_key varchar(100) NOT NULL,
+    name varchar(100) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_categories_name_key UNIQUE (name_key)
+) ENGINE=InnoDB;
+
+ALTER TABLE books ADD COLUMN category_id bigint;
+
+CREATE INDEX idx_books_category_id ON books (category_id);
+
+ALTER TABLE books
+    ADD CONSTRAINT fk_books_category FOREIGN KEY (category_id) REFERENCES categories (id);
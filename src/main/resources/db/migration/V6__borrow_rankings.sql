@@ -0,0 +1,14 @@
+-- Checkpoints of the top-borrowed books/members sketches: one row per kept counter,
+-- bucket_day is the day of a daily sketch or NULL for the all-time sketch.
+-- Rewritten bucket by bucket every few minutes; rebuilt from the borrow history when empty.
+CREATE TABLE borrow_ranking_entries (
+    borrow_count bigint NOT NULL,
+    bucket_day date,
+    count_error bigint NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    item_id bigint NOT NULL,
+    sketch varchar(10) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_borrow_ranking_entries_bucket ON borrow_ranking_entries (bucket_day);
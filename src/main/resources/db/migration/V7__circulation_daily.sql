@@ -0,0 +1,18 @@
+-- Daily circulation totals per book category and per member status, for trend charts over any date range.
+-- Kept in the same transaction as every circulation write; a backfill job recomputes any range from history.
+-- dimension_key is the category ID (0 = uncategorized) or the member status.
+CREATE TABLE circulation_daily (
+    checkout_count integer NOT NULL DEFAULT 0,
+    overdue_count integer NOT NULL DEFAULT 0,
+    return_count integer NOT NULL DEFAULT 0,
+    stat_date date NOT NULL,
+    fines_assessed bigint NOT NULL DEFAULT 0,
+    fines_paid bigint NOT NULL DEFAULT 0,
+    id bigint NOT NULL AUTO_INCREMENT,
+    dimension varchar(20) NOT NULL,
+    dimension_key varchar(50) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_circulation_daily_key UNIQUE (stat_date, dimension, dimension_key)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_circulation_daily_dimension_date ON circulation_daily (dimension, stat_date);
@@ -0,0 +1,25 @@
+// Typeahead helper for the /api/lookup endpoints.
+// Calls render(results) with the JSON of the latest query only; older in-flight requests are aborted.
+function createLookup(url, render, delay) {
+    let timer = null;
+    let controller = null;
+
+    return function (params) {
+        clearTimeout(timer);
+        timer = setTimeout(function () {
+            if (controller) {
+                controller.abort();
+            }
+            controller = new AbortController();
+            const query = new URLSearchParams(params).toString();
+            fetch(url + '?' + query, { signal: controller.signal, headers: { 'Accept': 'application/json' } })
+                .then(response => response.ok ? response.json() : [])
+                .then(render)
+                .catch(error => {
+                    if (error.name !== 'AbortError') {
+                        render([]);
+                    }
+                });
+        }, delay || 200);
+    };
+}
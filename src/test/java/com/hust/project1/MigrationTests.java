@@ -0,0 +1,99 @@
+package com.hust.project1;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mysql.MySQLContainer;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Upgrades of existing databases: a database created by the last release (ddl-auto=update) or by an
+ * intermediate build is baselined at version 1 the way the application configures Flyway, and must end
+ * up with exactly the schema of a database migrated from scratch (the one the entities are validated against).
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MigrationTests {
+
+    @Container
+    private static final MySQLContainer mysql = new MySQLContainer("mysql:8.4").withUsername("root");
+
+    private static final String COLUMNS = "SELECT table_name, column_name, column_type, is_nullable, column_default "
+            + "FROM information_schema.columns WHERE table_schema = DATABASE() "
+            + "AND table_name <> 'flyway_schema_history' ORDER BY table_name, column_name";
+
+    private static final String INDEXES = "SELECT DISTINCT table_name, index_name FROM information_schema.statistics "
+            + "WHERE table_schema = DATABASE() AND table_name <> 'flyway_schema_history' "
+            + "AND index_name LIKE 'idx\\_%' ORDER BY table_name, index_name";
+
+    @Test
+    void lastReleaseDatabaseIsUpgraded() {
+        DataSource legacy = database("last_release");
+        runScripts(legacy, "db/migration/V1__baseline.sql");
+        JdbcTemplate jdbc = new JdbcTemplate(legacy);
+        jdbc.update("INSERT INTO books (isbn, title, author) VALUES ('978-0-00-000001', 'Sách', 'Tác giả')");
+        jdbc.update("INSERT INTO book_copies (copy_number, status, book_id) SELECT 'BC000001', 'BORROWED', id FROM books");
+
+        migrate(legacy);
+
+        assertSameSchema(fresh(), legacy);
+        assertEquals(0L, jdbc.queryForObject("SELECT version FROM book_copies", Long.class));
+    }
+
+    @Test
+    void intermediateBuildDatabaseIsUpgraded() {
+        // An intermediate build under ddl-auto=update already created the ledger, standing and outbox tables
+        DataSource interim = database("intermediate_build");
+        runScripts(interim, "db/migration/V1__baseline.sql", "db/migration/V2__fines_standing_and_events.sql");
+
+        migrate(interim);
+
+        assertSameSchema(fresh(), interim);
+    }
+
+    private static DataSource fresh() {
+        DataSource fresh = database("fresh_" + System.nanoTime());
+        Flyway.configure().dataSource(fresh).load().migrate();
+        return fresh;
+    }
+
+    /**
+     * Flyway configured like application.properties
+     */
+    private static void migrate(DataSource dataSource) {
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+    }
+
+    private static DataSource database(String name) {
+        new JdbcTemplate(new DriverManagerDataSource(mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword()))
+                .execute("CREATE DATABASE " + name);
+        return new DriverManagerDataSource("jdbc:mysql://" + mysql.getHost() + ":" + mysql.getMappedPort(3306)
+                + "/" + name, mysql.getUsername(), mysql.getPassword());
+    }
+
+    private static void runScripts(DataSource dataSource, String... scripts) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+        for (String script : scripts) {
+            populator.addScript(new ClassPathResource(script));
+        }
+        populator.execute(dataSource);
+    }
+
+    private static void assertSameSchema(DataSource expected, DataSource actual) {
+        assertEquals(describe(expected, COLUMNS), describe(actual, COLUMNS));
+        assertEquals(describe(expected, INDEXES), describe(actual, INDEXES));
+    }
+
+    private static List<Map<String, Object>> describe(DataSource dataSource, String query) {
+        return new JdbcTemplate(dataSource).queryForList(query);
+    }
+}
@@ -0,0 +1,226 @@
+package com.hust.project1;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mysql.MySQLContainer;
+
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Base of the query plan, query count and benchmark tests: one MySQL container for the whole test run
+ * (started once, so the cached Spring contexts keep a valid DataSource), its schema from the Flyway
+ * migrations, seeded once with enough rows that the optimizer prefers an index over a scan whenever one fits.
+ * Tests run in a rolled back transaction; tests that must commit snapshot the circulation tables first
+ * and restore them afterwards, so every class sees the same seed.
+ * The statement to EXPLAIN is taken from performance_schema, where Connector/J's client-side
+ * prepared statements appear with their parameters inlined.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional
+public abstract class QueryPlanTestSupport {
+
+    @ServiceConnection
+    protected static final MySQLContainer mysql = new MySQLContainer("mysql:8.4")
+            .withCommand("--performance-schema-max-sql-text-length=8192")
+            .withUrlParam("rewriteBatchedStatements", "true");
+
+    static {
+        // Never stopped explicitly: the container lives as long as the test JVM
+        if (DockerClientFactory.instance().isDockerAvailable()) {
+            mysql.start();
+        }
+    }
+
+    /**
+     * Tables written by the circulation paths (checkouts, returns, sweeps and their projections)
+     */
+    protected static final List<String> CIRCULATION_TABLES = List.of("members", "book_copies", "book_availability",
+            "borrow_records", "borrow_record_details", "fine_transactions", "fine_balances", "member_standing",
+            "circulation_events", "event_offsets", "circulation_daily", "borrow_ranking_entries");
+
+    protected static final LocalDate TODAY = LocalDate.of(2026, 1, 1);
+
+    // Suffix of the members and copies created by individual tests
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void seed(@Autowired JdbcTemplate jdbcTemplate) {
+        // Every test class (and every cached context) runs this, the seed is only written once
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books WHERE isbn = '978-0-00-000001'", Long.class) > 0) {
+            return;
+        }
+        List<Object[]> books = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            books.add(new Object[] { "978-0-00-" + String.format("%06d", i), "Sách " + i, "Tác giả " + (i % 50),
+                    "Thể loại " + (i % 12) });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (isbn, title, author, category) VALUES (?, ?, ?, ?)", books);
+
+        List<Object[]> copies = new ArrayList<>();
+        for (int i = 1; i <= 8000; i++) {
+            String status = i % 100 == 0 ? "LOST" : i % 3 == 0 ? "BORROWED" : "AVAILABLE";
+            copies.add(new Object[] { "BC" + String.format("%06d", i), status, "Kệ " + (i % 40), (i - 1) / 8 + 1 });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO book_copies (copy_number, status, location, version, book_id) "
+                + "SELECT ?, ?, ?, 0, id FROM books WHERE id = ?", copies);
+
+        List<Object[]> members = new ArrayList<>();
+        for (int i = 1; i <= 5000; i++) {
+            String status = i % 100 == 0 ? "SUSPENDED" : "ACTIVE";
+            members.add(new Object[] { "DG" + String.format("%05d", i), "Độc giả " + i, "dg" + i + "@example.com",
+                    TODAY.minusYears(1), TODAY.plusYears(1), status });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO members (member_code, full_name, email, registration_date, "
+                + "expiry_date, status, active_borrow_count) VALUES (?, ?, ?, ?, ?, ?, 0)", members);
+
+        List<Object[]> records = new ArrayList<>();
+        for (int i = 1; i <= 20000; i++) {
+            LocalDate borrowDate = TODAY.minusDays(i % 730);
+            String status = i % 50 == 0 ? "OVERDUE" : i % 7 == 0 ? "ACTIVE" : "RETURNED";
+            records.add(new Object[] { borrowDate, borrowDate.plusDays(14), status, i % 5000 + 1 });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO borrow_records (borrow_date, due_date, status, member_id) "
+                + "SELECT ?, ?, ?, id FROM members WHERE id = ?", records);
+
+        // Two lines per record; returned lines are closed, and one in forty carries a fine
+        jdbcTemplate.update("INSERT INTO borrow_record_details (borrow_record_id, book_copy_id, actual_return_date, "
+                + "fine, late_fine) SELECT br.id, (br.id * 2 + n.k) % 8000 + 1, "
+                + "IF(br.status = 'RETURNED', br.due_date, NULL), IF(br.id % 40 = 0, 20000, 0), 0 "
+                + "FROM borrow_records br CROSS JOIN (SELECT 0 AS k UNION ALL SELECT 1) n");
+        jdbcTemplate.update("INSERT INTO fine_transactions (borrow_record_detail_id, borrow_record_id, member_id, "
+                + "type, amount, note, created_at) SELECT d.id, br.id, br.member_id, 'ASSESS', d.fine, NULL, NOW() "
+                + "FROM borrow_record_details d JOIN borrow_records br ON br.id = d.borrow_record_id WHERE d.fine > 0");
+        jdbcTemplate.update("INSERT INTO member_standing (member_id, member_status, expiry_date, active_loans, "
+                + "overdue_count, unpaid_fine, blacklisted, updated_at) "
+                + "SELECT id, status, expiry_date, 0, 0, 0, id % 100 = 0, NOW() FROM members");
+        jdbcTemplate.update("INSERT INTO circulation_events (event_type, payload, created_at) "
+                + "SELECT 'BORROWED', '{}', NOW() - INTERVAL id MINUTE FROM borrow_records WHERE id <= 5000");
+
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            users.add(new Object[] { "user" + i, "user" + i + "@example.com", i % 20 == 0 ? "ROLE_ADMIN" : "ROLE_LIBRARIAN" });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, email, password, role, enabled) "
+                + "VALUES (?, ?, 'x', ?, 1)", users);
+
+        jdbcTemplate.execute("ANALYZE TABLE books, book_copies, members, borrow_records, borrow_record_details, "
+                + "fine_transactions, member_standing, circulation_events, users");
+    }
+
+    /**
+     * Copy the given tables aside (for a test that commits; see restoreTables)
+     */
+    protected void snapshotTables(List<String> tables) {
+        for (String table : tables) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS snapshot_" + table);
+            jdbcTemplate.execute("CREATE TABLE snapshot_" + table + " LIKE " + table);
+            jdbcTemplate.execute("INSERT INTO snapshot_" + table + " SELECT * FROM " + table);
+        }
+    }
+
+    /**
+     * Put back the tables copied by snapshotTables, dropping everything the test committed
+     */
+    protected void restoreTables(List<String> tables) {
+        // One connection, since foreign_key_checks is a session setting
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET foreign_key_checks = 0");
+                for (String table : tables) {
+                    statement.execute("TRUNCATE TABLE " + table);
+                    statement.execute("INSERT INTO " + table + " SELECT * FROM snapshot_" + table);
+                    statement.execute("DROP TABLE snapshot_" + table);
+                }
+                statement.execute("SET foreign_key_checks = 1");
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Insert an ACTIVE member with a valid card and no loans, returning its ID
+     */
+    protected long newMember() {
+        String code = "TM" + FIXTURES.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO members (member_code, full_name, email, registration_date, expiry_date, "
+                + "status, active_borrow_count) VALUES (?, ?, ?, ?, ?, 'ACTIVE', 0)", code, "Độc giả " + code,
+                code.toLowerCase() + "@example.com", LocalDate.now().minusMonths(1), LocalDate.now().plusYears(1));
+        return jdbcTemplate.queryForObject("SELECT id FROM members WHERE member_code = ?", Long.class, code);
+    }
+
+    /**
+     * Insert an AVAILABLE copy of a seeded book, returning its ID
+     */
+    protected long newAvailableCopy(long bookId) {
+        String copyNumber = "TC" + FIXTURES.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO book_copies (copy_number, status, location, version, book_id) "
+                + "VALUES (?, 'AVAILABLE', 'Kệ thử', 0, ?)", copyNumber, bookId);
+        return jdbcTemplate.queryForObject("SELECT id FROM book_copies WHERE copy_number = ?", Long.class, copyNumber);
+    }
+
+    /**
+     * Number of SQL statements the server has executed on this connection so far
+     */
+    protected long statementsOnConnection() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(COUNT_STAR), 0) "
+                + "FROM performance_schema.events_statements_summary_by_thread_by_event_name "
+                + "WHERE THREAD_ID = PS_CURRENT_THREAD_ID() AND EVENT_NAME LIKE 'statement/sql/%'", Long.class);
+    }
+
+    /**
+     * EXPLAIN of the last statement this connection ran (the test transaction shares it with the repositories)
+     */
+    protected List<Map<String, Object>> plan() {
+        String sql = jdbcTemplate.queryForObject(
+                "SELECT SQL_TEXT FROM performance_schema.events_statements_history "
+                        + "WHERE THREAD_ID = PS_CURRENT_THREAD_ID() "
+                        + "AND LOWER(LEFT(SQL_TEXT, 6)) IN ('select', 'insert', 'update', 'delete') "
+                        + "AND SQL_TEXT NOT LIKE '%performance_schema%' ORDER BY EVENT_ID DESC LIMIT 1",
+                String.class);
+        assertNotNull(sql, "no statement recorded");
+        return jdbcTemplate.queryForList("EXPLAIN " + sql);
+    }
+
+    /**
+     * The first (driving) table is read through one of the expected indexes, and no table is fully scanned
+     */
+    protected static void assertUsesIndex(List<Map<String, Object>> plan, Set<String> expectedKeys) {
+        Object key = plan.get(0).get("key");
+        assertTrue(expectedKeys.contains(String.valueOf(key)), "driving index was " + key + ": " + plan);
+        assertNoFullScan(plan);
+    }
+
+    /**
+     * No table of the plan is read in full. Derived tables and materialized subqueries ("&lt;derived2&gt;")
+     * only hold rows already filtered through an index, so scanning them is fine.
+     */
+    protected static void assertNoFullScan(List<Map<String, Object>> plan) {
+        for (Map<String, Object> row : plan) {
+            String table = String.valueOf(row.get("table"));
+            if ("ALL".equals(row.get("type")) && !table.startsWith("<")) {
+                fail("full scan of " + table + ": " + plan);
+            }
+        }
+    }
+}
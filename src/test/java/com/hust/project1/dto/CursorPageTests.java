@@ -0,0 +1,62 @@
+package com.hust.project1.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CursorPageTests {
+
+    private static CursorPage<Long> seek(List<Long> rows, int size, PageCursor cursor) {
+        return CursorPage.fromSeek(rows, size, cursor, id -> "k" + id, id -> id, 100);
+    }
+
+    @Test
+    void tokensRoundTripAndGarbageStartsOver() {
+        PageCursor cursor = PageCursor.after("2026-01-10|ngày", 42L);
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+        assertEquals(PageCursor.offset(30), PageCursor.decode(PageCursor.offset(30).encode()));
+        assertNull(PageCursor.decode("not-a-cursor"));
+        assertNull(PageCursor.decode(""));
+    }
+
+    @Test
+    void firstPageLinksForwardOnly() {
+        CursorPage<Long> page = seek(List.of(50L, 49L, 48L, 47L), 3, null);
+
+        assertEquals(List.of(50L, 49L, 48L), page.content());
+        assertEquals(PageCursor.after("k48", 48L), PageCursor.decode(page.nextCursor()));
+        assertNull(page.prevCursor());
+    }
+
+    @Test
+    void lastPageLinksBackOnly() {
+        CursorPage<Long> page = seek(List.of(2L, 1L), 3, PageCursor.after("k3", 3L));
+
+        assertEquals(List.of(2L, 1L), page.content());
+        assertNull(page.nextCursor());
+        assertEquals(PageCursor.before("k2", 2L), PageCursor.decode(page.prevCursor()));
+    }
+
+    @Test
+    void backwardPageIsFetchedAscendingAndShownDescending() {
+        CursorPage<Long> page = seek(List.of(49L, 50L, 51L, 52L), 3, PageCursor.before("k48", 48L));
+        assertEquals(List.of(51L, 50L, 49L), page.content());
+        assertEquals(PageCursor.after("k49", 49L), PageCursor.decode(page.nextCursor()));
+        assertEquals(PageCursor.before("k51", 51L), PageCursor.decode(page.prevCursor()));
+
+        CursorPage<Long> first = seek(List.of(49L, 50L), 3, PageCursor.before("k48", 48L));
+        assertEquals(List.of(50L, 49L), first.content());
+        assertNull(first.prevCursor());
+    }
+
+    @Test
+    void offsetPagesStopAtTheEnds() {
+        CursorPage<Long> page = CursorPage.fromOffset(List.of(1L), 90, 10, 100);
+        assertNull(page.nextCursor());
+        assertEquals(PageCursor.offset(80), PageCursor.decode(page.prevCursor()));
+        assertNull(CursorPage.fromOffset(List.of(1L), 0, 10, 100).prevCursor());
+    }
+}
@@ -0,0 +1,141 @@
+package com.hust.project1.event;
+
+import com.hust.project1.entity.CirculationEventLog;
+import com.hust.project1.event.CirculationEvent.FinePaid;
+import com.hust.project1.repository.CirculationEventRepository;
+import com.hust.project1.repository.EventOffsetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Outbox IDs that commit out of order: the stored offset must stay below an open gap
+ * until the late event is delivered, and only step over it once the visibility window passed.
+ */
+class CirculationEventBusTests {
+
+    private final CirculationEventRepository circulationEventRepository = mock(CirculationEventRepository.class);
+    private final EventOffsetRepository eventOffsetRepository = mock(EventOffsetRepository.class);
+
+    // Committed (visible) outbox rows
+    private final NavigableMap<Long, CirculationEventLog> outbox = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong storedOffset = new AtomicLong();
+
+    // Member IDs of the events the handler received, in delivery order
+    private final List<Long> received = new CopyOnWriteArrayList<>();
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private final CirculationEventBus bus = new CirculationEventBus();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bus, "circulationEventRepository", circulationEventRepository);
+        ReflectionTestUtils.setField(bus, "eventOffsetRepository", eventOffsetRepository);
+        ReflectionTestUtils.setField(bus, "jsonMapper", jsonMapper);
+        ReflectionTestUtils.setField(bus, "handlers", List.of(new CirculationEventHandler() {
+            @Override
+            public String handlerName() {
+                return "test";
+            }
+
+            @Override
+            public void handle(List<CirculationEvent> events) {
+                events.forEach(event -> received.add(event.memberId()));
+            }
+        }));
+        ReflectionTestUtils.setField(bus, "visibilityWindowSeconds", 300L);
+
+        when(circulationEventRepository.findMaxId()).thenReturn(0L);
+        when(circulationEventRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    Long afterId = invocation.getArgument(0);
+                    Pageable page = invocation.getArgument(1);
+                    return new ArrayList<>(outbox.tailMap(afterId, false).values())
+                            .subList(0, Math.min(page.getPageSize(), outbox.tailMap(afterId, false).size()));
+                });
+        when(eventOffsetRepository.findById("test")).thenReturn(Optional.empty());
+        when(eventOffsetRepository.saveOffset(anyString(), anyLong())).thenAnswer(invocation -> {
+            storedOffset.accumulateAndGet(invocation.getArgument(1), Math::max);
+            return 1;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.stop();
+    }
+
+    @Test
+    void lateCommitBelowADeliveredIdIsDeliveredBeforeTheOffsetPassesIt() throws InterruptedException {
+        // Event 1's transaction is still open while event 2 has committed
+        commit(2L);
+        bus.init();
+        bus.start();
+        await(() -> received.contains(2L));
+        assertEquals(0L, storedOffset.get());
+
+        // Event 1 commits late and reaches the handler through the live queue
+        when(circulationEventRepository.save(any(CirculationEventLog.class))).thenAnswer(invocation -> {
+            CirculationEventLog row = invocation.getArgument(0);
+            row.setId(1L);
+            outbox.put(1L, row);
+            return row;
+        });
+        bus.publish(new FinePaid(1L, 1L, 5_000L, false));
+
+        await(() -> storedOffset.get() == 2L);
+        assertEquals(List.of(2L, 1L), received);
+    }
+
+    @Test
+    void gapThatNeverFillsIsSkippedAfterTheVisibilityWindow() throws InterruptedException {
+        // Event 1 belonged to a transaction that rolled back
+        ReflectionTestUtils.setField(bus, "visibilityWindowSeconds", 0L);
+        commit(2L);
+        commit(3L);
+        bus.init();
+        bus.start();
+
+        await(() -> storedOffset.get() == 3L);
+        // The re-read before skipping the gap does not deliver events twice
+        assertEquals(List.of(2L, 3L), received);
+    }
+
+    private void commit(long id) {
+        CirculationEventLog row = new CirculationEventLog();
+        row.setId(id);
+        row.setEventType(FinePaid.class.getSimpleName());
+        row.setPayload(jsonMapper.writeValueAsString(new FinePaid(id, id, 5_000L, false)));
+        outbox.put(id, row);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "timed out waiting for the event handler");
+    }
+}
@@ -0,0 +1,272 @@
+package com.hust.project1.repository;
+
+import com.hust.project1.QueryPlanTestSupport;
+import com.hust.project1.entity.BookCopy.CopyStatus;
+import com.hust.project1.entity.BorrowRecord.RecordStatus;
+import com.hust.project1.entity.CirculationDaily.Dimension;
+import com.hust.project1.entity.Member.MemberStatus;
+import com.hust.project1.entity.User.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EXPLAINs every repository query against the migrated schema and fails when one reads a table in full.
+ * Parameters are chosen selective, as in production (a rare status, one member, a handful of IDs),
+ * since for a value matching most of a table a scan is the right plan.
+ * Not covered: substring searches (answered by the in-memory search indexes), the whole-table
+ * reports (top borrowed books and members, never borrowed books, total of all fines) and the
+ * deleteOrphans clean-ups of the projections, which are anti-joins over the whole projection table.
+ */
+class RepositoryQueryPlanTests extends QueryPlanTestSupport {
+
+    private static final List<Long> RECORD_IDS = List.of(50L, 100L, 150L, 200L);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private BorrowRecordDetailRepository borrowRecordDetailRepository;
+
+    @Autowired
+    private FineTransactionRepository fineTransactionRepository;
+
+    @Autowired
+    private FineBalanceRepository fineBalanceRepository;
+
+    @Autowired
+    private MemberStandingRepository memberStandingRepository;
+
+    @Autowired
+    private CirculationEventRepository circulationEventRepository;
+
+    @Autowired
+    private BookAvailabilityRepository bookAvailabilityRepository;
+
+    @Autowired
+    private CirculationDailyRepository circulationDailyRepository;
+
+    @Test
+    void bookQueries() {
+        bookRepository.findByIsbn("978-0-00-000500");
+        assertNoFullScan(plan());
+        bookRepository.existsByIsbn("978-0-00-000500");
+        assertNoFullScan(plan());
+        bookRepository.existsByIsbnAndIdNot("978-0-00-000500", 500L);
+        assertNoFullScan(plan());
+        bookRepository.findByCategory("Thể loại 3", PageRequest.of(0, 20));
+        assertReadsIndex(plan(), "idx_books_category");
+        bookRepository.findByIdGreaterThanOrderByIdAsc(900L, PageRequest.of(0, 50));
+        assertNoFullScan(plan());
+        bookRepository.findIdsByIdGreaterThan(900L, PageRequest.of(0, 50));
+        assertNoFullScan(plan());
+    }
+
+    @Test
+    void bookAvailabilityQueries() {
+        bookAvailabilityRepository.refresh(List.of(41L, 42L, 43L));
+        assertReadsIndex(plan(), "idx_book_copies_book_status");
+        bookAvailabilityRepository.findDrifted(List.of(41L, 42L, 43L));
+        assertReadsIndex(plan(), "idx_book_copies_book_status");
+        bookAvailabilityRepository.findBookIdsByCopyIds(List.of(10L, 11L, 12L));
+        assertNoFullScan(plan());
+        bookAvailabilityRepository.findAllById(List.of(41L, 42L, 43L));
+        assertNoFullScan(plan());
+    }
+
+    @Test
+    void bookCopyQueries() {
+        bookCopyRepository.findByBookId(42L);
+        assertReadsIndex(plan(), "idx_book_copies_book_status");
+        bookCopyRepository.findByBook(bookRepository.getReferenceById(42L));
+        assertReadsIndex(plan(), "idx_book_copies_book_status");
+        bookCopyRepository.findByBookIdAndStatus(42L, CopyStatus.AVAILABLE);
+        assertReadsIndex(plan(), "idx_book_copies_book_status");
+        bookCopyRepository.findByBookAndStatus(bookRepository.getReferenceById(42L), CopyStatus.AVAILABLE);
+        assertReadsIndex(plan(), "idx_book_copies_book_status");
+        bookCopyRepository.countByBookIdAndStatus(42L, CopyStatus.AVAILABLE);
+        assertReadsIndex(plan(), "idx_book_copies_book_status");
+        bookCopyRepository.findByStatus(CopyStatus.LOST);
+        assertNoFullScan(plan());
+        bookCopyRepository.countByStatus(CopyStatus.LOST);
+        assertNoFullScan(plan());
+        bookCopyRepository.findByStatusIn(List.of(CopyStatus.LOST, CopyStatus.DAMAGED));
+        assertNoFullScan(plan());
+        bookCopyRepository.findByStatusAndCopyNumberPrefix(CopyStatus.AVAILABLE, "BC0042", PageRequest.of(0, 20));
+        assertNoFullScan(plan());
+        bookCopyRepository.findByBookIdsAndStatus(List.of(41L, 42L, 43L), CopyStatus.AVAILABLE);
+        assertNoFullScan(plan());
+        bookCopyRepository.suggestByStatus(CopyStatus.LOST, "Sách 1", PageRequest.of(0, 20));
+        assertNoFullScan(plan());
+        bookCopyRepository.updateStatusByIds(List.of(1L, 2L, 4L), CopyStatus.AVAILABLE, CopyStatus.BORROWED);
+        assertNoFullScan(plan());
+    }
+
+    @Test
+    void memberAndUserQueries() {
+        memberRepository.findByMemberCode("DG01500");
+        assertNoFullScan(plan());
+        memberRepository.findByEmail("dg1500@example.com");
+        assertNoFullScan(plan());
+        memberRepository.existsByMemberCode("DG01500");
+        assertNoFullScan(plan());
+        memberRepository.existsByEmail("dg1500@example.com");
+        assertNoFullScan(plan());
+        memberRepository.findByStatus(MemberStatus.SUSPENDED);
+        assertReadsIndex(plan(), "idx_members_status");
+        memberRepository.countByStatus(MemberStatus.SUSPENDED);
+        assertReadsIndex(plan(), "idx_members_status");
+        memberRepository.findBlacklistMembers();
+        assertReadsIndex(plan(), "idx_member_standing_blacklisted");
+        memberRepository.findIdsByIdGreaterThan(4000L, PageRequest.of(0, 500));
+        assertNoFullScan(plan());
+        memberRepository.findByIdGreaterThanOrderByIdAsc(4000L, PageRequest.of(0, 500));
+        assertNoFullScan(plan());
+        memberRepository.incrementActiveBorrowCount(77L, 2, 5);
+        assertNoFullScan(plan());
+        memberRepository.decrementActiveBorrowCount(77L, 2);
+        assertNoFullScan(plan());
+
+        userRepository.findByUsername("user7");
+        assertNoFullScan(plan());
+        userRepository.findByEmail("user7@example.com");
+        assertNoFullScan(plan());
+        userRepository.existsByUsername("user7");
+        assertNoFullScan(plan());
+        userRepository.existsByEmail("user7@example.com");
+        assertNoFullScan(plan());
+        userRepository.findByRole(UserRole.ROLE_ADMIN);
+        assertReadsIndex(plan(), "idx_users_role");
+    }
+
+    @Test
+    void borrowRecordQueries() {
+        borrowRecordRepository.findByMemberId(77L);
+        assertNoFullScan(plan());
+        borrowRecordRepository.findByMember(memberRepository.getReferenceById(77L));
+        assertNoFullScan(plan());
+        borrowRecordRepository.findByMemberIdAndStatus(77L, RecordStatus.ACTIVE);
+        assertReadsIndex(plan(), "idx_borrow_records_member_status");
+        borrowRecordRepository.findByMemberAndStatus(memberRepository.getReferenceById(77L), RecordStatus.ACTIVE);
+        assertReadsIndex(plan(), "idx_borrow_records_member_status");
+        borrowRecordRepository.countByMemberIdAndStatus(77L, RecordStatus.OVERDUE);
+        assertReadsIndex(plan(), "idx_borrow_records_member_status");
+        borrowRecordRepository.findByStatus(RecordStatus.OVERDUE);
+        assertNoFullScan(plan());
+        borrowRecordRepository.countByStatus(RecordStatus.OVERDUE);
+        assertNoFullScan(plan());
+        borrowRecordRepository.findByDueDateBeforeAndStatus(TODAY.minusDays(100), RecordStatus.ACTIVE);
+        assertReadsIndex(plan(), "idx_borrow_records_status_due_date");
+        borrowRecordRepository.findIdsByDueDateBeforeAndStatus(TODAY.minusDays(100), RecordStatus.ACTIVE,
+                PageRequest.of(0, 500));
+        assertReadsIndex(plan(), "idx_borrow_records_status_due_date");
+        borrowRecordRepository.findIdsByStatusAndIdGreaterThan(RecordStatus.ACTIVE, 15000L, PageRequest.of(0, 500));
+        assertNoFullScan(plan());
+        borrowRecordRepository.findIdAndDueDateByStatusAndIdGreaterThan(RecordStatus.ACTIVE, 15000L,
+                PageRequest.of(0, 500));
+        assertNoFullScan(plan());
+        borrowRecordRepository.updateStatusByIds(RECORD_IDS, RecordStatus.ACTIVE, RecordStatus.OVERDUE);
+        assertNoFullScan(plan());
+        borrowRecordRepository.closeRecordsInStatus(RECORD_IDS, RecordStatus.ACTIVE, RecordStatus.RETURNED, TODAY);
+        assertNoFullScan(plan());
+        memberRepository.countBorrowsPerMemberAndDaySince(TODAY.minusDays(6));
+        assertNoFullScan(plan());
+    }
+
+    @Test
+    void borrowRecordDetailQueries() {
+        borrowRecordDetailRepository.findByBorrowRecordId(100L);
+        assertReadsIndex(plan(), "idx_borrow_record_details_record_return");
+        borrowRecordDetailRepository.findByBorrowRecord(borrowRecordRepository.getReferenceById(100L));
+        assertReadsIndex(plan(), "idx_borrow_record_details_record_return");
+        borrowRecordDetailRepository.countByBorrowRecordId(100L);
+        assertReadsIndex(plan(), "idx_borrow_record_details_record_return");
+        borrowRecordDetailRepository.findOpenDetailIdsByBorrowRecordId(100L);
+        assertReadsIndex(plan(), "idx_borrow_record_details_record_return");
+        borrowRecordDetailRepository.findRecordIdsWithOpenDetails(RECORD_IDS);
+        assertReadsIndex(plan(), "idx_borrow_record_details_record_return");
+        borrowRecordDetailRepository.findByBookCopyId(42L);
+        assertReadsIndex(plan(), "idx_borrow_record_details_copy_return");
+        borrowRecordDetailRepository.findByBookCopy(bookCopyRepository.getReferenceById(42L));
+        assertReadsIndex(plan(), "idx_borrow_record_details_copy_return");
+        borrowRecordDetailRepository.findOpenForReturnByCopyNumbers(List.of("BC000042", "BC000043"));
+        assertReadsIndex(plan(), "idx_borrow_record_details_copy_return");
+        borrowRecordDetailRepository.findAllForReturnByIds(List.of(10L, 11L, 12L));
+        assertNoFullScan(plan());
+        borrowRecordDetailRepository.sumUnpaidFines();
+        assertReadsIndex(plan(), "idx_borrow_record_details_fine");
+        borrowRecordDetailRepository.accrueLateFines(RECORD_IDS, 5000, TODAY);
+        assertReadsIndex(plan(), "idx_borrow_record_details_record_return");
+    }
+
+    @Test
+    void fineQueries() {
+        fineTransactionRepository.findByMemberIdOrderByIdDesc(40L);
+        assertReadsIndex(plan(), "idx_fine_transactions_member");
+        fineTransactionRepository.findByBorrowRecordIdOrderById(40L);
+        assertReadsIndex(plan(), "idx_fine_transactions_record");
+        fineTransactionRepository.appendAccruedLateFines(RECORD_IDS, 5000, TODAY);
+        assertNoFullScan(plan());
+        fineTransactionRepository.appendOpeningBalances();
+        assertReadsIndex(plan(), "idx_borrow_record_details_fine");
+        fineBalanceRepository.addAccruedLateFinesPerMember(RECORD_IDS, 5000, TODAY);
+        assertNoFullScan(plan());
+        fineBalanceRepository.addAccruedLateFinesGlobal(RECORD_IDS, 5000, TODAY);
+        assertNoFullScan(plan());
+    }
+
+    @Test
+    void circulationRollupQueries() {
+        circulationDailyRepository.findByDimensionAndDateRange(Dimension.CATEGORY, TODAY.minusDays(29), TODAY);
+        assertReadsIndex(plan(), "idx_circulation_daily_dimension_date");
+        circulationDailyRepository.addCheckouts(RECORD_IDS);
+        assertNoFullScan(plan());
+        circulationDailyRepository.addOverdue(RECORD_IDS);
+        assertNoFullScan(plan());
+        circulationDailyRepository.addAccruedLateFines(RECORD_IDS, 5000, TODAY);
+        assertNoFullScan(plan());
+    }
+
+    @Test
+    void standingAndEventQueries() {
+        memberStandingRepository.refresh(List.of(76L, 77L, 78L));
+        assertReadsIndex(plan(), "idx_borrow_records_member_status");
+        memberStandingRepository.findDrifted(List.of(76L, 77L, 78L));
+        assertReadsIndex(plan(), "idx_borrow_records_member_status");
+        memberStandingRepository.findMemberIdsByBorrowRecordIds(RECORD_IDS);
+        assertNoFullScan(plan());
+
+        circulationEventRepository.findByIdGreaterThanOrderByIdAsc(4900L, PageRequest.of(0, 100));
+        assertNoFullScan(plan());
+        circulationEventRepository.findMaxId();
+        assertNoFullScan(plan());
+        circulationEventRepository.deleteConsumed(100L, LocalDateTime.now());
+        assertNoFullScan(plan());
+    }
+
+    /**
+     * Some table of the plan is read through the given index, and none is fully scanned
+     */
+    private static void assertReadsIndex(List<Map<String, Object>> plan, String key) {
+        assertTrue(plan.stream().anyMatch(row -> key.equals(row.get("key"))), key + " not used: " + plan);
+        assertNoFullScan(plan);
+    }
+}
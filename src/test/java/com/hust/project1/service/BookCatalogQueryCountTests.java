@@ -0,0 +1,56 @@
+package com.hust.project1.service;
+
+import com.hust.project1.QueryPlanTestSupport;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The catalog page reads the copy counts of all its books with one lookup,
+ * so the number of SQL statements it issues does not depend on the page size.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@WithMockUser
+class BookCatalogQueryCountTests extends QueryPlanTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookAvailabilityService bookAvailabilityService;
+
+    @Test
+    void catalogPageIssuesConstantQueries() throws Exception {
+        bookAvailabilityService.rebuildAndDiff();
+        // First request fills the cached total
+        statementsForPage(5);
+
+        long small = statementsForPage(5);
+        long large = statementsForPage(100);
+
+        assertEquals(small, large, "statements for 5 books: " + small + ", for 100 books: " + large);
+        assertTrue(small <= 2, "books and their availability are one query each, got " + small);
+    }
+
+    private long statementsForPage(int size) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/books").param("size", String.valueOf(size))).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,139 @@
+package com.hust.project1.service;
+
+import com.hust.project1.dto.CatalogFacets;
+import com.hust.project1.entity.Book;
+import com.hust.project1.service.BookSearchIndex.Clause;
+import com.hust.project1.service.BookSearchIndex.FacetFilter;
+import com.hust.project1.service.BookSearchIndex.FacetedResult;
+import com.hust.project1.service.BookSearchIndex.Field;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSearchIndexTests {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.put(book(1L, "978-604-1-00001-1", "Lập trình Java cơ bản", "Nguyễn Văn An", "Công nghệ",
+                "Sách nhập môn lập trình hướng đối tượng"));
+        index.put(book(2L, "978-604-1-00002-8", "Cấu trúc dữ liệu và giải thuật", "Trần Đức Bình", "Công nghệ",
+                "Các cấu trúc dữ liệu cơ bản, có ví dụ bằng Java"));
+        index.put(book(3L, "978-604-1-00003-5", "Truyện Kiều", "Nguyễn Du", "Văn học", null));
+    }
+
+    @Test
+    void matchesWithoutDiacriticsAndByPrefix() {
+        assertEquals(List.of(3L), ids(Clause.of("truyen kieu", Field.TITLE)));
+        assertEquals(List.of(2L), ids(Clause.of("Tran duc", Field.AUTHOR)));
+        assertEquals(List.of(3L, 1L), ids(Clause.of("nguy", Field.AUTHOR)));
+        assertEquals(List.of(2L), ids(Clause.of("9786041000028", Field.ISBN)));
+        assertEquals(List.of(3L, 2L, 1L), ids(Clause.of("978-604-1-0000", Field.ISBN)));
+    }
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatches() {
+        assertEquals(List.of(1L, 2L), ids(Clause.anyField("java")));
+    }
+
+    @Test
+    void clausesAreCombinedWithAnd() {
+        assertEquals(List.of(1L), ids(Clause.anyField("java"), Clause.of("an", Field.AUTHOR)));
+        assertTrue(ids(Clause.of("kieu", Field.TITLE), Clause.of("cong nghe", Field.CATEGORY)).isEmpty());
+    }
+
+    @Test
+    void updatesReplaceAndRemoveTerms() {
+        index.put(book(3L, "978-604-1-00003-5", "Đoạn trường tân thanh", "Nguyễn Du", "Văn học", null));
+        assertTrue(ids(Clause.of("kieu", Field.TITLE)).isEmpty());
+        assertEquals(List.of(3L), ids(Clause.of("doan truong", Field.TITLE)));
+
+        index.remove(3L);
+        assertTrue(ids(Clause.of("doan", Field.TITLE)).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void facetCountsIgnoreTheirOwnSelection() {
+        index.put(faceted(book(1L, "978-604-1-00001-1", "Lập trình Java cơ bản", "Nguyễn Văn An", "Công nghệ", null),
+                10L, "NXB Trẻ", 2020));
+        index.put(faceted(book(2L, "978-604-1-00002-8", "Cấu trúc dữ liệu", "Trần Đức Bình", "Công nghệ", null),
+                10L, "NXB Giáo dục", 2021));
+        index.put(faceted(book(3L, "978-604-1-00003-5", "Truyện Kiều", "Nguyễn Du", "Văn học", null),
+                20L, "nxb tre", 2020));
+        index.updateAvailability(List.of(1L, 2L, 3L), List.of(1L, 3L));
+
+        FacetedResult result = index.facetedSearch(List.of(), new FacetFilter(10L, null, null, null),
+                PageRequest.of(0, 10));
+        assertEquals(List.of(2L, 1L), result.page().getContent());
+        // Other categories are still counted, over the unselected rest of the catalog
+        assertEquals(List.of(2L, 1L), counts(result.facets().categories()));
+        assertEquals(List.of("10", "20"), values(result.facets().categories()));
+        assertEquals(List.of(1L, 1L), counts(result.facets().publishers()));
+        assertEquals(List.of("2021", "2020"), values(result.facets().publishYears()));
+
+        // Publisher names are compared folded; text clauses and facets combine
+        result = index.facetedSearch(List.of(Clause.of("nguyen", Field.AUTHOR)),
+                new FacetFilter(null, "nxb tre", 2020, true), PageRequest.of(0, 10));
+        assertEquals(List.of(3L, 1L), result.page().getContent());
+        assertEquals(List.of("true"), values(result.facets().availability()));
+
+        index.updateAvailability(List.of(3L), List.of());
+        assertEquals(List.of(1L, 2L), counts(index.catalogFacets().availability()));
+    }
+
+    @Test
+    void fuzzySearchCorrectsMisspelledTitleAndAuthorWords() {
+        FacetedResult result = index.fuzzySearch(List.of(Clause.of("truyen kiue", Field.TITLE)), FacetFilter.NONE,
+                PageRequest.of(0, 10));
+        assertEquals(List.of(3L), result.page().getContent());
+        assertEquals("truyen kieu", result.correctedQuery());
+
+        result = index.fuzzySearch(List.of(Clause.anyField("nguyn")), FacetFilter.NONE, PageRequest.of(0, 10));
+        assertEquals(List.of(3L, 1L), result.page().getContent());
+
+        // The dictionary follows updates: a removed word is no longer suggested, a new one is
+        index.put(book(3L, "978-604-1-00003-5", "Đoạn trường tân thanh", "Nguyễn Du", "Văn học", null));
+        assertTrue(index.fuzzySearch(List.of(Clause.of("kiue", Field.TITLE)), FacetFilter.NONE,
+                PageRequest.of(0, 10)).page().isEmpty());
+        assertEquals(List.of(3L), index.fuzzySearch(List.of(Clause.of("truong tan thnah", Field.TITLE)),
+                FacetFilter.NONE, PageRequest.of(0, 10)).page().getContent());
+    }
+
+    private List<Long> ids(Clause... clauses) {
+        return index.search(List.of(clauses), PageRequest.of(0, 10)).getContent();
+    }
+
+    private static List<Long> counts(List<CatalogFacets.Value> values) {
+        return values.stream().map(CatalogFacets.Value::count).toList();
+    }
+
+    private static List<String> values(List<CatalogFacets.Value> values) {
+        return values.stream().map(CatalogFacets.Value::value).toList();
+    }
+
+    private static Book faceted(Book book, Long categoryId, String publisher, Integer publishYear) {
+        book.setCategoryId(categoryId);
+        book.setPublisher(publisher);
+        book.setPublishYear(publishYear);
+        return book;
+    }
+
+    private static Book book(Long id, String isbn, String title, String author, String category, String description) {
+        Book book = new Book();
+        book.setId(id);
+        book.setIsbn(isbn);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setCategory(category);
+        book.setDescription(description);
+        return book;
+    }
+}
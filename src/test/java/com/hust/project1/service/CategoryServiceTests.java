@@ -0,0 +1,63 @@
+package com.hust.project1.service;
+
+import com.hust.project1.QueryPlanTestSupport;
+import com.hust.project1.entity.Category;
+import com.hust.project1.repository.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two librarians typing the same new category at once. The losing transaction already holds a
+ * REPEATABLE READ snapshot from before the winner committed, so it must still find the winner's row.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CategoryServiceTests extends QueryPlanTestSupport {
+
+    private static final String NAME = "Khoa học dữ liệu thử nghiệm";
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM categories WHERE name = ?", NAME);
+    }
+
+    @Test
+    void resolveFindsACategoryCommittedAfterTheSnapshot() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Optional<Category> resolved = transaction.execute(status -> {
+            // The first read fixes this transaction's snapshot
+            categoryRepository.count();
+            Optional<Category> other = CompletableFuture
+                    .supplyAsync(() -> transaction.execute(inner -> categoryService.resolve(NAME)))
+                    .join();
+            assertTrue(other.isPresent());
+
+            Optional<Category> mine = categoryService.resolve(NAME);
+            assertEquals(other.get().getId(), mine.map(Category::getId).orElse(null));
+            return mine;
+        });
+
+        assertTrue(resolved.isPresent());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM categories WHERE name = ?",
+                Integer.class, NAME));
+    }
+}
@@ -0,0 +1,129 @@
+package com.hust.project1.service;
+
+import com.hust.project1.QueryPlanTestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many desks checking out at the same moment against a real MySQL. Each checkout runs in its own
+ * transaction (outside the test transaction), so the rows they race for are really contended.
+ * Throughputs are printed; the circulation tables are restored after each test.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CheckoutConcurrencyTests extends QueryPlanTestSupport {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BorrowRecordService borrowRecordService;
+
+    @BeforeEach
+    void snapshot() {
+        snapshotTables(CIRCULATION_TABLES);
+    }
+
+    @AfterEach
+    void restore() {
+        restoreTables(CIRCULATION_TABLES);
+    }
+
+    @Test
+    void oneCopyIsLentExactlyOnce() throws Exception {
+        long copyId = newAvailableCopy(500L);
+        List<Long> members = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            members.add(newMember());
+        }
+
+        AtomicInteger successes = new AtomicInteger();
+        long millis = race(THREADS, i -> {
+            borrowRecordService.createBorrowRecord(members.get(i), List.of(copyId), null);
+            successes.incrementAndGet();
+        });
+        System.out.println("📊 " + THREADS + " concurrent checkouts of one copy in " + millis + " ms ("
+                + THREADS * 1000L / Math.max(1, millis) + " checkouts/s)");
+
+        assertEquals(1, successes.get());
+        assertEquals("BORROWED", jdbcTemplate.queryForObject(
+                "SELECT status FROM book_copies WHERE id = ?", String.class, copyId));
+        Long winner = jdbcTemplate.queryForObject("SELECT br.member_id FROM borrow_record_details d "
+                + "JOIN borrow_records br ON br.id = d.borrow_record_id WHERE d.book_copy_id = ?", Long.class, copyId);
+        for (Long memberId : members) {
+            assertEquals(memberId.equals(winner) ? 1 : 0, jdbcTemplate.queryForObject(
+                    "SELECT active_borrow_count FROM members WHERE id = ?", Integer.class, memberId),
+                    "active_borrow_count of member " + memberId);
+        }
+    }
+
+    @Test
+    void memberNeverExceedsTheBorrowLimit() throws Exception {
+        long memberId = newMember();
+        List<Long> copies = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            copies.add(newAvailableCopy(600L + i));
+        }
+
+        AtomicInteger successes = new AtomicInteger();
+        long millis = race(THREADS, i -> {
+            borrowRecordService.createBorrowRecord(memberId, List.of(copies.get(i)), null);
+            successes.incrementAndGet();
+        });
+        System.out.println("📊 " + THREADS + " concurrent checkouts for one member in " + millis + " ms ("
+                + THREADS * 1000L / Math.max(1, millis) + " checkouts/s), " + successes.get() + " accepted");
+
+        int activeBorrowCount = jdbcTemplate.queryForObject(
+                "SELECT active_borrow_count FROM members WHERE id = ?", Integer.class, memberId);
+        int openDetails = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM borrow_record_details d "
+                + "JOIN borrow_records br ON br.id = d.borrow_record_id "
+                + "WHERE br.member_id = ? AND d.actual_return_date IS NULL", Integer.class, memberId);
+        assertTrue(successes.get() <= 3, successes.get() + " checkouts accepted");
+        assertEquals(successes.get(), openDetails);
+        assertEquals(openDetails, activeBorrowCount);
+    }
+
+    /**
+     * Start all attempts at once and wait for them; failed attempts (refused checkouts) are expected.
+     * Returns the elapsed milliseconds.
+     */
+    private static long race(int attempts, Attempt attempt) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(attempts);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            int index = i;
+            futures.add(threads.submit(() -> {
+                start.await();
+                try {
+                    attempt.run(index);
+                } catch (RuntimeException refused) {
+                    // Lost the race or over the limit
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        threads.shutdown();
+        return (System.nanoTime() - begin) / 1_000_000;
+    }
+
+    @FunctionalInterface
+    private interface Attempt {
+        void run(int index);
+    }
+}
@@ -0,0 +1,69 @@
+package com.hust.project1.service;
+
+import com.hust.project1.QueryPlanTestSupport;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A checkout loads, reserves and records all of its copies with one statement each,
+ * so the number of round trips does not depend on how many copies are borrowed.
+ * Counted both by Hibernate and on the server (which also sees the JDBC batch insert).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CheckoutQueryCountTests extends QueryPlanTestSupport {
+
+    @Autowired
+    private BorrowRecordService borrowRecordService;
+
+    @Autowired
+    private MemberStandingService memberStandingService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void checkoutIssuesConstantStatements() {
+        List<Long> members = List.of(newMember(), newMember(), newMember(), newMember());
+        memberStandingService.refresh(members);
+        // First checkout warms up the caches and statement plans
+        statementsForCheckout(members.get(0), 1);
+
+        long[] hibernate = new long[3];
+        long[] server = new long[3];
+        for (int copies = 1; copies <= 3; copies++) {
+            long[] counts = statementsForCheckout(members.get(copies), copies);
+            hibernate[copies - 1] = counts[0];
+            server[copies - 1] = counts[1];
+        }
+
+        System.out.println("📊 Statements per checkout of 1/2/3 copies: Hibernate " + hibernate[0] + "/"
+                + hibernate[1] + "/" + hibernate[2] + ", server " + server[0] + "/" + server[1] + "/" + server[2]);
+        assertEquals(hibernate[0], hibernate[1]);
+        assertEquals(hibernate[0], hibernate[2]);
+        assertEquals(server[0], server[1]);
+        assertEquals(server[0], server[2]);
+    }
+
+    private long[] statementsForCheckout(long memberId, int copies) {
+        // Copies of different books, so the availability refresh also covers several books
+        List<Long> copyIds = new ArrayList<>();
+        for (int i = 0; i < copies; i++) {
+            copyIds.add(newAvailableCopy(100L + memberId % 100 * 3 + i));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long before = statementsOnConnection();
+        borrowRecordService.createBorrowRecord(memberId, copyIds, null);
+        long server = statementsOnConnection() - before;
+        return new long[] { statistics.getPrepareStatementCount(), server };
+    }
+}
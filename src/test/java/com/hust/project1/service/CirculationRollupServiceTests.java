@@ -0,0 +1,80 @@
+package com.hust.project1.service;
+
+import com.hust.project1.entity.FineTransaction;
+import com.hust.project1.entity.FineTransaction.TransactionType;
+import com.hust.project1.repository.CirculationDailyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CirculationRollupServiceTests {
+
+    private final CirculationDailyRepository circulationDailyRepository = mock(CirculationDailyRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private final CirculationRollupService rollup = new CirculationRollupService();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(rollup, "circulationDailyRepository", circulationDailyRepository);
+        ReflectionTestUtils.setField(rollup, "transactionTemplate", transactionTemplate);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void deskTotalsAreWrittenByTheFlushNotByTheCaller() {
+        LocalDate today = LocalDate.now();
+        // No transaction here: the deltas are buffered right away
+        rollup.recordCheckout(1L);
+        rollup.recordCheckout(2L);
+        rollup.recordReturns(List.of(10L, 11L), today);
+        rollup.recordFines(List.of(fine(TransactionType.ASSESS, 10L, 5_000), fine(TransactionType.ASSESS, 10L, 5_000),
+                fine(TransactionType.PAY, 11L, 50_000), fine(TransactionType.WAIVE, 12L, 100_000)));
+        verifyNoInteractions(circulationDailyRepository);
+
+        rollup.flush();
+        verify(circulationDailyRepository).addCheckouts(List.of(1L, 2L));
+        verify(circulationDailyRepository).addReturns(List.of(10L, 11L), today);
+        verify(circulationDailyRepository).addFineAssessed(10L, 10_000L, today);
+        verify(circulationDailyRepository).addFinePaid(11L, 50_000L, today);
+        verifyNoMoreInteractions(circulationDailyRepository);
+
+        // Nothing left for the next flush
+        rollup.flush();
+        verifyNoMoreInteractions(circulationDailyRepository);
+    }
+
+    @Test
+    void failedFlushKeepsTheTotalsForTheNextOne() {
+        rollup.recordCheckout(1L);
+        doThrow(new RuntimeException("deadlock")).doNothing().when(circulationDailyRepository).addCheckouts(any());
+
+        rollup.flush();
+        rollup.recordCheckout(2L);
+        rollup.flush();
+
+        verify(circulationDailyRepository).addCheckouts(List.of(1L, 2L));
+    }
+
+    private static FineTransaction fine(TransactionType type, Long detailId, long amount) {
+        FineTransaction tx = new FineTransaction();
+        tx.setType(type);
+        tx.setBorrowRecordDetailId(detailId);
+        tx.setAmount(BigDecimal.valueOf(amount));
+        return tx;
+    }
+}
@@ -0,0 +1,67 @@
+package com.hust.project1.service;
+
+import com.hust.project1.entity.BorrowRecord.RecordStatus;
+import com.hust.project1.repository.BookRepository;
+import com.hust.project1.repository.BorrowRecordRepository;
+import com.hust.project1.repository.MemberRepository;
+import com.hust.project1.repository.UserRepository;
+import com.hust.project1.service.DashboardCounters.Counter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DashboardCountersTests {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final MemberRepository memberRepository = mock(MemberRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final BorrowRecordRepository borrowRecordRepository = mock(BorrowRecordRepository.class);
+
+    private final DashboardCounters counters = new DashboardCounters();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(counters, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(counters, "memberRepository", memberRepository);
+        ReflectionTestUtils.setField(counters, "userRepository", userRepository);
+        ReflectionTestUtils.setField(counters, "borrowRecordRepository", borrowRecordRepository);
+        when(bookRepository.count()).thenReturn(120L);
+        when(memberRepository.count()).thenReturn(40L);
+        when(userRepository.count()).thenReturn(3L);
+        when(borrowRecordRepository.countByStatus(RecordStatus.ACTIVE)).thenReturn(10L);
+        when(borrowRecordRepository.countByStatus(RecordStatus.OVERDUE)).thenReturn(2L);
+    }
+
+    @Test
+    void seedsFromTheDatabaseAndFollowsWrites() {
+        counters.reconcile();
+        assertEquals(120L, counters.get(Counter.BOOKS));
+        assertEquals(10L, counters.get(Counter.ACTIVE_LOANS));
+
+        // No transaction here: the adjustments apply right away
+        counters.add(Counter.BOOKS, 1);
+        counters.move(Counter.ACTIVE_LOANS, Counter.OVERDUE_LOANS, 4);
+        assertEquals(121L, counters.get(Counter.BOOKS));
+        assertEquals(6L, counters.get(Counter.ACTIVE_LOANS));
+        assertEquals(6L, counters.get(Counter.OVERDUE_LOANS));
+
+        // Seeding is not drift
+        assertEquals(0L, counters.drift().get(Counter.BOOKS).total());
+    }
+
+    @Test
+    void reconcileCorrectsAndRecordsDrift() {
+        counters.reconcile();
+        counters.add(Counter.MEMBERS, 5);   // e.g. a write that rolled back outside the services
+
+        counters.reconcile();
+        assertEquals(40L, counters.get(Counter.MEMBERS));
+        assertEquals(-5L, counters.drift().get(Counter.MEMBERS).last());
+        assertEquals(5L, counters.drift().get(Counter.MEMBERS).total());
+        assertEquals(0L, counters.drift().get(Counter.USERS).last());
+    }
+}
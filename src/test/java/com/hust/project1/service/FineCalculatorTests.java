@@ -0,0 +1,128 @@
+package com.hust.project1.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FineCalculatorTests {
+
+    @Test
+    void lateFineIsZeroUntilAfterDueDate() {
+        LocalDate due = LocalDate.of(2026, 1, 10);
+        assertEquals(0L, FineCalculator.lateFine(due, due.minusDays(3)));
+        assertEquals(0L, FineCalculator.lateFine(due, due));
+        assertEquals(15_000L, FineCalculator.lateFine(due, due.plusDays(3)));
+    }
+
+    @Test
+    void chargeLateFinesOnlyChargesWhatWasNotAccrued() {
+        long today = LocalDate.of(2026, 1, 10).toEpochDay();
+        long[] due = { today - 4, today - 2, today + 1, today - 1 };
+        long[] accrued = { 10_000L, 10_000L, 0L, 0L };
+        long[] newAccrued = new long[4];
+        long[] charged = new long[4];
+
+        long total = FineCalculator.chargeLateFines(due, accrued, today, newAccrued, charged);
+
+        assertArrayEquals(new long[] { 10_000L, 0L, 0L, 5_000L }, charged);
+        assertArrayEquals(new long[] { 20_000L, 10_000L, 0L, 5_000L }, newAccrued);
+        assertEquals(15_000L, total);
+    }
+
+    @Test
+    void convertsAtTheBoundary() {
+        assertEquals(0L, FineCalculator.toDong(null));
+        assertEquals(100_000L, FineCalculator.toDong(new BigDecimal("100000.00")));
+        assertEquals(0, new BigDecimal("55000").compareTo(FineCalculator.toBigDecimal(55_000L)));
+        assertEquals(60_000L, FineCalculator.sum(new long[] { 5_000L, 50_000L, 5_000L }));
+    }
+
+    /**
+     * Before/after comparison for a large return batch: the per-detail BigDecimal
+     * multiply/subtract/reduce chain that returns used to run against the primitive
+     * batch evaluation. Both must charge the same amounts; the batch path must be faster.
+     */
+    @Test
+    void chargeLateFinesMatchesAndOutrunsBigDecimalPath() {
+        int batch = 200_000;
+        LocalDate today = LocalDate.of(2026, 1, 10);
+        long todayEpochDay = today.toEpochDay();
+        Random random = new Random(42);
+        long[] due = new long[batch];
+        long[] accrued = new long[batch];
+        LocalDate[] dueDates = new LocalDate[batch];
+        BigDecimal[] accruedDecimals = new BigDecimal[batch];
+        for (int i = 0; i < batch; i++) {
+            due[i] = todayEpochDay - 30 + random.nextInt(45);
+            accrued[i] = random.nextInt(10) * FineCalculator.LATE_FINE_PER_DAY;
+            dueDates[i] = LocalDate.ofEpochDay(due[i]);
+            accruedDecimals[i] = random.nextInt(4) == 0 ? null : BigDecimal.valueOf(accrued[i]);
+            if (accruedDecimals[i] == null) {
+                accrued[i] = 0L;
+            }
+        }
+        long[] newAccrued = new long[batch];
+        long[] charged = new long[batch];
+        BigDecimal[] chargedDecimals = new BigDecimal[batch];
+
+        int runs = 15;
+        long[] bigDecimalNanos = new long[runs];
+        long[] batchNanos = new long[runs];
+        BigDecimal bigDecimalTotal = null;
+        long batchTotal = 0L;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            bigDecimalTotal = bigDecimalLateFines(dueDates, accruedDecimals, today, chargedDecimals);
+            bigDecimalNanos[run] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            batchTotal = FineCalculator.chargeLateFines(due, accrued, todayEpochDay, newAccrued, charged);
+            batchNanos[run] = System.nanoTime() - start;
+        }
+
+        assertEquals(bigDecimalTotal.longValueExact(), batchTotal);
+        for (int i = 0; i < batch; i++) {
+            assertEquals(chargedDecimals[i].longValueExact(), charged[i], "detail " + i);
+        }
+
+        long before = median(bigDecimalNanos);
+        long after = median(batchNanos);
+        System.out.printf("📊 %d late fines: BigDecimal %d µs, chargeLateFines %d µs (%.1fx)%n",
+                batch, before / 1_000, after / 1_000, (double) before / after);
+        assertTrue(after < before, "chargeLateFines chậm hơn đường BigDecimal cũ");
+    }
+
+    /**
+     * The per-detail arithmetic returns ran before FineCalculator (applyLateFine + reduce)
+     */
+    private static BigDecimal bigDecimalLateFines(LocalDate[] dueDates, BigDecimal[] accrued, LocalDate day,
+            BigDecimal[] chargedOut) {
+        BigDecimal perDay = new BigDecimal("5000");
+        for (int i = 0; i < dueDates.length; i++) {
+            chargedOut[i] = BigDecimal.ZERO;
+            if (day.isAfter(dueDates[i])) {
+                long daysLate = ChronoUnit.DAYS.between(dueDates[i], day);
+                BigDecimal lateFine = perDay.multiply(BigDecimal.valueOf(daysLate));
+                BigDecimal already = accrued[i] != null ? accrued[i] : BigDecimal.ZERO;
+                if (lateFine.compareTo(already) > 0) {
+                    chargedOut[i] = lateFine.subtract(already);
+                }
+            }
+        }
+        return Arrays.stream(chargedOut).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,103 @@
+package com.hust.project1.service;
+
+import com.hust.project1.QueryPlanTestSupport;
+import com.hust.project1.dto.PageCursor;
+import com.hust.project1.entity.BorrowRecord;
+import com.hust.project1.repository.BorrowRecordRepository;
+import com.hust.project1.repository.SearchSpecifications;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Latency of the borrow record list on page 1 and page 10,000 with keyset cursors, next to
+ * OFFSET paging of the same deep page. The timings are printed; the test checks that the deep
+ * keyset page holds the same rows as the OFFSET page. The extra history is dropped afterwards.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class KeysetPaginationBenchmarkTests extends QueryPlanTestSupport {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE = 10_000;
+    private static final int MEASURED_RUNS = 15;
+
+    // 0..999999 from six cross-joined digit tables
+    private static final String DIGIT = "(SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 "
+            + "UNION ALL SELECT 4 UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 "
+            + "UNION ALL SELECT 9)";
+    private static final String NUMBERS = "SELECT a.d + b.d * 10 + c.d * 100 + e.d * 1000 + f.d * 10000 "
+            + "+ g.d * 100000 AS n FROM " + DIGIT + " a CROSS JOIN " + DIGIT + " b CROSS JOIN " + DIGIT
+            + " c CROSS JOIN " + DIGIT + " e CROSS JOIN " + DIGIT + " f CROSS JOIN " + DIGIT + " g";
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @BeforeEach
+    void snapshot() {
+        snapshotTables(CIRCULATION_TABLES);
+    }
+
+    @AfterEach
+    void restore() {
+        restoreTables(CIRCULATION_TABLES);
+    }
+
+    @Test
+    void deepKeysetPageCostsAboutTheSameAsTheFirst() {
+        // Enough history for DEEP_PAGE pages (on top of the seeded records)
+        jdbcTemplate.update("INSERT INTO borrow_records (borrow_date, due_date, status, member_id) "
+                + "SELECT DATE_SUB(?, INTERVAL n % 3650 DAY), DATE_SUB(?, INTERVAL n % 3650 - 14 DAY), 'RETURNED', "
+                + "n % 5000 + 1 FROM (" + NUMBERS + ") seq WHERE n < ?", TODAY, TODAY, PAGE_SIZE * DEEP_PAGE);
+        jdbcTemplate.execute("ANALYZE TABLE borrow_records");
+
+        // Cursor left by the last row of page DEEP_PAGE - 1
+        PageCursor deepCursor = jdbcTemplate.queryForObject("SELECT borrow_date, id FROM borrow_records "
+                + "ORDER BY borrow_date DESC, id DESC LIMIT 1 OFFSET ?",
+                (rs, row) -> PageCursor.after(rs.getObject("borrow_date", LocalDate.class).toString(), rs.getLong("id")),
+                PAGE_SIZE * (DEEP_PAGE - 1) - 1);
+        Specification<BorrowRecord> all = SearchSpecifications.borrowRecords(null, null, null, null);
+
+        long firstPage = medianMillis(() -> Seek.byDateAndId(borrowRecordRepository, all, "borrowDate", null,
+                PAGE_SIZE));
+        long deepKeyset = medianMillis(() -> Seek.byDateAndId(borrowRecordRepository, all, "borrowDate",
+                deepCursor, PAGE_SIZE));
+        PageRequest deepOffset = PageRequest.of(DEEP_PAGE - 1, PAGE_SIZE,
+                Sort.by(Sort.Direction.DESC, "borrowDate", "id"));
+        long deepOffsetMillis = medianMillis(() -> borrowRecordRepository.findAll(all, deepOffset).getContent());
+
+        System.out.println("📊 Borrow record list, median of " + MEASURED_RUNS + " runs: page 1 " + firstPage
+                + " ms, page " + DEEP_PAGE + " keyset " + deepKeyset + " ms, page " + DEEP_PAGE + " OFFSET "
+                + deepOffsetMillis + " ms");
+
+        List<Long> keysetIds = Seek.byDateAndId(borrowRecordRepository, all, "borrowDate", deepCursor, PAGE_SIZE)
+                .stream().limit(PAGE_SIZE).map(BorrowRecord::getId).toList();
+        List<Long> offsetIds = borrowRecordRepository.findAll(all, deepOffset).getContent().stream()
+                .map(BorrowRecord::getId).toList();
+        assertEquals(offsetIds, keysetIds);
+    }
+
+    private static long medianMillis(Supplier<?> page) {
+        page.get();
+        long[] millis = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            page.get();
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(millis);
+        return millis[MEASURED_RUNS / 2];
+    }
+}
@@ -0,0 +1,90 @@
+package com.hust.project1.service;
+
+import com.hust.project1.QueryPlanTestSupport;
+import com.hust.project1.entity.Member;
+import com.hust.project1.repository.MemberRepository;
+import com.hust.project1.repository.SearchSpecifications;
+import com.hust.project1.service.MemberSearchIndex.Field;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Latency of the member search over the seeded members: the LIKE '%...%' specification scan
+ * next to the in-memory trigram index. The timings are printed; the test checks that both
+ * return the same page and total, and that the index is the faster of the two. Nothing is written.
+ */
+class MemberSearchBenchmarkTests extends QueryPlanTestSupport {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int MEASURED_RUNS = 15;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private MemberSearchIndex memberSearchIndex;
+
+    @BeforeEach
+    void buildIndex() {
+        // The index was built when the context started, possibly before the seed
+        memberSearchIndex.rebuild();
+    }
+
+    @Test
+    void indexAnswersTheSameSearchesFasterThanTheScan() {
+        PageRequest page = PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "id"));
+        List<Search> searches = List.of(
+                new Search("name", "giả 12", null, null),
+                new Search("email", null, "dg12", null),
+                new Search("name + status", "giả 1", null, "SUSPENDED"));
+
+        for (Search search : searches) {
+            Supplier<Page<Member>> scan = () -> memberRepository.findAll(SearchSpecifications.members(
+                    search.fullName(), null, false, search.email(), null, search.status()), page);
+            Map<Field, String> filters = new EnumMap<>(Field.class);
+            filters.put(Field.FULL_NAME, search.fullName());
+            filters.put(Field.EMAIL, search.email());
+            Supplier<Page<Long>> index = () -> memberSearchIndex.search(filters, search.status(), page);
+
+            long scanMicros = medianMicros(scan);
+            long indexMicros = medianMicros(index);
+            System.out.println("📊 Member search '" + search.label() + "', median of " + MEASURED_RUNS
+                    + " runs: specification " + scanMicros + " µs, index " + indexMicros + " µs");
+
+            Page<Member> scanned = scan.get();
+            Page<Long> indexed = index.get();
+            assertEquals(scanned.getTotalElements(), indexed.getTotalElements(), search.label());
+            assertEquals(scanned.getContent().stream().map(Member::getId).toList(), indexed.getContent(),
+                    search.label());
+            assertTrue(indexMicros < scanMicros, search.label());
+        }
+    }
+
+    private static long medianMicros(Supplier<?> search) {
+        search.get();
+        long[] micros = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            search.get();
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros[MEASURED_RUNS / 2];
+    }
+
+    private record Search(String label, String fullName, String email, String status) {
+    }
+}
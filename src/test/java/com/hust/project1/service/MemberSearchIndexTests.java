@@ -0,0 +1,82 @@
+package com.hust.project1.service;
+
+import com.hust.project1.entity.Member;
+import com.hust.project1.service.MemberSearchIndex.Field;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemberSearchIndexTests {
+
+    private MemberSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MemberSearchIndex();
+        index.put(member(1L, "DG001", "Nguyễn Văn An", "an.nguyen@example.com", "0912345678",
+                Member.MemberStatus.ACTIVE));
+        index.put(member(2L, "DG002", "Trần Thị Bình", "binh.tran@example.com", "0987654321",
+                Member.MemberStatus.SUSPENDED));
+        index.put(member(3L, "DG003", "Nguyễn  Đức Anh", "anh.nguyen@example.com", null,
+                Member.MemberStatus.ACTIVE));
+    }
+
+    @Test
+    void matchesSubstringsIgnoringCaseAndDiacritics() {
+        assertEquals(List.of(1L), ids(Map.of(Field.FULL_NAME, "nguyen van an"), null));
+        assertEquals(List.of(3L), ids(Map.of(Field.FULL_NAME, "NGUYEN DUC"), null));
+        assertEquals(List.of(3L, 1L), ids(Map.of(Field.FULL_NAME, "guyễn"), null));
+        assertEquals(List.of(2L), ids(Map.of(Field.PHONE, "7654"), null));
+        assertTrue(ids(Map.of(Field.FULL_NAME, "example"), null).isEmpty());
+    }
+
+    @Test
+    void combinesFieldsShortQueriesAndStatus() {
+        assertEquals(List.of(3L), ids(Map.of(Field.EMAIL, "anh.", Field.MEMBER_CODE, "03"), null));
+        assertEquals(List.of(3L, 2L, 1L), ids(Map.of(Field.MEMBER_CODE, "d"), null));
+        assertEquals(List.of(3L, 1L), ids(Map.of(Field.MEMBER_CODE, "dg"), "ACTIVE"));
+    }
+
+    @Test
+    void suggestsAcrossFieldsNewestFirst() {
+        assertEquals(List.of(3L, 1L), index.suggest("nguyen", null, 10));
+        assertEquals(List.of(2L), index.suggest("0987", null, 10));
+        assertEquals(List.of(3L, 1L), index.suggest("dg00", "ACTIVE", 10));
+        assertEquals(List.of(3L, 2L), index.suggest("dg00", null, 2));
+        assertTrue(index.suggest("  ", null, 10).isEmpty());
+    }
+
+    @Test
+    void updatesReplaceAndRemoveMembers() {
+        index.put(member(1L, "DG001", "Lê Văn An", "an.le@example.com", "0912345678",
+                Member.MemberStatus.ACTIVE));
+        assertEquals(List.of(3L), ids(Map.of(Field.FULL_NAME, "nguyen"), null));
+        assertEquals(List.of(1L), ids(Map.of(Field.FULL_NAME, "le van"), null));
+
+        index.remove(1L);
+        assertTrue(ids(Map.of(Field.FULL_NAME, "van an"), null).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    private List<Long> ids(Map<Field, String> filters, String status) {
+        return index.search(filters, status, PageRequest.of(0, 10)).getContent();
+    }
+
+    private static Member member(Long id, String code, String name, String email, String phone,
+            Member.MemberStatus status) {
+        Member member = new Member();
+        member.setId(id);
+        member.setMemberCode(code);
+        member.setFullName(name);
+        member.setEmail(email);
+        member.setPhone(phone);
+        member.setStatus(status);
+        return member;
+    }
+}
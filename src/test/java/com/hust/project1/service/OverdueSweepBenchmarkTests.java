@@ -0,0 +1,82 @@
+package com.hust.project1.service;
+
+import com.hust.project1.QueryPlanTestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Times the overdue sweep over a million ACTIVE records past their due date, then runs it again
+ * the same day and checks that nothing is charged twice (late fines, fines and ledger unchanged).
+ * The timings are printed. Runs outside the test transaction, since the sweep commits chunk by chunk;
+ * the circulation tables are restored afterwards.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OverdueSweepBenchmarkTests extends QueryPlanTestSupport {
+
+    private static final int RECORDS = 1_000_000;
+
+    // 0..999999 from six cross-joined digit tables
+    private static final String DIGIT = "(SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 "
+            + "UNION ALL SELECT 4 UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 "
+            + "UNION ALL SELECT 9)";
+    private static final String NUMBERS = "SELECT a.d + b.d * 10 + c.d * 100 + e.d * 1000 + f.d * 10000 "
+            + "+ g.d * 100000 AS n FROM " + DIGIT + " a CROSS JOIN " + DIGIT + " b CROSS JOIN " + DIGIT
+            + " c CROSS JOIN " + DIGIT + " e CROSS JOIN " + DIGIT + " f CROSS JOIN " + DIGIT + " g";
+
+    @Autowired
+    private BorrowRecordService borrowRecordService;
+
+    @BeforeEach
+    void snapshot() {
+        snapshotTables(CIRCULATION_TABLES);
+    }
+
+    @AfterEach
+    void restore() {
+        restoreTables(CIRCULATION_TABLES);
+    }
+
+    @Test
+    void sweepIsFastAndDoesNotChargeTwice() {
+        LocalDate today = LocalDate.now();
+        long before = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM borrow_records", Long.class);
+        // Due 1..60 days ago, one open line each
+        jdbcTemplate.update("INSERT INTO borrow_records (borrow_date, due_date, status, member_id) "
+                + "SELECT DATE_SUB(?, INTERVAL n % 60 + 15 DAY), DATE_SUB(?, INTERVAL n % 60 + 1 DAY), 'ACTIVE', "
+                + "n % 5000 + 1 FROM (" + NUMBERS + ") seq WHERE n < ?", today, today, RECORDS);
+        jdbcTemplate.update("INSERT INTO borrow_record_details (borrow_record_id, book_copy_id, fine, late_fine) "
+                + "SELECT id, id % 8000 + 1, 0, 0 FROM borrow_records WHERE id > ?", before);
+        jdbcTemplate.execute("ANALYZE TABLE borrow_records, borrow_record_details");
+
+        long start = System.nanoTime();
+        borrowRecordService.updateOverdueStatus();
+        long firstMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM borrow_records "
+                + "WHERE status = 'ACTIVE' AND due_date < ?", Long.class, today));
+        Map<String, Object> charged = totals();
+
+        start = System.nanoTime();
+        borrowRecordService.updateOverdueStatus();
+        long secondMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("📊 Overdue sweep over " + RECORDS + " records: first run " + firstMillis
+                + " ms, second run (nothing to charge) " + secondMillis + " ms");
+        assertEquals(charged, totals());
+    }
+
+    private Map<String, Object> totals() {
+        return jdbcTemplate.queryForMap("SELECT (SELECT SUM(late_fine) FROM borrow_record_details) AS late_fines, "
+                + "(SELECT SUM(fine) FROM borrow_record_details) AS fines, "
+                + "(SELECT COUNT(*) FROM fine_transactions) AS ledger_entries");
+    }
+}
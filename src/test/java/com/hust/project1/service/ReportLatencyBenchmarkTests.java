@@ -0,0 +1,93 @@
+package com.hust.project1.service;
+
+import com.hust.project1.QueryPlanTestSupport;
+import com.hust.project1.dto.ReportSection;
+import com.hust.project1.service.ReportSnapshotService.Section;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end latency of a full report snapshot refresh against the seeded MySQL, with the sections
+ * and their queries run one after another (the previous behaviour) and fanned out on virtual threads.
+ * The timings are printed; the test only asserts that both modes produce the same report.
+ */
+class ReportLatencyBenchmarkTests extends QueryPlanTestSupport {
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+
+    @Autowired
+    private ReportSnapshotService reportSnapshotService;
+
+    @Autowired
+    private ReportExecutor reportExecutor;
+
+    private long maxStalenessSeconds;
+
+    @BeforeEach
+    void holdBackgroundRefresh() throws InterruptedException {
+        // Keep the scheduled refresh out of the measurements (waits for one already running)
+        AtomicBoolean refreshing = (AtomicBoolean) ReflectionTestUtils.getField(reportSnapshotService, "refreshing");
+        while (!refreshing.compareAndSet(false, true)) {
+            Thread.sleep(10);
+        }
+        // Every section is due on every refresh
+        maxStalenessSeconds = (long) ReflectionTestUtils.getField(reportSnapshotService, "maxStalenessSeconds");
+        ReflectionTestUtils.setField(reportSnapshotService, "maxStalenessSeconds", 0L);
+    }
+
+    @AfterEach
+    void restore() {
+        ReflectionTestUtils.setField(reportExecutor, "parallel", true);
+        ReflectionTestUtils.setField(reportSnapshotService, "maxStalenessSeconds", maxStalenessSeconds);
+        ((AtomicBoolean) ReflectionTestUtils.getField(reportSnapshotService, "refreshing")).set(false);
+    }
+
+    @Test
+    void parallelRefreshMatchesSerialRefresh() {
+        ReflectionTestUtils.setField(reportExecutor, "parallel", false);
+        reportSnapshotService.refreshDue();
+        Map<Section, ReportSection> serial = reportSnapshotService.getSnapshot();
+        long serialMedian = medianMillis();
+
+        ReflectionTestUtils.setField(reportExecutor, "parallel", true);
+        reportSnapshotService.refreshDue();
+        Map<Section, ReportSection> parallel = reportSnapshotService.getSnapshot();
+        long parallelMedian = medianMillis();
+
+        System.out.println("📊 Report snapshot refresh, median of " + MEASURED_RUNS + " runs: serial "
+                + serialMedian + " ms, parallel " + parallelMedian + " ms");
+        assertEquals(serial.keySet(), parallel.keySet());
+        assertEquals(stats(serial, Section.OVERVIEW), stats(parallel, Section.OVERVIEW));
+        assertEquals(stats(serial, Section.FINANCIAL), stats(parallel, Section.FINANCIAL));
+        assertEquals(stats(serial, Section.BOOKS).keySet(), stats(parallel, Section.BOOKS).keySet());
+        assertEquals(stats(serial, Section.MEMBERS).keySet(), stats(parallel, Section.MEMBERS).keySet());
+    }
+
+    private static Map<String, Object> stats(Map<Section, ReportSection> snapshot, Section section) {
+        return snapshot.get(section).stats();
+    }
+
+    private long medianMillis() {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            reportSnapshotService.refreshDue();
+        }
+        long[] millis = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            reportSnapshotService.refreshDue();
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(millis);
+        return millis[MEASURED_RUNS / 2];
+    }
+}
@@ -0,0 +1,99 @@
+package com.hust.project1.service;
+
+import com.hust.project1.QueryPlanTestSupport;
+import com.hust.project1.dto.ReturnResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bulk returns at the return station: results line up with the scanned cart, and the cost of a
+ * return grows linearly with the cart (timings and statement counts per cart size are printed,
+ * and the cost per item must not grow with the cart).
+ */
+class ReturnCartBenchmarkTests extends QueryPlanTestSupport {
+
+    private static final int[] CART_SIZES = { 1, 10, 50, 200 };
+
+    @Autowired
+    private BorrowRecordService borrowRecordService;
+
+    @Test
+    void resultsFollowTheScanOrder() {
+        List<String> loaned = lend(3, LocalDate.now().minusDays(20));
+        List<String> cart = List.of(loaned.get(0), "KHONG-TON-TAI", loaned.get(1), loaned.get(0), loaned.get(2));
+
+        List<ReturnResult> results = borrowRecordService.returnBooksByCopyNumbers(cart);
+
+        assertEquals(cart, results.stream().map(ReturnResult::item).toList());
+        assertEquals(List.of(true, false, true, false, true), results.stream().map(ReturnResult::success).toList());
+    }
+
+    @Test
+    void costGrowsLinearlyWithCartSize() {
+        // Warm-up
+        borrowRecordService.returnBooksByCopyNumbers(lend(5, LocalDate.now().minusDays(3)));
+
+        StringBuilder report = new StringBuilder();
+        double[] microsPerItem = new double[CART_SIZES.length];
+        double[] statementsPerItem = new double[CART_SIZES.length];
+        for (int k = 0; k < CART_SIZES.length; k++) {
+            int size = CART_SIZES[k];
+            // Half of the cart is late, so fines and ledger entries are part of the cost
+            List<String> cart = new ArrayList<>(lend(size / 2, LocalDate.now().minusDays(30)));
+            cart.addAll(lend(size - size / 2, LocalDate.now().minusDays(3)));
+
+            long statements = statementsOnConnection();
+            long start = System.nanoTime();
+            List<ReturnResult> results = borrowRecordService.returnBooksByCopyNumbers(cart);
+            long micros = (System.nanoTime() - start) / 1000;
+            statements = statementsOnConnection() - statements;
+
+            assertEquals(size, results.stream().filter(ReturnResult::success).count());
+            microsPerItem[k] = (double) micros / size;
+            statementsPerItem[k] = (double) statements / size;
+            report.append(String.format("%n   %4d items: %7d µs (%5d µs/item), %d statements",
+                    size, micros, micros / size, statements));
+        }
+        System.out.println("📊 Bulk return cost by cart size:" + report);
+
+        // Linear cost: the fixed part is spread over more items, so the cost per item must not grow
+        // from a 10-item cart to a 200-item cart (a quadratic path would make it about 20 times higher).
+        // Time gets some slack for noise; the statement count is exact.
+        int small = 1;
+        int large = CART_SIZES.length - 1;
+        assertTrue(statementsPerItem[large] <= statementsPerItem[small],
+                "statements per item: " + statementsPerItem[small] + " -> " + statementsPerItem[large]);
+        assertTrue(microsPerItem[large] <= 3 * microsPerItem[small],
+                "µs per item: " + microsPerItem[small] + " -> " + microsPerItem[large]);
+    }
+
+    /**
+     * Lend fresh copies to a fresh member in one record borrowed on the given day (due 14 days later),
+     * returning their copy numbers
+     */
+    private List<String> lend(int copies, LocalDate borrowDate) {
+        long memberId = newMember();
+        jdbcTemplate.update("INSERT INTO borrow_records (borrow_date, due_date, status, member_id) "
+                + "VALUES (?, ?, 'ACTIVE', ?)", borrowDate, borrowDate.plusDays(14), memberId);
+        long recordId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM borrow_records WHERE member_id = ?",
+                Long.class, memberId);
+        List<String> copyNumbers = new ArrayList<>();
+        for (int i = 0; i < copies; i++) {
+            long copyId = newAvailableCopy(700L + i % 100);
+            jdbcTemplate.update("UPDATE book_copies SET status = 'BORROWED' WHERE id = ?", copyId);
+            jdbcTemplate.update("INSERT INTO borrow_record_details (borrow_record_id, book_copy_id, fine, late_fine) "
+                    + "VALUES (?, ?, 0, 0)", recordId, copyId);
+            copyNumbers.add(jdbcTemplate.queryForObject(
+                    "SELECT copy_number FROM book_copies WHERE id = ?", String.class, copyId));
+        }
+        jdbcTemplate.update("UPDATE members SET active_borrow_count = ? WHERE id = ?", copies, memberId);
+        return copyNumbers;
+    }
+}
@@ -0,0 +1,113 @@
+package com.hust.project1.service;
+
+import com.hust.project1.QueryPlanTestSupport;
+import com.hust.project1.dto.PageCursor;
+import com.hust.project1.repository.BookCopyRepository;
+import com.hust.project1.repository.BookRepository;
+import com.hust.project1.repository.BorrowRecordRepository;
+import com.hust.project1.repository.MemberRepository;
+import com.hust.project1.repository.SearchSpecifications;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * EXPLAINs the SQL generated for the common list filters against a seeded MySQL and checks
+ * that every table is read through an index (never a full scan).
+ */
+class SearchQueryPlanTests extends QueryPlanTestSupport {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Test
+    void exactIsbnIsAConstLookup() {
+        bookRepository.findByIsbn("978-0-00-000500");
+        Map<String, Object> row = plan().get(0);
+        assertEquals("const", row.get("type"));
+    }
+
+    @Test
+    void exactMemberCodeIsAConstLookup() {
+        memberRepository.findAll(SearchSpecifications.members(null, "DG01500", true, null, null, null),
+                PageRequest.of(0, 10, Sort.by("id").descending()));
+        Map<String, Object> row = plan().get(0);
+        assertEquals("const", row.get("type"));
+    }
+
+    @Test
+    void membersByStatusUseTheStatusIndex() {
+        Seek.byId(memberRepository, SearchSpecifications.members(null, null, false, null, null, "SUSPENDED"),
+                null, 10);
+        assertUsesIndex(plan(), Set.of("idx_members_status"));
+    }
+
+    @Test
+    void copiesByStatusUseTheStatusIndex() {
+        Seek.byId(bookCopyRepository, SearchSpecifications.bookCopies(null, null, "LOST", null), null, 10);
+        assertUsesIndex(plan(), Set.of("idx_book_copies_status"));
+    }
+
+    @Test
+    void copiesOfABookUseTheBookIndex() {
+        Seek.byId(bookCopyRepository, SearchSpecifications.bookCopies(42L, null, "AVAILABLE", null), null, 10);
+        assertUsesIndex(plan(), Set.of("idx_book_copies_book_status"));
+    }
+
+    @Test
+    void recordsOfAMemberUseTheMemberIndex() {
+        Seek.byDateAndId(borrowRecordRepository, SearchSpecifications.borrowRecords(77L, null, null, null),
+                "borrowDate", null, 10);
+        assertUsesIndex(plan(), Set.of("idx_borrow_records_member_borrow_date"));
+    }
+
+    @Test
+    void recordsByStatusUseTheStatusIndex() {
+        Seek.byDateAndId(borrowRecordRepository, SearchSpecifications.borrowRecords(null, "OVERDUE", null, null),
+                "borrowDate", null, 10);
+        assertUsesIndex(plan(), Set.of("idx_borrow_records_status_borrow_date"));
+    }
+
+    @Test
+    void recordsByDateRangeUseTheDateIndex() {
+        Seek.byDateAndId(borrowRecordRepository,
+                SearchSpecifications.borrowRecords(null, null, TODAY.minusDays(30), TODAY.minusDays(1)),
+                "borrowDate", null, 10);
+        assertUsesIndex(plan(), Set.of("idx_borrow_records_borrow_date"));
+    }
+
+    @Test
+    void deepRecordPagesSeekOnTheDateIndex() {
+        Seek.byDateAndId(borrowRecordRepository, SearchSpecifications.borrowRecords(null, null, null, null),
+                "borrowDate", PageCursor.after(TODAY.minusDays(600).toString(), 5000L), 10);
+        assertUsesIndex(plan(), Set.of("idx_borrow_records_borrow_date"));
+    }
+
+    @Test
+    void booksInACategoryUseTheCategoryIdIndex() {
+        Seek.byId(bookRepository, SearchSpecifications.bookFacets(3L, null, null, null), null, 10);
+        assertUsesIndex(plan(), Set.of("idx_books_category_id"));
+    }
+
+    @Test
+    void deepCatalogPagesSeekOnThePrimaryKey() {
+        Seek.byId(bookRepository, Specification.unrestricted(), PageCursor.after("", 100L), 10);
+        assertUsesIndex(plan(), Set.of("PRIMARY"));
+    }
+}
@@ -0,0 +1,24 @@
+package com.hust.project1.service;
+
+import com.hust.project1.dto.PageCursor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SeekTests {
+
+    @Test
+    void dateCursorsAreKeptAndAnythingElseStartsOver() {
+        PageCursor after = PageCursor.after("2026-01-10", 42L);
+        assertEquals(after, Seek.dateCursor(after));
+        assertEquals(PageCursor.before("2026-01-10", 42L), Seek.dateCursor(PageCursor.before("2026-01-10", 42L)));
+
+        // Empty key, a key from an ID-sorted list, a hand-edited token, an offset
+        assertNull(Seek.dateCursor(PageCursor.decode("QXw0Mnw")));
+        assertNull(Seek.dateCursor(PageCursor.after("DG01500", 42L)));
+        assertNull(Seek.dateCursor(PageCursor.after("2026-13-45", 42L)));
+        assertNull(Seek.dateCursor(PageCursor.offset(30)));
+        assertNull(Seek.dateCursor(null));
+    }
+}
@@ -0,0 +1,96 @@
+package com.hust.project1.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTests {
+
+    @Test
+    void keepsTheHeavyHittersOfALongTail() {
+        SpaceSaving sketch = new SpaceSaving(100);
+        Random random = new Random(7);
+        // Books 1..5 are borrowed 300, 250, ... times among 5000 borrows of a long tail
+        for (int round = 0; round < 300; round++) {
+            for (long book = 1; book <= 5; book++) {
+                if (round < 350 - 50 * book) {
+                    sketch.offer(book, 1);
+                }
+            }
+            for (int i = 0; i < 17; i++) {
+                sketch.offer(100 + random.nextInt(5000), 1);
+            }
+        }
+
+        List<SpaceSaving.Entry> top = sketch.top(5);
+        for (int i = 0; i < 5; i++) {
+            SpaceSaving.Entry entry = top.get(i);
+            long expected = 350 - 50 * (i + 1);
+            assertEquals(i + 1, entry.item());
+            assertTrue(entry.count() >= expected && entry.count() - entry.error() <= expected);
+        }
+        assertEquals(100, sketch.size());
+    }
+
+    @Test
+    void mergeAddsCountsAndKeepsTheLargest() {
+        SpaceSaving monday = new SpaceSaving(3);
+        monday.offer(1, 5);
+        monday.offer(2, 2);
+        SpaceSaving tuesday = new SpaceSaving(4);
+        tuesday.offer(2, 4);
+        tuesday.offer(3, 1);
+        tuesday.offer(4, 3);
+
+        List<SpaceSaving.Entry> merged = SpaceSaving.merge(2, List.of(monday, tuesday)).top(10);
+        assertEquals(2, merged.size());
+        assertEquals(new SpaceSaving.Entry(2, 6, 0), merged.get(0));
+        assertEquals(new SpaceSaving.Entry(1, 5, 0), merged.get(1));
+    }
+
+    @Test
+    void mergeChargesItemsMissingFromAFullSketchItsMinimum() {
+        SpaceSaving monday = new SpaceSaving(3);
+        monday.offer(1, 5);
+        monday.offer(2, 2);
+        // Full: item 1 may have been counted up to 1 time on Tuesday without being kept
+        SpaceSaving tuesday = new SpaceSaving(3);
+        tuesday.offer(2, 4);
+        tuesday.offer(3, 1);
+        tuesday.offer(4, 3);
+
+        List<SpaceSaving.Entry> merged = SpaceSaving.merge(3, List.of(monday, tuesday)).top(10);
+        assertEquals(List.of(new SpaceSaving.Entry(2, 6, 0), new SpaceSaving.Entry(1, 6, 1),
+                new SpaceSaving.Entry(4, 3, 0)), merged);
+    }
+
+    @Test
+    void mergedCountsStillBoundTheTrueCounts() {
+        Random random = new Random(11);
+        Map<Long, Long> exact = new HashMap<>();
+        List<SpaceSaving> days = new ArrayList<>();
+        for (int day = 0; day < 7; day++) {
+            SpaceSaving sketch = new SpaceSaving(20);
+            for (int i = 0; i < 2000; i++) {
+                // Skewed: low IDs are borrowed far more often, and the tail differs per day
+                long item = random.nextInt(4) == 0 ? random.nextInt(10) : day * 1000L + random.nextInt(500);
+                sketch.offer(item, 1);
+                exact.merge(item, 1L, Long::sum);
+            }
+            days.add(sketch);
+        }
+
+        for (SpaceSaving.Entry entry : SpaceSaving.merge(20, days).entries()) {
+            long count = exact.getOrDefault(entry.item(), 0L);
+            assertTrue(entry.count() >= count, "item " + entry.item() + " undercounted");
+            assertTrue(entry.count() - entry.error() <= count, "item " + entry.item() + " error too small");
+        }
+    }
+}